@@ -36,7 +36,7 @@ import org.sonar.python.tree.TreeUtils;
 @Rule(key = "S3923")
 public class AllBranchesAreIdenticalCheck extends PythonSubscriptionCheck {
 
-  private static final List<ConditionalExpression> ignoreList = new ArrayList<>();
+  private final List<ConditionalExpression> ignoreList = new ArrayList<>();
 
   @Override
   public void initialize(Context context) {
@@ -70,7 +70,7 @@ public class AllBranchesAreIdenticalCheck extends PythonSubscriptionCheck {
     return IssueLocation.preciseLocation(tokens.get(0), tokens.get(tokens.size() - 1), null);
   }
 
-  private static void handleConditionalExpression(ConditionalExpression conditionalExpression, SubscriptionContext ctx) {
+  private void handleConditionalExpression(ConditionalExpression conditionalExpression, SubscriptionContext ctx) {
     if (ignoreList.contains(conditionalExpression)) {
       return;
     }
@@ -81,7 +81,7 @@ public class AllBranchesAreIdenticalCheck extends PythonSubscriptionCheck {
     }
   }
 
-  private static void addSecondaryLocations(PreciseIssue issue, Expression expression) {
+  private void addSecondaryLocations(PreciseIssue issue, Expression expression) {
     Expression unwrappedExpression = Expressions.removeParentheses(expression);
     if (unwrappedExpression.is(Tree.Kind.CONDITIONAL_EXPR)) {
       ConditionalExpression conditionalExpression = (ConditionalExpression) unwrappedExpression;
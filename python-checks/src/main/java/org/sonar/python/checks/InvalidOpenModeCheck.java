@@ -19,6 +19,7 @@
  */
 package org.sonar.python.checks;
 
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -26,7 +27,6 @@ import java.util.regex.Pattern;
 import org.sonar.check.Rule;
 import org.sonar.plugins.python.api.PythonSubscriptionCheck;
 import org.sonar.plugins.python.api.SubscriptionContext;
-import org.sonar.plugins.python.api.symbols.Symbol;
 import org.sonar.plugins.python.api.tree.Argument;
 import org.sonar.plugins.python.api.tree.CallExpression;
 import org.sonar.plugins.python.api.tree.Expression;
@@ -46,12 +46,8 @@ public class InvalidOpenModeCheck extends PythonSubscriptionCheck {
 
   @Override
   public void initialize(Context context) {
-    context.registerSyntaxNodeConsumer(Tree.Kind.CALL_EXPR, ctx -> {
+    context.registerCallExpressionConsumer(Collections.singleton("open"), ctx -> {
       CallExpression callExpression = (CallExpression) ctx.syntaxNode();
-      Symbol calleeSymbol = callExpression.calleeSymbol();
-      if (calleeSymbol == null || !"open".equals(calleeSymbol.fullyQualifiedName())) {
-        return;
-      }
       List<Argument> arguments = callExpression.arguments();
       RegularArgument modeArgument = TreeUtils.nthArgumentOrKeyword(1, "mode", arguments);
       if (modeArgument == null) {
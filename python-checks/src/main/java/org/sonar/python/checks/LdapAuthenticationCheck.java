@@ -35,7 +35,6 @@ import org.sonar.plugins.python.api.tree.StringLiteral;
 import org.sonar.plugins.python.api.tree.Tree;
 import org.sonar.plugins.python.api.types.BuiltinTypes;
 
-import static org.sonar.plugins.python.api.tree.Tree.Kind.CALL_EXPR;
 import static org.sonar.plugins.python.api.tree.Tree.Kind.NAME;
 import static org.sonar.plugins.python.api.tree.Tree.Kind.STRING_LITERAL;
 import static org.sonar.plugins.python.api.tree.Tree.Kind.UNPACKING_EXPR;
@@ -49,11 +48,10 @@ public class LdapAuthenticationCheck extends PythonSubscriptionCheck {
 
   @Override
   public void initialize(Context context) {
-    context.registerSyntaxNodeConsumer(CALL_EXPR, ctx -> {
+    context.registerCallExpressionConsumer(LDAP_OBJECT_SENSITIVE_METHODS, ctx -> {
       CallExpression callExpression = (CallExpression) ctx.syntaxNode();
-      Symbol calleeSymbol = callExpression.calleeSymbol();
       Set<Tree> secondaries = new HashSet<>();
-      if (calleeSymbol != null && LDAP_OBJECT_SENSITIVE_METHODS.contains(calleeSymbol.fullyQualifiedName()) && !isPasswordProvided(callExpression.argumentList(), secondaries)) {
+      if (!isPasswordProvided(callExpression.argumentList(), secondaries)) {
         PreciseIssue preciseIssue = ctx.addIssue(callExpression.callee(), "Provide a password when authenticating to this LDAP server.");
         secondaries.forEach(secondary -> preciseIssue.secondary(secondary, null));
       }
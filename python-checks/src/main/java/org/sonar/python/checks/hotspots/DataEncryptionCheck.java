@@ -20,17 +20,15 @@
 package org.sonar.python.checks.hotspots;
 
 import java.util.Arrays;
-import java.util.List;
+import java.util.HashSet;
+import java.util.Set;
 import org.sonar.check.Rule;
 import org.sonar.plugins.python.api.PythonSubscriptionCheck;
-import org.sonar.plugins.python.api.tree.CallExpression;
-import org.sonar.plugins.python.api.tree.Tree;
-import org.sonar.plugins.python.api.symbols.Symbol;
 
 @Rule(key = "S4787")
 public class DataEncryptionCheck extends PythonSubscriptionCheck {
 
-  private static final List<String> FUNCTIONS_TO_CHECK = Arrays.asList(
+  private static final Set<String> FUNCTIONS_TO_CHECK = new HashSet<>(Arrays.asList(
     // pyca/cryptography: https://github.com/pyca/cryptography
     "cryptography.fernet.Fernet",
     "cryptography.hazmat.primitives.ciphers.aead.ChaCha20Poly1305",
@@ -68,16 +66,10 @@ public class DataEncryptionCheck extends PythonSubscriptionCheck {
     "Cryptodome.Cipher.ChaCha20_Poly1305.new",
     "Cryptodome.Cipher.Salsa20.new",
     "Cryptodome.PublicKey.ElGamal.generate"
-    );
+    ));
 
   @Override
   public void initialize(Context context) {
-    context.registerSyntaxNodeConsumer(Tree.Kind.CALL_EXPR, ctx -> {
-      CallExpression callExpression = (CallExpression) ctx.syntaxNode();
-      Symbol symbol = callExpression.calleeSymbol();
-      if (symbol != null && FUNCTIONS_TO_CHECK.contains(symbol.fullyQualifiedName())) {
-        ctx.addIssue(callExpression, "Make sure that encrypting data is safe here.");
-      }
-    });
+    context.registerCallExpressionConsumer(FUNCTIONS_TO_CHECK, ctx -> ctx.addIssue(ctx.syntaxNode(), "Make sure that encrypting data is safe here."));
   }
 }
@@ -24,9 +24,6 @@ import java.util.HashSet;
 import java.util.Set;
 import org.sonar.check.Rule;
 import org.sonar.plugins.python.api.PythonSubscriptionCheck;
-import org.sonar.plugins.python.api.tree.CallExpression;
-import org.sonar.plugins.python.api.tree.Tree;
-import org.sonar.plugins.python.api.symbols.Symbol;
 
 @Rule(key = "S2245")
 public class PseudoRandomCheck extends PythonSubscriptionCheck {
@@ -41,13 +38,7 @@ public class PseudoRandomCheck extends PythonSubscriptionCheck {
 
   @Override
   public void initialize(Context context) {
-    context.registerSyntaxNodeConsumer(Tree.Kind.CALL_EXPR, ctx -> {
-      CallExpression callExpression = (CallExpression) ctx.syntaxNode();
-      Symbol symbol = callExpression.calleeSymbol();
-      if (symbol != null && FUNCTIONS_TO_CHECK.contains(symbol.fullyQualifiedName())) {
-        ctx.addIssue(callExpression, "Make sure that using this pseudorandom number generator is safe here.");
-      }
-    });
+    context.registerCallExpressionConsumer(FUNCTIONS_TO_CHECK, ctx -> ctx.addIssue(ctx.syntaxNode(), "Make sure that using this pseudorandom number generator is safe here."));
   }
 
 }
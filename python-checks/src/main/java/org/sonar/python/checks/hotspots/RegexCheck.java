@@ -37,7 +37,6 @@ import org.sonar.plugins.python.api.tree.StringLiteral;
 import org.sonar.plugins.python.api.tree.Tree;
 import org.sonar.plugins.python.api.IssueLocation;
 import org.sonar.python.checks.Expressions;
-import org.sonar.plugins.python.api.symbols.Symbol;
 
 @Rule(key = RegexCheck.CHECK_KEY)
 public class RegexCheck extends PythonSubscriptionCheck {
@@ -52,10 +51,9 @@ public class RegexCheck extends PythonSubscriptionCheck {
 
   @Override
   public void initialize(Context context) {
-    context.registerSyntaxNodeConsumer(Tree.Kind.CALL_EXPR, ctx -> {
+    context.registerCallExpressionConsumer(questionableFunctions, ctx -> {
       CallExpression call = (CallExpression) ctx.syntaxNode();
-      Symbol symbol = call.calleeSymbol();
-      if (symbol != null && questionableFunctions.contains(symbol.fullyQualifiedName()) && !call.arguments().isEmpty()) {
+      if (!call.arguments().isEmpty()) {
         checkRegexArgument(call.arguments().get(REGEX_ARGUMENT), ctx);
       }
     });
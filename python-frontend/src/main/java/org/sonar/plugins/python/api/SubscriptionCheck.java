@@ -19,7 +19,11 @@
  */
 package org.sonar.plugins.python.api;
 
+import com.google.common.annotations.Beta;
+import java.util.Set;
 import java.util.function.Consumer;
+import org.sonar.plugins.python.api.symbols.Symbol;
+import org.sonar.plugins.python.api.tree.CallExpression;
 import org.sonar.plugins.python.api.tree.Tree;
 
 public interface SubscriptionCheck {
@@ -29,5 +33,19 @@ public interface SubscriptionCheck {
 
     void registerSyntaxNodeConsumer(Tree.Kind elementType, Consumer<SubscriptionContext> consumer);
 
+    /**
+     * Registers a consumer of the call expressions whose callee symbol has one of the given fully qualified names.
+     * Call expressions are then dispatched by name, instead of being passed to every check registered on {@link Tree.Kind#CALL_EXPR}.
+     */
+    @Beta
+    default void registerCallExpressionConsumer(Set<String> calleeFullyQualifiedNames, Consumer<SubscriptionContext> consumer) {
+      registerSyntaxNodeConsumer(Tree.Kind.CALL_EXPR, ctx -> {
+        Symbol calleeSymbol = ((CallExpression) ctx.syntaxNode()).calleeSymbol();
+        if (calleeSymbol != null && calleeSymbol.fullyQualifiedName() != null && calleeFullyQualifiedNames.contains(calleeSymbol.fullyQualifiedName())) {
+          consumer.accept(ctx);
+        }
+      });
+    }
+
   }
 }
@@ -20,13 +20,12 @@
 package org.sonar.plugins.python.api.cfg;
 
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import javax.annotation.CheckForNull;
@@ -36,9 +35,10 @@ import org.sonar.api.utils.log.Loggers;
 import org.sonar.plugins.python.api.tree.FileInput;
 import org.sonar.plugins.python.api.tree.FunctionDef;
 import org.sonar.plugins.python.api.tree.StatementList;
-import org.sonar.plugins.python.api.tree.Tree;
 import org.sonar.plugins.python.api.PythonFile;
+import org.sonar.python.FileAnalysisBudget;
 import org.sonar.python.cfg.ControlFlowGraphBuilder;
+import org.sonar.python.tree.StatementListImpl;
 
 public class ControlFlowGraph {
 
@@ -48,8 +48,8 @@ public class ControlFlowGraph {
   private final CfgBlock start;
   private final CfgBlock end;
 
-  // we shouldn't prevent trees from being garbage collected
-  private static Set<Tree> treesWithCfgErrors = Collections.newSetFromMap(new WeakHashMap<>());
+  private static final AtomicLong builtGraphs = new AtomicLong();
+  private static final AtomicLong reusedGraphs = new AtomicLong();
 
   public ControlFlowGraph(Set<CfgBlock> blocks, CfgBlock start, CfgBlock end) {
     this.blocks = blocks;
@@ -57,17 +57,36 @@ public class ControlFlowGraph {
     this.end = end;
   }
 
+  /**
+   * The graph is stored on the statements: it is built once per file for the type inference and all the checks,
+   * and it is released together with the syntax tree. Failures are stored as well, so that they are logged only once.
+   * No graph is built once the {@link FileAnalysisBudget} of the file is exceeded.
+   */
   @CheckForNull
   private static ControlFlowGraph build(@Nullable StatementList statementList, PythonFile file) {
-    if (!treesWithCfgErrors.contains(statementList)) {
-      try {
-        return new ControlFlowGraphBuilder(statementList).getCfg();
-      } catch (Exception e) {
-        treesWithCfgErrors.add(statementList);
-        LOG.warn("Failed to build control flow graph in file [{}]: {}", file, e.getMessage());
-      }
+    if (statementList == null) {
+      return newControlFlowGraph(null, file);
+    }
+    StatementListImpl statements = (StatementListImpl) statementList;
+    if (statements.hasControlFlowGraph()) {
+      reusedGraphs.incrementAndGet();
+    } else if (FileAnalysisBudget.isExceeded()) {
+      return null;
+    } else {
+      statements.setControlFlowGraph(newControlFlowGraph(statements, file));
+    }
+    return statements.controlFlowGraph();
+  }
+
+  @CheckForNull
+  private static ControlFlowGraph newControlFlowGraph(@Nullable StatementList statementList, PythonFile file) {
+    builtGraphs.incrementAndGet();
+    try {
+      return new ControlFlowGraphBuilder(statementList).getCfg();
+    } catch (Exception e) {
+      LOG.warn("Failed to build control flow graph in file [{}]: {}", file, e.getMessage());
+      return null;
     }
-    return null;
   }
 
   @CheckForNull
@@ -80,6 +99,20 @@ public class ControlFlowGraph {
     return build(fileInput.statements(), file);
   }
 
+  /**
+   * Number of graphs built since the analyzer was loaded.
+   */
+  public static long builtGraphs() {
+    return builtGraphs.get();
+  }
+
+  /**
+   * Number of times an already built graph was returned instead of building it again, since the analyzer was loaded.
+   */
+  public static long reusedGraphs() {
+    return reusedGraphs.get();
+  }
+
   public CfgBlock start() {
     return start;
   }
@@ -0,0 +1,76 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python;
+
+/**
+ * Time budget of the analysis of the current file by the current thread. Once it is exceeded, the expensive analyses
+ * (flow-sensitive type inference, control flow graphs and the data flow analyses and checks based on them) are skipped
+ * for the rest of the file, while the other checks and the measures are still computed.
+ * Without budget, which is the default, nothing is ever skipped.
+ */
+public final class FileAnalysisBudget {
+
+  private static final ThreadLocal<FileAnalysisBudget> CURRENT = new ThreadLocal<>();
+
+  private final long deadline;
+  private boolean exceeded;
+
+  private FileAnalysisBudget(long deadline, boolean exceeded) {
+    this.deadline = deadline;
+    this.exceeded = exceeded;
+  }
+
+  /**
+   * Starts the budget of the file about to be analyzed by the current thread, which must call {@link #stop()} once done.
+   */
+  public static void start(long budgetMillis) {
+    CURRENT.set(new FileAnalysisBudget(System.nanoTime() + budgetMillis * 1_000_000L, false));
+  }
+
+  /**
+   * Analyzes the current file in degraded mode from the start, e.g. because it exceeded its budget in a previous analysis.
+   */
+  public static void startExceeded() {
+    CURRENT.set(new FileAnalysisBudget(0, true));
+  }
+
+  /**
+   * Returns whether the budget of the current file was exceeded.
+   */
+  public static boolean stop() {
+    FileAnalysisBudget budget = CURRENT.get();
+    CURRENT.remove();
+    return budget != null && budget.exceeded;
+  }
+
+  /**
+   * Returns true when expensive analyses should be skipped for the current file.
+   */
+  public static boolean isExceeded() {
+    FileAnalysisBudget budget = CURRENT.get();
+    if (budget == null) {
+      return false;
+    }
+    if (!budget.exceeded && System.nanoTime() - budget.deadline > 0) {
+      budget.exceeded = true;
+    }
+    return budget.exceeded;
+  }
+}
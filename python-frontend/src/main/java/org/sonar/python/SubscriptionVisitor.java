@@ -26,7 +26,11 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Deque;
 import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.function.Consumer;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
@@ -36,22 +40,40 @@ import org.sonar.plugins.python.api.PythonCheck;
 import org.sonar.plugins.python.api.PythonFile;
 import org.sonar.plugins.python.api.PythonSubscriptionCheck;
 import org.sonar.plugins.python.api.PythonVisitorContext;
+import org.sonar.plugins.python.api.SubscriptionCheck;
 import org.sonar.plugins.python.api.SubscriptionContext;
 import org.sonar.plugins.python.api.symbols.Symbol;
+import org.sonar.plugins.python.api.tree.CallExpression;
 import org.sonar.plugins.python.api.tree.FileInput;
 import org.sonar.plugins.python.api.tree.Token;
 import org.sonar.plugins.python.api.tree.Tree;
 import org.sonar.plugins.python.api.tree.Tree.Kind;
+import org.sonar.python.cfg.fixpoint.DataflowAnalyses;
+import org.sonar.python.tree.PyTree;
 import org.sonar.python.types.TypeShed;
 
 public class SubscriptionVisitor {
 
-  private final EnumMap<Kind, List<SubscriptionContextImpl>> consumers = new EnumMap<>(Kind.class);
+  private static final SubscriptionContextImpl[] NO_CONSUMERS = new SubscriptionContextImpl[0];
+
+  /**
+   * Consumers indexed by the ordinal of the kind they subscribed to.
+   */
+  private final SubscriptionContextImpl[][] consumersByKind = new SubscriptionContextImpl[Kind.values().length][];
+  private final Map<String, SubscriptionContextImpl[]> callExpressionConsumersByCalleeFqn = new HashMap<>();
   private final PythonVisitorContext pythonVisitorContext;
+  @Nullable
+  private final CheckExecutionListener listener;
+  private final long[] subscribedKinds;
   private Tree currentElement;
+  private DataflowAnalyses dataflowAnalyses = null;
 
   public static void analyze(Collection<PythonSubscriptionCheck> checks, PythonVisitorContext pythonVisitorContext) {
-    SubscriptionVisitor subscriptionVisitor = new SubscriptionVisitor(checks, pythonVisitorContext);
+    analyze(checks, pythonVisitorContext, null);
+  }
+
+  public static void analyze(Collection<PythonSubscriptionCheck> checks, PythonVisitorContext pythonVisitorContext, @Nullable CheckExecutionListener listener) {
+    SubscriptionVisitor subscriptionVisitor = new SubscriptionVisitor(checks, pythonVisitorContext, listener);
     FileInput rootTree = pythonVisitorContext.rootTree();
     if (rootTree != null) {
       subscriptionVisitor.scan(rootTree);
@@ -59,14 +81,48 @@ public class SubscriptionVisitor {
     }
   }
 
-  private SubscriptionVisitor(Collection<PythonSubscriptionCheck> checks, PythonVisitorContext pythonVisitorContext) {
+  /**
+   * Data flow analyses of the analyzed file, computed once and shared by all the checks. When the context does not
+   * come from this visitor (e.g. in tests of custom rules), new analyses are returned, which are not shared.
+   */
+  public static DataflowAnalyses dataflowAnalyses(SubscriptionContext context) {
+    if (context instanceof SubscriptionContextImpl) {
+      return ((SubscriptionContextImpl) context).dataflowAnalyses();
+    }
+    return new DataflowAnalyses(context.pythonFile());
+  }
+
+  private SubscriptionVisitor(Collection<PythonSubscriptionCheck> checks, PythonVisitorContext pythonVisitorContext, @Nullable CheckExecutionListener listener) {
     this.pythonVisitorContext = pythonVisitorContext;
+    this.listener = listener;
+    EnumMap<Kind, List<SubscriptionContextImpl>> consumers = new EnumMap<>(Kind.class);
+    Map<String, List<SubscriptionContextImpl>> callExpressionConsumers = new HashMap<>();
     for (PythonSubscriptionCheck check : checks) {
-      check.initialize((elementType, consumer) -> {
-        List<SubscriptionContextImpl> elementConsumers = consumers.computeIfAbsent(elementType, c -> new ArrayList<>());
-        elementConsumers.add(new SubscriptionContextImpl(check, consumer));
+      check.initialize(new SubscriptionCheck.Context() {
+        @Override
+        public void registerSyntaxNodeConsumer(Kind elementType, Consumer<SubscriptionContext> consumer) {
+          List<SubscriptionContextImpl> elementConsumers = consumers.computeIfAbsent(elementType, c -> new ArrayList<>());
+          elementConsumers.add(new SubscriptionContextImpl(check, consumer));
+        }
+
+        @Override
+        public void registerCallExpressionConsumer(Set<String> calleeFullyQualifiedNames, Consumer<SubscriptionContext> consumer) {
+          SubscriptionContextImpl subscriptionContext = new SubscriptionContextImpl(check, consumer);
+          for (String calleeFullyQualifiedName : calleeFullyQualifiedNames) {
+            callExpressionConsumers.computeIfAbsent(calleeFullyQualifiedName, c -> new ArrayList<>()).add(subscriptionContext);
+          }
+        }
       });
     }
+    for (Kind kind : Kind.values()) {
+      consumersByKind[kind.ordinal()] = consumers.getOrDefault(kind, Collections.emptyList()).toArray(NO_CONSUMERS);
+    }
+    callExpressionConsumers.forEach((fqn, fqnConsumers) -> callExpressionConsumersByCalleeFqn.put(fqn, fqnConsumers.toArray(NO_CONSUMERS)));
+    EnumSet<Kind> kinds = consumers.isEmpty() ? EnumSet.noneOf(Kind.class) : EnumSet.copyOf(consumers.keySet());
+    if (!callExpressionConsumersByCalleeFqn.isEmpty()) {
+      kinds.add(Kind.CALL_EXPR);
+    }
+    subscribedKinds = PyTree.kindsMask(kinds);
   }
 
   private void scan(Tree element) {
@@ -74,15 +130,45 @@ public class SubscriptionVisitor {
     stack.push(element);
     while (!stack.isEmpty()) {
       currentElement = stack.pop();
-      consumers.getOrDefault(currentElement.getKind(), Collections.emptyList()).forEach(SubscriptionContextImpl::execute);
-      for (int i = currentElement.children().size() - 1; i >= 0; i--) {
-        if (currentElement.children().get(i) != null) {
-          stack.push(currentElement.children().get(i));
+      Kind kind = currentElement.getKind();
+      execute(consumersByKind[kind.ordinal()]);
+      if (kind == Kind.CALL_EXPR && !callExpressionConsumersByCalleeFqn.isEmpty()) {
+        visitCallExpression((CallExpression) currentElement);
+      }
+      List<Tree> children = currentElement.children();
+      for (int i = children.size() - 1; i >= 0; i--) {
+        Tree child = children.get(i);
+        if (child != null && isSubscribedSubtree(child)) {
+          stack.push(child);
         }
       }
     }
   }
 
+  /**
+   * Subtrees which contain no kind any check subscribed to, e.g. the tokens when no check subscribed to them, are not visited.
+   */
+  private boolean isSubscribedSubtree(Tree tree) {
+    return !(tree instanceof PyTree) || ((PyTree) tree).subtreeContainsAnyKind(subscribedKinds);
+  }
+
+  /**
+   * The callee symbol is resolved once, and only the consumers registered on its fully qualified name are executed.
+   */
+  private void visitCallExpression(CallExpression callExpression) {
+    Symbol calleeSymbol = callExpression.calleeSymbol();
+    String calleeFullyQualifiedName = calleeSymbol != null ? calleeSymbol.fullyQualifiedName() : null;
+    if (calleeFullyQualifiedName != null) {
+      execute(callExpressionConsumersByCalleeFqn.getOrDefault(calleeFullyQualifiedName, NO_CONSUMERS));
+    }
+  }
+
+  private static void execute(SubscriptionContextImpl[] subscriptionContexts) {
+    for (SubscriptionContextImpl subscriptionContext : subscriptionContexts) {
+      subscriptionContext.execute();
+    }
+  }
+
   private class SubscriptionContextImpl implements SubscriptionContext {
     private final PythonCheck check;
     private final Consumer<SubscriptionContext> consumer;
@@ -93,7 +179,16 @@ public class SubscriptionVisitor {
     }
 
     public void execute() {
-      consumer.accept(this);
+      if (listener == null) {
+        consumer.accept(this);
+      } else {
+        listener.beforeExecution(check);
+        try {
+          consumer.accept(this);
+        } finally {
+          listener.afterExecution(check);
+        }
+      }
     }
 
     @Override
@@ -152,5 +247,12 @@ public class SubscriptionVisitor {
     public File workingDirectory() {
       return pythonVisitorContext.workingDirectory();
     }
+
+    private DataflowAnalyses dataflowAnalyses() {
+      if (dataflowAnalyses == null) {
+        dataflowAnalyses = new DataflowAnalyses(pythonVisitorContext.pythonFile());
+      }
+      return dataflowAnalyses;
+    }
   }
 }
@@ -62,7 +62,7 @@ public class TestPythonVisitorRunner {
     PythonParser parser = PythonParser.create();
     TestPythonFile pythonFile = new TestPythonFile(file);
     AstNode astNode = parser.parse(pythonFile.content());
-    FileInput rootTree = new PythonTreeMaker().fileInput(astNode);
+    FileInput rootTree = new PythonTreeMaker().consumeFileInput(astNode);
     return new PythonVisitorContext(rootTree, pythonFile, workingDirectory, packageName, projectLevelSymbolTable);
   }
 
@@ -71,7 +71,7 @@ public class TestPythonVisitorRunner {
     for (File file : files) {
       TestPythonFile pythonFile = new TestPythonFile(file);
       AstNode astNode = PythonParser.create().parse(pythonFile.content());
-      FileInput astRoot = new PythonTreeMaker().fileInput(astNode);
+      FileInput astRoot = new PythonTreeMaker().consumeFileInput(astNode);
       String packageName = pythonPackageName(file, baseDir);
       projectLevelSymbolTable.addModule(astRoot, packageName, pythonFile);
     }
@@ -0,0 +1,99 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python.cfg.fixpoint;
+
+import org.sonar.plugins.python.api.cfg.CfgBlock;
+import org.sonar.plugins.python.api.cfg.ControlFlowGraph;
+import org.sonar.python.cfg.fixpoint.WorkListSolver.Direction;
+
+/**
+ * Gen/kill data flow problem over the blocks of a control flow graph, whose states are bit sets of a fixed size (see {@link BitSets}).
+ * The input of a block is the union of the initial state and of the outputs of its flow predecessors, i.e. of its predecessors
+ * for a forward analysis and of its successors for a backward one. The output of a block is gen | (input & ~kill).
+ * Each block owns its input and output, which are updated in place: solving the problem does not allocate.
+ */
+final class BitSetDataflow {
+
+  private final WorkListSolver solver;
+  private final long[] initial;
+  private final long[][] gen;
+  private final long[][] kill;
+  private final long[][] input;
+  private final long[][] output;
+
+  BitSetDataflow(ControlFlowGraph cfg, Direction direction, int size) {
+    solver = new WorkListSolver(cfg, direction);
+    int blockCount = solver.blockCount();
+    gen = new long[blockCount][];
+    kill = new long[blockCount][];
+    input = new long[blockCount][];
+    output = new long[blockCount][];
+    for (int id = 0; id < blockCount; id++) {
+      gen[id] = BitSets.create(size);
+      kill[id] = BitSets.create(size);
+      input[id] = BitSets.create(size);
+      output[id] = BitSets.create(size);
+    }
+    initial = BitSets.create(size);
+  }
+
+  /**
+   * Part of the input of every block, to be filled before solving.
+   */
+  long[] initial() {
+    return initial;
+  }
+
+  /**
+   * To be filled before solving.
+   */
+  long[] gen(CfgBlock block) {
+    return gen[solver.id(block)];
+  }
+
+  /**
+   * To be filled before solving.
+   */
+  long[] kill(CfgBlock block) {
+    return kill[solver.id(block)];
+  }
+
+  long[] input(CfgBlock block) {
+    return input[solver.id(block)];
+  }
+
+  long[] output(CfgBlock block) {
+    return output[solver.id(block)];
+  }
+
+  /**
+   * Computes the least fixpoint, see {@link WorkListSolver#solve}.
+   */
+  void solve() {
+    solver.solve(id -> {
+      long[] blockInput = input[id];
+      BitSets.copy(initial, blockInput);
+      for (int predecessor : solver.flowPredecessors(id)) {
+        BitSets.or(blockInput, output[predecessor]);
+      }
+      return BitSets.transfer(output[id], gen[id], blockInput, kill[id]);
+    });
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python.cfg.fixpoint;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Operations on bit sets stored in long arrays, used as data flow states: the bit of index i is bit (i % 64) of word (i / 64).
+ * All the operations are done word by word, in place, without allocating.
+ */
+final class BitSets {
+
+  private static final int ADDRESS_BITS_PER_WORD = 6;
+
+  private BitSets() {
+  }
+
+  static long[] create(int size) {
+    return new long[(size + 63) >>> ADDRESS_BITS_PER_WORD];
+  }
+
+  static void set(long[] bits, int index) {
+    bits[index >>> ADDRESS_BITS_PER_WORD] |= 1L << index;
+  }
+
+  static boolean get(long[] bits, int index) {
+    return (bits[index >>> ADDRESS_BITS_PER_WORD] & (1L << index)) != 0;
+  }
+
+  static void clear(long[] bits) {
+    for (int i = 0; i < bits.length; i++) {
+      bits[i] = 0L;
+    }
+  }
+
+  static void copy(long[] source, long[] target) {
+    System.arraycopy(source, 0, target, 0, source.length);
+  }
+
+  static void or(long[] target, long[] bits) {
+    for (int i = 0; i < target.length; i++) {
+      target[i] |= bits[i];
+    }
+  }
+
+  static void andNot(long[] target, long[] bits) {
+    for (int i = 0; i < target.length; i++) {
+      target[i] &= ~bits[i];
+    }
+  }
+
+  static boolean intersects(long[] bits1, long[] bits2) {
+    for (int i = 0; i < bits1.length; i++) {
+      if ((bits1[i] & bits2[i]) != 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Sets target to gen | (input & ~kill) and returns whether it changed.
+   */
+  static boolean transfer(long[] target, long[] gen, long[] input, long[] kill) {
+    boolean changed = false;
+    for (int i = 0; i < target.length; i++) {
+      long word = gen[i] | (input[i] & ~kill[i]);
+      if (word != target[i]) {
+        target[i] = word;
+        changed = true;
+      }
+    }
+    return changed;
+  }
+
+  static void forEach(long[] bits, IntConsumer consumer) {
+    for (int i = 0; i < bits.length; i++) {
+      long word = bits[i];
+      while (word != 0) {
+        consumer.accept((i << ADDRESS_BITS_PER_WORD) + Long.numberOfTrailingZeros(word));
+        word &= word - 1;
+      }
+    }
+  }
+}
@@ -0,0 +1,63 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python.cfg.fixpoint;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+import javax.annotation.CheckForNull;
+import org.sonar.plugins.python.api.PythonFile;
+import org.sonar.plugins.python.api.cfg.ControlFlowGraph;
+import org.sonar.plugins.python.api.tree.FunctionDef;
+
+/**
+ * Data flow analyses of the functions of one file, computed on demand and at most once, so that all the checks share them.
+ * Analyses return null when the control flow graph of the function cannot be built. Subscription checks get the
+ * analyses of the file they visit from {@link org.sonar.python.SubscriptionVisitor#dataflowAnalyses}.
+ */
+public class DataflowAnalyses {
+
+  private final PythonFile pythonFile;
+  private final Map<FunctionDef, LiveVariablesAnalysis> liveVariablesByFunction = new HashMap<>();
+  private final Map<FunctionDef, DefinedVariablesAnalysis> definedVariablesByFunction = new HashMap<>();
+
+  public DataflowAnalyses(PythonFile pythonFile) {
+    this.pythonFile = pythonFile;
+  }
+
+  @CheckForNull
+  public LiveVariablesAnalysis liveVariables(FunctionDef functionDef) {
+    return analysis(liveVariablesByFunction, functionDef, LiveVariablesAnalysis::analyze);
+  }
+
+  @CheckForNull
+  public DefinedVariablesAnalysis definedVariables(FunctionDef functionDef) {
+    return analysis(definedVariablesByFunction, functionDef, cfg -> DefinedVariablesAnalysis.analyze(cfg, functionDef.localVariables()));
+  }
+
+  @CheckForNull
+  private <T> T analysis(Map<FunctionDef, T> analysesByFunction, FunctionDef functionDef, Function<ControlFlowGraph, T> analyze) {
+    if (!analysesByFunction.containsKey(functionDef)) {
+      ControlFlowGraph cfg = ControlFlowGraph.build(functionDef, pythonFile);
+      analysesByFunction.put(functionDef, cfg == null ? null : analyze.apply(cfg));
+    }
+    return analysesByFunction.get(functionDef);
+  }
+}
@@ -19,14 +19,13 @@
  */
 package org.sonar.python.cfg.fixpoint;
 
-import java.util.ArrayDeque;
-import java.util.Deque;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import javax.annotation.Nullable;
 import org.sonar.plugins.python.api.cfg.CfgBlock;
 import org.sonar.plugins.python.api.cfg.ControlFlowGraph;
+import org.sonar.python.cfg.fixpoint.WorkListSolver.Direction;
 import org.sonar.plugins.python.api.symbols.Symbol;
 import org.sonar.plugins.python.api.symbols.Usage;
 
@@ -40,23 +39,31 @@ public class DefinedVariablesAnalysis {
     return instance;
   }
 
+  /**
+   * The state is the set of defined symbols: local variables are initially undefined, except parameters, and other symbols
+   * are only part of the state once they are written, i.e. defined.
+   */
   private void compute(ControlFlowGraph cfg, Set<Symbol> localVariables) {
-    Map<Symbol, VariableDefinition> initialState = new HashMap<>();
+    DenseIndex<Symbol> symbols = new DenseIndex<>();
+    localVariables.forEach(symbols::add);
+    for (CfgBlock block : cfg.blocks()) {
+      DefinedVariables definedVariables = DefinedVariables.build(block);
+      definedVariablesPerBlock.put(block, definedVariables);
+      definedVariables.kill.forEach(symbols::add);
+    }
+    BitSetDataflow dataflow = new BitSetDataflow(cfg, Direction.FORWARD, symbols.size());
     for (Symbol variable : localVariables) {
       boolean isParameter = variable.usages().stream().anyMatch(u -> u.kind() == Usage.Kind.PARAMETER);
-      initialState.put(variable, isParameter ? VariableDefinition.DEFINED : VariableDefinition.UNDEFINED);
-    }
-    Set<CfgBlock> blocks = cfg.blocks();
-    blocks.forEach(block -> definedVariablesPerBlock.put(block, DefinedVariables.build(block, initialState)));
-    Deque<CfgBlock> workList = new ArrayDeque<>(blocks);
-    while (!workList.isEmpty()) {
-      CfgBlock currentBlock = workList.pop();
-      DefinedVariables definedVariables = this.definedVariablesPerBlock.get(currentBlock);
-      boolean outHasChanged = definedVariables.propagate(this.definedVariablesPerBlock);
-      if (outHasChanged) {
-        currentBlock.successors().forEach(workList::push);
+      if (isParameter) {
+        BitSets.set(dataflow.initial(), symbols.indexOf(variable));
       }
     }
+    definedVariablesPerBlock.forEach((block, definedVariables) ->
+      definedVariables.kill.forEach(symbol -> BitSets.set(dataflow.gen(block), symbols.indexOf(symbol))));
+    dataflow.solve();
+    int localVariablesCount = localVariables.size();
+    definedVariablesPerBlock.forEach((block, definedVariables) ->
+      definedVariables.setResult(symbols, localVariablesCount, dataflow.input(block), dataflow.output(block)));
   }
 
   public DefinedVariables getDefinedVariables(CfgBlock block) {
@@ -65,21 +72,17 @@ public class DefinedVariablesAnalysis {
 
   public enum VariableDefinition {
     UNDEFINED,
-    DEFINED;
-
-    static VariableDefinition join(VariableDefinition v1, VariableDefinition v2) {
-      if (v1 == UNDEFINED && v2 == UNDEFINED) {
-        return UNDEFINED;
-      }
-      return DEFINED;
-    }
+    DEFINED
   }
 
   public static class DefinedVariables extends CfgBlockState {
 
-    private Map<Symbol, VariableDefinition> in = new HashMap<>();
-
-    private Map<Symbol, VariableDefinition> out = new HashMap<>();
+    private DenseIndex<Symbol> symbols = null;
+    private int localVariablesCount = 0;
+    private long[] inBits = null;
+    private long[] outBits = null;
+    private Map<Symbol, VariableDefinition> in = null;
+    private Map<Symbol, VariableDefinition> out = null;
 
     private DefinedVariables(CfgBlock block) {
       super(block);
@@ -88,46 +91,47 @@ public class DefinedVariablesAnalysis {
     /**
      * Builds a new DefinedVariables instance for the given block and initializes the 'kill' symbol sets.
      */
-    public static DefinedVariables build(CfgBlock block, Map<Symbol, VariableDefinition> initialState) {
+    public static DefinedVariables build(CfgBlock block) {
       DefinedVariables instance = new DefinedVariables(block);
-      instance.in = initialState;
       instance.init(block);
       return instance;
     }
 
-    /**
-     * Propagates forward: first computes the in set from all predecessors, then the out set.
-     */
-    private boolean propagate(Map<CfgBlock, DefinedVariables> definedVariablesPerBlock) {
-      block.predecessors().stream()
-        .map(definedVariablesPerBlock::get)
-        .map(DefinedVariables::getOut)
-        .forEach(predecessorOuts -> in = join(in, predecessorOuts));
-      Map<Symbol, VariableDefinition> newOut = new HashMap<>(in);
-      kill.forEach(symbol -> newOut.put(symbol, VariableDefinition.DEFINED));
-      boolean outHasChanged = !newOut.equals(out);
-      out = newOut;
-      return outHasChanged;
-    }
-
-    private static Map<Symbol, VariableDefinition> join(Map<Symbol, VariableDefinition> programState1, Map<Symbol, VariableDefinition> programState2) {
-      Map<Symbol, VariableDefinition> result = new HashMap<>();
-      Set<Symbol> allKeys = new HashSet<>(programState1.keySet());
-      allKeys.addAll(programState2.keySet());
-      for (Symbol key : allKeys) {
-        VariableDefinition varDef1 = programState1.getOrDefault(key, VariableDefinition.UNDEFINED);
-        VariableDefinition varDef2 = programState2.getOrDefault(key, VariableDefinition.UNDEFINED);
-        result.put(key, VariableDefinition.join(varDef1, varDef2));
-      }
-      return result;
+    private void setResult(DenseIndex<Symbol> symbols, int localVariablesCount, long[] inBits, long[] outBits) {
+      this.symbols = symbols;
+      this.localVariablesCount = localVariablesCount;
+      this.inBits = inBits;
+      this.outBits = outBits;
     }
 
     public Map<Symbol, VariableDefinition> getIn() {
+      if (in == null) {
+        in = toMap(inBits);
+      }
       return in;
     }
 
     public Map<Symbol, VariableDefinition> getOut() {
+      if (out == null) {
+        out = toMap(outBits);
+      }
       return out;
     }
+
+    /**
+     * Local variables are always part of the map, other symbols only when they are defined.
+     */
+    private Map<Symbol, VariableDefinition> toMap(@Nullable long[] bits) {
+      Map<Symbol, VariableDefinition> result = new HashMap<>();
+      if (bits != null) {
+        for (int i = 0; i < symbols.size(); i++) {
+          boolean isDefined = BitSets.get(bits, i);
+          if (isDefined || i < localVariablesCount) {
+            result.put(symbols.get(i), isDefined ? VariableDefinition.DEFINED : VariableDefinition.UNDEFINED);
+          }
+        }
+      }
+      return result;
+    }
   }
 }
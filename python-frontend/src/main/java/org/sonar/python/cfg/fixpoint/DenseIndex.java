@@ -0,0 +1,74 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python.cfg.fixpoint;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Assigns consecutive indices, starting from 0, to the elements (e.g. symbols or definitions) of a data flow problem,
+ * so that its states can be represented as bit sets (see {@link BitSets}).
+ */
+final class DenseIndex<T> {
+
+  private final Map<T, Integer> indexByElement = new HashMap<>();
+  private final List<T> elements = new ArrayList<>();
+
+  /**
+   * Returns the index of the element, assigning the next one when the element is not indexed yet.
+   */
+  int add(T element) {
+    Integer index = indexByElement.get(element);
+    if (index == null) {
+      index = elements.size();
+      indexByElement.put(element, index);
+      elements.add(element);
+    }
+    return index;
+  }
+
+  /**
+   * Returns -1 when the element is not indexed.
+   */
+  int indexOf(Object element) {
+    return indexByElement.getOrDefault(element, -1);
+  }
+
+  T get(int index) {
+    return elements.get(index);
+  }
+
+  int size() {
+    return elements.size();
+  }
+
+  /**
+   * Elements whose index is in the given bit set.
+   */
+  Set<T> elements(long[] bits) {
+    Set<T> result = new HashSet<>();
+    BitSets.forEach(bits, index -> result.add(elements.get(index)));
+    return result;
+  }
+}
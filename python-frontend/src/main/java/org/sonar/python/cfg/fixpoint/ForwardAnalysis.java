@@ -19,18 +19,16 @@
  */
 package org.sonar.python.cfg.fixpoint;
 
-import java.util.ArrayDeque;
-import java.util.Deque;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Set;
 import org.sonar.plugins.python.api.cfg.CfgBlock;
 import org.sonar.plugins.python.api.cfg.ControlFlowGraph;
 import org.sonar.plugins.python.api.tree.Tree;
+import org.sonar.python.cfg.fixpoint.WorkListSolver.Direction;
 
 /**
  * Data flow analysis operating on the CFG.
- * The analysis starts at the entry node and moves forwards in the CFG.
+ * The analysis starts at the entry node and moves forwards in the CFG, visiting the blocks in reverse postorder (see {@link WorkListSolver}).
  *
  * See https://en.wikipedia.org/wiki/Data-flow_analysis#Forward_analysis
  * See https://lara.epfl.ch/w/_media/sav08:schwartzbach.pdf (chapter "Forwards, Backwards, May, and Must")
@@ -41,17 +39,14 @@ public abstract class ForwardAnalysis {
 
   public void compute(ControlFlowGraph cfg) {
     ProgramState initialState = initialState();
-    Set<CfgBlock> blocks = cfg.blocks();
-    blocks.forEach(block -> programStateByBlock.put(block, new ProgramStateAtBlock(block, initialState)));
-    Deque<CfgBlock> workList = new ArrayDeque<>(blocks);
-    while (!workList.isEmpty()) {
-      CfgBlock currentBlock = workList.pop();
-      ProgramStateAtBlock programStateAtBlock = programStateByBlock.get(currentBlock);
-      boolean outHasChanged = programStateAtBlock.propagate();
-      if (outHasChanged) {
-        currentBlock.successors().forEach(workList::push);
-      }
+    WorkListSolver solver = new WorkListSolver(cfg, Direction.FORWARD);
+    ProgramStateAtBlock[] programStates = new ProgramStateAtBlock[solver.blockCount()];
+    for (int id = 0; id < programStates.length; id++) {
+      CfgBlock block = solver.block(id);
+      programStates[id] = new ProgramStateAtBlock(block, initialState);
+      programStateByBlock.put(block, programStates[id]);
     }
+    solver.solve(id -> programStates[id].propagate());
   }
 
   public abstract ProgramState initialState();
@@ -19,8 +19,6 @@
  */
 package org.sonar.python.cfg.fixpoint;
 
-import java.util.ArrayDeque;
-import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -28,6 +26,7 @@ import java.util.Set;
 import org.sonar.plugins.python.api.cfg.CfgBlock;
 import org.sonar.plugins.python.api.cfg.ControlFlowGraph;
 import org.sonar.python.cfg.fixpoint.ReadWriteVisitor.SymbolReadWrite;
+import org.sonar.python.cfg.fixpoint.WorkListSolver.Direction;
 import org.sonar.plugins.python.api.symbols.Symbol;
 
 public class LiveVariablesAnalysis {
@@ -45,16 +44,20 @@ public class LiveVariablesAnalysis {
    * An alternative terminology for "kill/gen" is "def/use"
    */
   private void compute(ControlFlowGraph cfg) {
-    cfg.blocks().forEach(block -> liveVariablesPerBlock.put(block, LiveVariables.build(block)));
-    Deque<CfgBlock> workList = new ArrayDeque<>(cfg.blocks());
-    while (!workList.isEmpty()) {
-      CfgBlock currentBlock = workList.pop();
-      LiveVariables liveVariables = liveVariablesPerBlock.get(currentBlock);
-      boolean liveInHasChanged = liveVariables.propagate(liveVariablesPerBlock);
-      if (liveInHasChanged) {
-        currentBlock.predecessors().forEach(workList::push);
-      }
+    DenseIndex<Symbol> symbols = new DenseIndex<>();
+    for (CfgBlock block : cfg.blocks()) {
+      LiveVariables liveVariables = LiveVariables.build(block);
+      liveVariablesPerBlock.put(block, liveVariables);
+      liveVariables.gen.forEach(symbols::add);
+      liveVariables.kill.forEach(symbols::add);
     }
+    BitSetDataflow dataflow = new BitSetDataflow(cfg, Direction.BACKWARD, symbols.size());
+    liveVariablesPerBlock.forEach((block, liveVariables) -> {
+      liveVariables.gen.forEach(symbol -> BitSets.set(dataflow.gen(block), symbols.indexOf(symbol)));
+      liveVariables.kill.forEach(symbol -> BitSets.set(dataflow.kill(block), symbols.indexOf(symbol)));
+    });
+    dataflow.solve();
+    liveVariablesPerBlock.forEach((block, liveVariables) -> liveVariables.setResult(symbols, dataflow.output(block), dataflow.input(block)));
   }
 
   public LiveVariables getLiveVariables(CfgBlock block) {
@@ -76,18 +79,23 @@ public class LiveVariablesAnalysis {
   }
 
   public static class LiveVariables extends CfgBlockState {
+
+    private DenseIndex<Symbol> symbols = null;
+    private long[] inBits = null;
+    private long[] outBits = null;
+
     /**
      * The Live-In variables are variables which has values that:
      * - are needed by this block
      * OR
      * - are needed by a successor block and are not killed in this block.
      */
-    private Set<Symbol> in = new HashSet<>();
+    private Set<Symbol> in = null;
 
     /**
      * The Live-Out variables are variables which are needed by successors.
      */
-    private Set<Symbol> out = new HashSet<>();
+    private Set<Symbol> out = null;
 
     private LiveVariables(CfgBlock block) {
       super(block);
@@ -103,34 +111,25 @@ public class LiveVariablesAnalysis {
     }
 
     /**
-     * Propagates backwards: first computes the 'out' set, then the 'in' set.
+     * The analysis is solved backwards: the 'in' set is the output of the block and the 'out' set is its input.
      */
-    private boolean propagate(Map<CfgBlock, LiveVariables> liveVariablesPerBlock) {
-      out.clear();
-      block.successors().stream()
-        .map(liveVariablesPerBlock::get)
-        .map(LiveVariables::getIn)
-        .forEach(out::addAll);
-      // in = gen + (out - kill)
-      Set<Symbol> newIn = new HashSet<>(gen);
-      newIn.addAll(difference(out, kill));
-      boolean inHasChanged = !newIn.equals(in);
-      in = newIn;
-      return inHasChanged;
-    }
-
-    private static Set<Symbol> difference(Set<Symbol> out, Set<Symbol> kill) {
-      Set<Symbol> result = new HashSet<>(out);
-      result.removeIf(kill::contains);
-      return result;
+    private void setResult(DenseIndex<Symbol> symbols, long[] inBits, long[] outBits) {
+      this.symbols = symbols;
+      this.inBits = inBits;
+      this.outBits = outBits;
     }
 
-
     public Set<Symbol> getIn() {
+      if (in == null) {
+        in = inBits == null ? new HashSet<>() : symbols.elements(inBits);
+      }
       return in;
     }
 
     public Set<Symbol> getOut() {
+      if (out == null) {
+        out = outBits == null ? new HashSet<>() : symbols.elements(outBits);
+      }
       return out;
     }
   }
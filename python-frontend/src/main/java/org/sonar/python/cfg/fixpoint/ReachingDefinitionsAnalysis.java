@@ -19,16 +19,15 @@
  */
 package org.sonar.python.cfg.fixpoint;
 
-import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
+import javax.annotation.CheckForNull;
 import org.sonar.plugins.python.api.PythonFile;
 import org.sonar.plugins.python.api.cfg.CfgBlock;
 import org.sonar.plugins.python.api.cfg.ControlFlowGraph;
@@ -40,6 +39,7 @@ import org.sonar.plugins.python.api.tree.Expression;
 import org.sonar.plugins.python.api.tree.FunctionDef;
 import org.sonar.plugins.python.api.tree.Name;
 import org.sonar.plugins.python.api.tree.Tree;
+import org.sonar.python.cfg.fixpoint.WorkListSolver.Direction;
 import org.sonar.python.tree.TreeUtils;
 
 import static org.sonar.plugins.python.api.tree.Tree.Kind.ASSIGNMENT_STMT;
@@ -49,15 +49,13 @@ import static org.sonar.plugins.python.api.tree.Tree.Kind.TRY_STMT;
 /**
  * https://en.wikipedia.org/wiki/Reaching_definition
  * Data flow analysis to determinate what definitions may reach a given point in the code.
- * Program state is represented by a map where:
- *  - key is symbol
- *  - value is set of possible expressions that symbol may have been assigned to
+ * Program state is represented by the bit set of the definitions, i.e. of the assignments, which may reach the point.
  */
 public class ReachingDefinitionsAnalysis {
-  private final Map<CfgBlock, ProgramStateAtBlock> programStateByBlock = new HashMap<>();
   private final Map<Name, Set<Expression>> assignedExpressionByName = new HashMap<>();
   private final PythonFile pythonFile;
   private final Map<Symbol, Set<Name>> assignedNamesBySymbol = new HashMap<>();
+  private final Set<FunctionDef> analyzedFunctions = new HashSet<>();
 
   public ReachingDefinitionsAnalysis(PythonFile pythonFile) {
     this.pythonFile = pythonFile;
@@ -74,56 +72,68 @@ public class ReachingDefinitionsAnalysis {
       return assignedExpressions;
     }
     FunctionDef enclosingFunction = (FunctionDef) TreeUtils.firstAncestorOfKind(variable, FUNCDEF);
-    if (enclosingFunction == null || TreeUtils.hasDescendant(enclosingFunction, t -> t.is(TRY_STMT))) {
+    if (enclosingFunction == null || !analyzedFunctions.add(enclosingFunction)) {
+      // names which are not part of the control flow graph of an analyzed function have no value
+      return Collections.emptySet();
+    }
+    if (TreeUtils.hasDescendant(enclosingFunction, t -> t.is(TRY_STMT))) {
       return Collections.emptySet();
     }
     ControlFlowGraph cfg = ControlFlowGraph.build(enclosingFunction, pythonFile);
     if (cfg == null) {
       return Collections.emptySet();
     }
-    compute(cfg, enclosingFunction.localVariables());
+    compute(cfg);
     return assignedExpressionByName.getOrDefault(variable, Collections.emptySet());
   }
 
-  private Set<Expression> getAssignedExpressions(Name variable, ProgramStateAtElement programStateAtElement) {
-    Symbol symbol = variable.symbol();
-    if (symbol == null) {
-      return Collections.emptySet();
-    }
-    boolean hasMissingBindingUsage = symbol.usages().stream()
-      .filter(Usage::isBindingUsage)
-      .anyMatch(u -> !assignedNamesBySymbol.getOrDefault(symbol, Collections.emptySet()).contains(u.tree()));
-    if (hasMissingBindingUsage) {
-      return Collections.emptySet();
+  /**
+   * Definitions are the assignments of a single name. As assignments perform a strong update, the definitions of a symbol
+   * kill all the other ones, hence the bit set of the definitions of each symbol.
+   */
+  private void compute(ControlFlowGraph cfg) {
+    DenseIndex<AssignmentStatement> definitions = new DenseIndex<>();
+    List<Symbol> symbolByDefinition = new ArrayList<>();
+    for (CfgBlock block : cfg.blocks()) {
+      for (Tree element : block.elements()) {
+        Name assignedName = assignedName(element);
+        if (assignedName != null) {
+          Symbol symbol = assignedName.symbol();
+          assignedNamesBySymbol.computeIfAbsent(symbol, s -> new HashSet<>()).add(assignedName);
+          definitions.add((AssignmentStatement) element);
+          symbolByDefinition.add(symbol);
+        }
+      }
     }
-    return Optional.ofNullable(programStateAtElement.out.get(symbol))
-      .orElse(Collections.emptySet());
-  }
-
-  private void compute(ControlFlowGraph cfg, Set<Symbol> localVariables) {
-    Map<Symbol, Set<Expression>> initialState = new HashMap<>();
-    for (Symbol variable : localVariables) {
-      initialState.put(variable, new HashSet<>());
+    Map<Symbol, long[]> definitionsBySymbol = new HashMap<>();
+    for (int definition = 0; definition < definitions.size(); definition++) {
+      BitSets.set(definitionsBySymbol.computeIfAbsent(symbolByDefinition.get(definition), s -> BitSets.create(definitions.size())), definition);
     }
-    Set<CfgBlock> blocks = cfg.blocks();
-    blocks.forEach(block -> programStateByBlock.put(block, new ProgramStateAtBlock(block, initialState)));
-    Deque<CfgBlock> workList = new ArrayDeque<>(blocks);
-    while (!workList.isEmpty()) {
-      CfgBlock currentBlock = workList.pop();
-      ProgramStateAtBlock programStateAtBlock = programStateByBlock.get(currentBlock);
-      boolean outHasChanged = programStateAtBlock.propagate();
-      if (outHasChanged) {
-        currentBlock.successors().forEach(workList::push);
+    BitSetDataflow dataflow = new BitSetDataflow(cfg, Direction.FORWARD, definitions.size());
+    for (CfgBlock block : cfg.blocks()) {
+      long[] gen = dataflow.gen(block);
+      long[] kill = dataflow.kill(block);
+      for (Tree element : block.elements()) {
+        int definition = definitions.indexOf(element);
+        if (definition >= 0) {
+          long[] symbolDefinitions = definitionsBySymbol.get(symbolByDefinition.get(definition));
+          BitSets.andNot(gen, symbolDefinitions);
+          BitSets.or(kill, symbolDefinitions);
+          BitSets.set(gen, definition);
+        }
       }
     }
-    updateProgramStateByElement(cfg);
-  }
+    dataflow.solve();
 
-  private void updateProgramStateByElement(ControlFlowGraph cfg) {
+    long[] state = BitSets.create(definitions.size());
     for (CfgBlock block : cfg.blocks()) {
-      Map<Symbol, Set<Expression>> inputState = programStateByBlock.get(block).in;
+      BitSets.copy(dataflow.input(block), state);
       for (Tree element : block.elements()) {
-        ProgramStateAtElement programStateAtElement = new ProgramStateAtElement(inputState, element);
+        int definition = definitions.indexOf(element);
+        if (definition >= 0) {
+          BitSets.andNot(state, definitionsBySymbol.get(symbolByDefinition.get(definition)));
+          BitSets.set(state, definition);
+        }
         element.accept(new BaseTreeVisitor() {
           @Override
           public void visitFunctionDef(FunctionDef pyFunctionDefTree) {
@@ -131,81 +141,53 @@ public class ReachingDefinitionsAnalysis {
           }
           @Override
           public void visitName(Name name) {
-            assignedExpressionByName.put(name, getAssignedExpressions(name, programStateAtElement));
+            assignedExpressionByName.put(name, getAssignedExpressions(name, state, definitions, definitionsBySymbol));
           }
         });
-        inputState = programStateAtElement.out;
       }
     }
   }
 
-  private class ProgramStateAtBlock {
-
-    private final CfgBlock block;
-    private Map<Symbol, Set<Expression>> in;
-    private Map<Symbol, Set<Expression>> out = new HashMap<>();
-
-    private ProgramStateAtBlock(CfgBlock block, Map<Symbol, Set<Expression>> initialState) {
-      this.block = block;
-      this.in = initialState;
-      this.block.elements().forEach(element -> updateProgramState(element, out));
+  private Set<Expression> getAssignedExpressions(Name variable, long[] state, DenseIndex<AssignmentStatement> definitions, Map<Symbol, long[]> definitionsBySymbol) {
+    Symbol symbol = variable.symbol();
+    if (symbol == null) {
+      return Collections.emptySet();
     }
-
-    /**
-     * Propagates forward: first computes the in set from all predecessors, then the out set.
-     */
-    private boolean propagate() {
-      block.predecessors().forEach(predecessor -> in = join(in, programStateByBlock.get(predecessor).out));
-      Map<Symbol, Set<Expression>> newOut = new HashMap<>(in);
-      block.elements().forEach(element -> updateProgramState(element, newOut));
-      boolean outHasChanged = !newOut.equals(out);
-      out = newOut;
-      return outHasChanged;
+    boolean hasMissingBindingUsage = symbol.usages().stream()
+      .filter(Usage::isBindingUsage)
+      .anyMatch(u -> !assignedNamesBySymbol.getOrDefault(symbol, Collections.emptySet()).contains(u.tree()));
+    long[] symbolDefinitions = definitionsBySymbol.get(symbol);
+    if (hasMissingBindingUsage || symbolDefinitions == null || !BitSets.intersects(state, symbolDefinitions)) {
+      return Collections.emptySet();
     }
+    Set<Expression> assignedExpressions = new HashSet<>();
+    BitSets.forEach(symbolDefinitions, definition -> {
+      if (BitSets.get(state, definition)) {
+        assignedExpressions.add(definitions.get(definition).assignedValue());
+      }
+    });
+    return assignedExpressions;
   }
 
-  private class ProgramStateAtElement {
-    private final Map<Symbol, Set<Expression>> out;
-
-    public ProgramStateAtElement(Map<Symbol, Set<Expression>> in, Tree element) {
-      out = join(in, Collections.emptyMap());
-      updateProgramState(element, out);
+  /**
+   * Returns the name assigned by the given element when it is the assignment of a single name which has a symbol.
+   */
+  @CheckForNull
+  private static Name assignedName(Tree element) {
+    if (!element.is(ASSIGNMENT_STMT)) {
+      return null;
     }
-  }
-
-  private static Map<Symbol, Set<Expression>> join(Map<Symbol, Set<Expression>> programState1, Map<Symbol, Set<Expression>> programState2) {
-    Map<Symbol, Set<Expression>> result = new HashMap<>();
-    Set<Symbol> allKeys = new HashSet<>(programState1.keySet());
-    allKeys.addAll(programState2.keySet());
-    for (Symbol key : allKeys) {
-      Set<Expression> union = new HashSet<>();
-      union.addAll(programState1.getOrDefault(key, Collections.emptySet()));
-      union.addAll(programState2.getOrDefault(key, Collections.emptySet()));
-      result.put(key, union);
+    AssignmentStatement assignmentStatement = (AssignmentStatement) element;
+    List<Expression> lhsExpressions = assignmentStatement.lhsExpressions().stream()
+      .flatMap(exprList -> exprList.expressions().stream())
+      .collect(Collectors.toList());
+    if (lhsExpressions.size() != 1) {
+      return null;
     }
-    return result;
-  }
-
-  private void updateProgramState(Tree element, Map<Symbol, Set<Expression>> programState) {
-    if (element.is(ASSIGNMENT_STMT)) {
-      AssignmentStatement assignmentStatement = (AssignmentStatement) element;
-      List<Expression> lhsExpressions = assignmentStatement.lhsExpressions().stream()
-        .flatMap(exprList -> exprList.expressions().stream())
-        .collect(Collectors.toList());
-      if (lhsExpressions.size() != 1) {
-        return;
-      }
-      Expression lhsExpression = lhsExpressions.get(0);
-      if (!lhsExpression.is(Tree.Kind.NAME)) {
-        return;
-      }
-      TreeUtils.getSymbolFromTree(lhsExpression).ifPresent(symbol -> {
-        assignedNamesBySymbol.computeIfAbsent(symbol, s -> new HashSet<>()).add(((Name) lhsExpression));
-        Set<Expression> assignedValues = new HashSet<>();
-        assignedValues.add(assignmentStatement.assignedValue());
-        // performing a strong update
-        programState.put(symbol, assignedValues);
-      });
+    Expression lhsExpression = lhsExpressions.get(0);
+    if (!lhsExpression.is(Tree.Kind.NAME) || ((Name) lhsExpression).symbol() == null) {
+      return null;
     }
+    return (Name) lhsExpression;
   }
 }
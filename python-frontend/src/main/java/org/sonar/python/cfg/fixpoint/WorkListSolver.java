@@ -0,0 +1,196 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python.cfg.fixpoint;
+
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntPredicate;
+import org.sonar.plugins.python.api.cfg.CfgBlock;
+import org.sonar.plugins.python.api.cfg.ControlFlowGraph;
+
+/**
+ * Worklist shared by the data flow analyses, which visits the blocks of a control flow graph in an order that makes the
+ * analyses converge quickly: reverse postorder for forward problems, so that a block is visited after its predecessors
+ * (back edges aside), and postorder for backward problems. Blocks are identified by their rank in that order, and the
+ * pending block of lowest rank is always visited first. A pending block is never queued twice.
+ */
+public final class WorkListSolver {
+
+  enum Direction {
+    FORWARD,
+    BACKWARD
+  }
+
+  private static final AtomicLong solvedProblems = new AtomicLong();
+  private static final AtomicLong visitedBlocks = new AtomicLong();
+  private static final AtomicInteger maxVisitedBlocks = new AtomicInteger();
+
+  private final CfgBlock[] blocks;
+  private final Map<CfgBlock, Integer> idByBlock = new HashMap<>();
+  private final int[][] flowPredecessors;
+  private final int[][] flowSuccessors;
+
+  WorkListSolver(ControlFlowGraph cfg, Direction direction) {
+    blocks = postorder(cfg);
+    int blockCount = blocks.length;
+    if (direction == Direction.FORWARD) {
+      for (int i = 0; i < blockCount / 2; i++) {
+        CfgBlock block = blocks[i];
+        blocks[i] = blocks[blockCount - 1 - i];
+        blocks[blockCount - 1 - i] = block;
+      }
+    }
+    for (int id = 0; id < blockCount; id++) {
+      idByBlock.put(blocks[id], id);
+    }
+    flowPredecessors = new int[blockCount][];
+    flowSuccessors = new int[blockCount][];
+    boolean forward = direction == Direction.FORWARD;
+    for (int id = 0; id < blockCount; id++) {
+      CfgBlock block = blocks[id];
+      flowPredecessors[id] = ids(forward ? block.predecessors() : block.successors());
+      flowSuccessors[id] = ids(forward ? block.successors() : block.predecessors());
+    }
+  }
+
+  /**
+   * Depth-first postorder of the blocks reachable from the start block, followed by the unreachable ones.
+   */
+  private static CfgBlock[] postorder(ControlFlowGraph cfg) {
+    Set<CfgBlock> allBlocks = cfg.blocks();
+    CfgBlock[] result = new CfgBlock[allBlocks.size()];
+    Set<CfgBlock> visited = new HashSet<>();
+    int count = postorder(cfg.start(), visited, result, 0);
+    for (CfgBlock block : allBlocks) {
+      count = postorder(block, visited, result, count);
+    }
+    return result;
+  }
+
+  private static int postorder(CfgBlock root, Set<CfgBlock> visited, CfgBlock[] result, int count) {
+    if (!visited.add(root)) {
+      return count;
+    }
+    int index = count;
+    Deque<CfgBlock> stack = new ArrayDeque<>();
+    Deque<Iterator<CfgBlock>> successors = new ArrayDeque<>();
+    stack.push(root);
+    successors.push(root.successors().iterator());
+    while (!stack.isEmpty()) {
+      Iterator<CfgBlock> iterator = successors.peek();
+      if (iterator.hasNext()) {
+        CfgBlock successor = iterator.next();
+        if (visited.add(successor)) {
+          stack.push(successor);
+          successors.push(successor.successors().iterator());
+        }
+      } else {
+        successors.pop();
+        result[index] = stack.pop();
+        index++;
+      }
+    }
+    return index;
+  }
+
+  private int[] ids(Set<CfgBlock> blocks) {
+    int[] ids = new int[blocks.size()];
+    int i = 0;
+    for (CfgBlock block : blocks) {
+      ids[i] = idByBlock.get(block);
+      i++;
+    }
+    return ids;
+  }
+
+  int blockCount() {
+    return blocks.length;
+  }
+
+  int id(CfgBlock block) {
+    return idByBlock.get(block);
+  }
+
+  CfgBlock block(int id) {
+    return blocks[id];
+  }
+
+  /**
+   * Ids of the blocks whose outputs flow into the given block: its predecessors for a forward problem, its successors otherwise.
+   */
+  int[] flowPredecessors(int id) {
+    return flowPredecessors[id];
+  }
+
+  /**
+   * Visits every block once, then again whenever the output of one of its flow predecessors changes, until the fixpoint.
+   * The visitor returns whether the output of the visited block changed. Returns the number of visits.
+   */
+  int solve(IntPredicate visitor) {
+    int blockCount = blocks.length;
+    BitSet pending = new BitSet(blockCount);
+    pending.set(0, blockCount);
+    int visits = 0;
+    int id = pending.nextSetBit(0);
+    while (id >= 0) {
+      pending.clear(id);
+      visits++;
+      if (visitor.test(id)) {
+        for (int successor : flowSuccessors[id]) {
+          pending.set(successor);
+        }
+      }
+      id = pending.nextSetBit(0);
+    }
+    solvedProblems.incrementAndGet();
+    visitedBlocks.addAndGet(visits);
+    maxVisitedBlocks.accumulateAndGet(visits, Math::max);
+    return visits;
+  }
+
+  /**
+   * Number of data flow problems solved since the analyzer was loaded: one per analysis and per function (or module).
+   */
+  public static long solvedProblems() {
+    return solvedProblems.get();
+  }
+
+  /**
+   * Number of block visits needed to solve those problems. Compared to the number of problems, this tracks how fast they converge.
+   */
+  public static long visitedBlocks() {
+    return visitedBlocks.get();
+  }
+
+  /**
+   * Highest number of block visits needed to solve a single problem since the analyzer was loaded.
+   */
+  public static int maxVisitedBlocks() {
+    return maxVisitedBlocks.get();
+  }
+}
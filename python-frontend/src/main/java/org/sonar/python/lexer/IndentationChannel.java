@@ -30,7 +30,6 @@ import org.sonar.sslr.channel.CodeReader;
  */
 public class IndentationChannel extends Channel<Lexer> {
 
-  private final StringBuilder buffer = new StringBuilder();
   private final LexerState lexerState;
 
   public IndentationChannel(LexerState lexerState) {
@@ -62,11 +61,10 @@ public class IndentationChannel extends Channel<Lexer> {
       return false;
     }
 
-    buffer.setLength(0);
+    String indentation = lexerState.tokenValues.get(code, whiteSpaceIndex);
     int indentationLevel = 0;
     for (int i = 0; i < whiteSpaceIndex; i++) {
       char currentChar = (char) code.pop();
-      buffer.append(currentChar);
       if (currentChar == '\t') {
         indentationLevel += countTabReplacer(indentationLevel);
       } else {
@@ -74,8 +72,8 @@ public class IndentationChannel extends Channel<Lexer> {
       }
     }
 
-    processIndents(lexer, line, column, indentationLevel);
-    return buffer.length() != 0;
+    processIndents(lexer, indentation, line, column, indentationLevel);
+    return !indentation.isEmpty();
   }
 
   private static int countTabReplacer(int indentationLevel) {
@@ -90,12 +88,12 @@ public class IndentationChannel extends Channel<Lexer> {
     return (ch == '\n') || (ch == '\r') || (ch == '#') || (ch == (char) -1);
   }
 
-  private void processIndents(Lexer lexer, int line, int column, int indentationLevel) {
+  private void processIndents(Lexer lexer, String indentation, int line, int column, int indentationLevel) {
     if (indentationLevel > lexerState.indentationStack.peek()) {
       lexerState.indentationStack.push(indentationLevel);
       lexer.addToken(Token.builder()
           .setType(PythonTokenType.INDENT)
-          .setValueAndOriginalValue(buffer.toString())
+          .setValueAndOriginalValue(indentation)
           .setURI(lexer.getURI())
           .setLine(line)
           .setColumn(column)
@@ -105,7 +103,7 @@ public class IndentationChannel extends Channel<Lexer> {
         lexerState.indentationStack.pop();
         lexer.addToken(Token.builder()
             .setType(PythonTokenType.DEDENT)
-            .setValueAndOriginalValue(buffer.toString())
+            .setValueAndOriginalValue(indentation)
             .setURI(lexer.getURI())
             .setLine(line)
             .setColumn(column)
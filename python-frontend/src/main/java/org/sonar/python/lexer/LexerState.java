@@ -31,6 +31,8 @@ public class LexerState {
   int initialLine = 1;
   int initialColumn = 0;
 
+  final TokenValues tokenValues = new TokenValues();
+
   public void reset() {
     indentationStack.clear();
     indentationStack.push(0);
@@ -0,0 +1,414 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python.lexer;
+
+import com.sonar.sslr.api.GenericTokenType;
+import com.sonar.sslr.api.Token;
+import com.sonar.sslr.api.TokenType;
+import com.sonar.sslr.api.Trivia;
+import com.sonar.sslr.impl.Lexer;
+import java.util.HashMap;
+import java.util.Map;
+import org.sonar.python.api.PythonKeyword;
+import org.sonar.python.api.PythonTokenType;
+import org.sonar.sslr.channel.Channel;
+import org.sonar.sslr.channel.CodeReader;
+
+/**
+ * Single channel recognizing whitespaces, comments, strings, numbers, identifiers and keywords by dispatching on the current character.
+ * It produces the same tokens as the regular expression channels it replaces, which were tried one after the other on every character.
+ *
+ * http://docs.python.org/reference/lexical_analysis.html
+ */
+public class PythonTokenizer extends Channel<Lexer> {
+
+  private static final char EOF = (char) -1;
+  private static final Map<String, TokenType> KEYWORDS = new HashMap<>();
+
+  static {
+    for (PythonKeyword keyword : PythonKeyword.values()) {
+      KEYWORDS.put(keyword.getValue(), keyword);
+    }
+  }
+
+  private final LexerState lexerState;
+
+  public PythonTokenizer(LexerState lexerState) {
+    this.lexerState = lexerState;
+  }
+
+  @Override
+  public boolean consume(CodeReader code, Lexer output) {
+    char ch = code.charAt(0);
+    if (isWhitespace(ch)) {
+      code.pop();
+      while (isWhitespace(code.charAt(0)) && !isNewLine(code.charAt(0))) {
+        code.pop();
+      }
+      return true;
+    }
+    int line = code.getLinePosition();
+    int column = code.getColumnPosition();
+    if (ch == '#') {
+      // http://docs.python.org/reference/lexical_analysis.html#comments
+      int length = 1;
+      while (length < code.length() && !isNewLine(code.charAt(length))) {
+        length++;
+      }
+      output.addTrivia(Trivia.createComment(createToken(GenericTokenType.COMMENT, pop(code, length), output, line, column)));
+      return true;
+    }
+    int length = stringLength(code);
+    if (length > 0) {
+      output.addToken(createToken(PythonTokenType.STRING, pop(code, length), output, line, column));
+      return true;
+    }
+    length = numberLength(code);
+    if (length > 0) {
+      output.addToken(createToken(PythonTokenType.NUMBER, popTokenValue(code, length), output, line, column));
+      return true;
+    }
+    length = identifierLength(code);
+    if (length > 0) {
+      String value = popTokenValue(code, length);
+      output.addToken(createToken(KEYWORDS.getOrDefault(value, GenericTokenType.IDENTIFIER), value, output, line, column));
+      return true;
+    }
+    return false;
+  }
+
+  private static String pop(CodeReader code, int length) {
+    String value = new String(code.peek(length));
+    skip(code, length);
+    return value;
+  }
+
+  /**
+   * Values of identifiers, keywords and numbers are shared between their occurrences.
+   */
+  private String popTokenValue(CodeReader code, int length) {
+    String value = lexerState.tokenValues.get(code, length);
+    skip(code, length);
+    return value;
+  }
+
+  private static void skip(CodeReader code, int length) {
+    for (int i = 0; i < length; i++) {
+      code.pop();
+    }
+  }
+
+  private static Token createToken(TokenType type, String value, Lexer output, int line, int column) {
+    return Token.builder()
+      .setLine(line)
+      .setColumn(column)
+      .setURI(output.getURI())
+      .setValueAndOriginalValue(value)
+      .setType(type)
+      .build();
+  }
+
+  /**
+   * http://docs.python.org/reference/lexical_analysis.html#string-literals
+   * https://docs.python.org/3.6/reference/lexical_analysis.html#formatted-string-literals
+   */
+  private static int stringLength(CodeReader code) {
+    int index = 0;
+    char ch = Character.toUpperCase(code.charAt(index));
+    if (isStringPrefix(ch)) {
+      index++;
+      ch = Character.toUpperCase(code.charAt(index));
+    }
+    if (isStringPrefix(ch)) {
+      index++;
+      ch = code.charAt(index);
+    }
+    if (ch != '\'' && ch != '"') {
+      return -1;
+    }
+    int length = isLookingOnLongString(code, ch, index) ? longStringLength(code, ch, index) : shortStringLength(code, ch, index);
+    if (length < 0 && isBytesOrFormattedStringPrefix(code, index)) {
+      // an unterminated long string is read as an empty short string when it has a bytes or a formatted string prefix
+      length = terminatedShortStringLength(code, ch, index);
+    }
+    return length;
+  }
+
+  private static int shortStringLength(CodeReader code, char quote, int start) {
+    int index = start + 1;
+    while (code.charAt(index) != quote) {
+      if (code.charAt(index) == EOF) {
+        return -1;
+      }
+      if (code.charAt(index) == '\\') {
+        // escape
+        index++;
+      }
+      index++;
+    }
+    return index + 1;
+  }
+
+  private static int longStringLength(CodeReader code, char quote, int start) {
+    int index = start + 3;
+    while (!isLookingOnLongString(code, quote, index)) {
+      if (code.charAt(index) == EOF) {
+        return -1;
+      }
+      if (code.charAt(index) == '\\') {
+        // escape
+        index++;
+      }
+      index++;
+    }
+    return index + 3;
+  }
+
+  private static int terminatedShortStringLength(CodeReader code, char quote, int start) {
+    int index = start + 1;
+    while (index < code.length()) {
+      char c = code.charAt(index);
+      if (c == quote) {
+        return index + 1;
+      }
+      index += c == '\\' ? 2 : 1;
+    }
+    return -1;
+  }
+
+  private static boolean isLookingOnLongString(CodeReader code, char ch, int index) {
+    return (code.charAt(index) == ch) && (code.charAt(index + 1) == ch) && (code.charAt(index + 2) == ch);
+  }
+
+  private static boolean isStringPrefix(char ch) {
+    return ch == 'R' || ch == 'F' || ch == 'U' || ch == 'B';
+  }
+
+  private static boolean isBytesOrFormattedStringPrefix(CodeReader code, int prefixLength) {
+    if (prefixLength == 0) {
+      return false;
+    }
+    char first = code.charAt(0);
+    boolean raw = first == 'r' || first == 'R';
+    boolean bytesOrFormatted = first == 'b' || first == 'B' || first == 'f' || first == 'F';
+    if (prefixLength == 1) {
+      return raw || bytesOrFormatted;
+    }
+    char second = code.charAt(1);
+    return (raw && (second == 'b' || second == 'B' || second == 'f' || second == 'F')) || (bytesOrFormatted && (second == 'r' || second == 'R'));
+  }
+
+  /**
+   * http://docs.python.org/reference/lexical_analysis.html#integer-and-long-integer-literals
+   * http://docs.python.org/reference/lexical_analysis.html#floating-point-literals
+   * http://docs.python.org/reference/lexical_analysis.html#imaginary-literals
+   * https://www.python.org/dev/peps/pep-0515/
+   */
+  private static int numberLength(CodeReader code) {
+    char first = code.charAt(0);
+    if (first == '.') {
+      if (!isDigit(code.charAt(1))) {
+        return -1;
+      }
+      int index = exponentEnd(code, digitsEnd(code, 1));
+      return imaginarySuffixEnd(code, index);
+    }
+    if (!isDigit(first)) {
+      return -1;
+    }
+    int integerEnd = digitsEnd(code, 0);
+    if (code.charAt(integerEnd) == '.') {
+      // point float, possibly with an exponent
+      int index = exponentEnd(code, digitsEnd(code, integerEnd + 1));
+      return imaginarySuffixEnd(code, index);
+    }
+    int index = exponentEnd(code, integerEnd);
+    if (index != integerEnd) {
+      // exponent float
+      return imaginarySuffixEnd(code, index);
+    }
+    if (isImaginarySuffix(code.charAt(integerEnd))) {
+      return integerEnd + 1;
+    }
+    if (first != '0') {
+      return longSuffixEnd(code, integerEnd);
+    }
+    return zeroPrefixedIntegerLength(code);
+  }
+
+  private static int zeroPrefixedIntegerLength(CodeReader code) {
+    char second = code.charAt(1);
+    int index;
+    if (second == 'x' || second == 'X') {
+      index = digitsEnd(code, 2, PythonTokenizer::isHexDigit);
+    } else if (second == 'b' || second == 'B') {
+      index = digitsEnd(code, 2, c -> c == '0' || c == '1');
+    } else {
+      int start = (second == 'o' || second == 'O') ? 2 : 1;
+      index = digitsEnd(code, start, c -> c >= '0' && c <= '7');
+      if (index == start) {
+        index = digitsEnd(code, 1, c -> c == '0');
+      }
+      return longSuffixEnd(code, index);
+    }
+    if (index == 2) {
+      // "0x" or "0b" without digits: only "0" is a number
+      index = digitsEnd(code, 1, c -> c == '0');
+    }
+    return longSuffixEnd(code, index);
+  }
+
+  /**
+   * End of a sequence of decimal digits possibly separated by single underscores, such as "1_000".
+   * As with a possessive "[0-9]*+(_?[0-9])*+" regular expression, an underscore is consumed only when it is followed by a digit.
+   */
+  private static int digitsEnd(CodeReader code, int start) {
+    return digitsEnd(code, start, PythonTokenizer::isDigit);
+  }
+
+  private static int digitsEnd(CodeReader code, int start, CharPredicate isDigit) {
+    int index = start;
+    while (true) {
+      char c = code.charAt(index);
+      if (isDigit.test(c)) {
+        index++;
+      } else if (c == '_' && isDigit.test(code.charAt(index + 1))) {
+        index += 2;
+      } else {
+        return index;
+      }
+    }
+  }
+
+  private static int exponentEnd(CodeReader code, int start) {
+    char c = code.charAt(start);
+    if (c != 'e' && c != 'E') {
+      return start;
+    }
+    int index = start + 1;
+    c = code.charAt(index);
+    if (c == '+' || c == '-') {
+      index++;
+    }
+    int digitsStart = index;
+    while (isDigit(code.charAt(index)) || code.charAt(index) == '_') {
+      index++;
+    }
+    return index == digitsStart ? start : index;
+  }
+
+  private static int imaginarySuffixEnd(CodeReader code, int index) {
+    return isImaginarySuffix(code.charAt(index)) ? (index + 1) : index;
+  }
+
+  private static int longSuffixEnd(CodeReader code, int index) {
+    char c = code.charAt(index);
+    return (c == 'l' || c == 'L') ? (index + 1) : index;
+  }
+
+  private static boolean isImaginarySuffix(char c) {
+    return c == 'j' || c == 'J';
+  }
+
+  private static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  private static boolean isHexDigit(char c) {
+    return isDigit(c) || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+  }
+
+  /**
+   * http://docs.python.org/reference/lexical_analysis.html#identifiers
+   */
+  private static int identifierLength(CodeReader code) {
+    int codePoint = codePointAt(code, 0);
+    if (!isIdentifierStart(codePoint)) {
+      return -1;
+    }
+    int index = Character.charCount(codePoint);
+    codePoint = codePointAt(code, index);
+    while (isIdentifierPart(codePoint)) {
+      index += Character.charCount(codePoint);
+      codePoint = codePointAt(code, index);
+    }
+    return index;
+  }
+
+  private static int codePointAt(CodeReader code, int index) {
+    char high = code.charAt(index);
+    if (Character.isHighSurrogate(high) && index + 1 < code.length()) {
+      char low = code.charAt(index + 1);
+      if (Character.isLowSurrogate(low)) {
+        return Character.toCodePoint(high, low);
+      }
+    }
+    return high;
+  }
+
+  private static boolean isIdentifierStart(int codePoint) {
+    if (codePoint < 0x80) {
+      return (codePoint >= 'a' && codePoint <= 'z') || (codePoint >= 'A' && codePoint <= 'Z') || codePoint == '_';
+    }
+    switch (Character.getType(codePoint)) {
+      case Character.UPPERCASE_LETTER:
+      case Character.LOWERCASE_LETTER:
+      case Character.TITLECASE_LETTER:
+      case Character.MODIFIER_LETTER:
+      case Character.OTHER_LETTER:
+      case Character.LETTER_NUMBER:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  private static boolean isIdentifierPart(int codePoint) {
+    if (codePoint < 0x80) {
+      return isIdentifierStart(codePoint) || isDigit((char) codePoint);
+    }
+    if (isIdentifierStart(codePoint)) {
+      return true;
+    }
+    switch (Character.getType(codePoint)) {
+      case Character.NON_SPACING_MARK:
+      case Character.COMBINING_SPACING_MARK:
+      case Character.DECIMAL_DIGIT_NUMBER:
+      case Character.CONNECTOR_PUNCTUATION:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  private static boolean isWhitespace(char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+  }
+
+  private static boolean isNewLine(char c) {
+    return c == '\n' || c == '\r';
+  }
+
+  @FunctionalInterface
+  private interface CharPredicate {
+    boolean test(char c);
+  }
+
+}
@@ -0,0 +1,68 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python.lexer;
+
+import org.sonar.sslr.channel.CodeReader;
+
+/**
+ * Bounded table of the token values read by a lexer, looked up directly from the characters of the code being lexed.
+ * Identifiers, keywords, numbers and indentations repeat a lot: every occurrence of the same value shares a single
+ * {@link String} instance, which is created only the first time the value is read.
+ * A value replaces the one previously stored in its slot, so that the table does not grow with the number of lexed files.
+ */
+class TokenValues {
+
+  private static final int SIZE = 4096;
+  private static final int MAX_LENGTH = 128;
+
+  private final String[] values = new String[SIZE];
+
+  /**
+   * Value of the {@code length} next characters of {@code code}, which are not consumed.
+   */
+  String get(CodeReader code, int length) {
+    if (length > MAX_LENGTH) {
+      return new String(code.peek(length));
+    }
+    int hash = 0;
+    for (int i = 0; i < length; i++) {
+      hash = 31 * hash + code.charAt(i);
+    }
+    int slot = (hash ^ (hash >>> 16)) & (SIZE - 1);
+    String value = values[slot];
+    if (value == null || !matches(value, code, length)) {
+      value = new String(code.peek(length));
+      values[slot] = value;
+    }
+    return value;
+  }
+
+  private static boolean matches(String value, CodeReader code, int length) {
+    if (value.length() != length) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (value.charAt(i) != code.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
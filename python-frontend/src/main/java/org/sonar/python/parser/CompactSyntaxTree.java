@@ -0,0 +1,321 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python.parser;
+
+import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.AstNodeType;
+import com.sonar.sslr.api.Token;
+import com.sonar.sslr.api.TokenType;
+import com.sonar.sslr.api.Trivia;
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SSLR syntax tree stored in two byte arrays, which take about 10 times less memory than the tree itself, and from which
+ * an identical tree is rebuilt several times faster than by parsing the code again.
+ * <p>
+ * Nodes are stored in depth-first order, each one as its type, its token, its token indexes and its number of children.
+ * Tokens are stored in the order in which they are first met, each one followed by its comments. Numbers are mostly
+ * stored as differences with the previous node or token, as variable-length integers. Types and strings are stored
+ * once per tree. Only comment trivia are supported, as they are the only ones produced by the lexer.
+ */
+public class CompactSyntaxTree {
+
+  private static final int CUSTOM_NAME = 1;
+
+  private final AstNodeType[] types;
+  private final String[] strings;
+  private final URI uri;
+  private final int numberOfTokens;
+  private final byte[] nodes;
+  private final byte[] tokens;
+
+  private CompactSyntaxTree(AstNodeType[] types, String[] strings, URI uri, int numberOfTokens, byte[] nodes, byte[] tokens) {
+    this.types = types;
+    this.strings = strings;
+    this.uri = uri;
+    this.numberOfTokens = numberOfTokens;
+    this.nodes = nodes;
+    this.tokens = tokens;
+  }
+
+  public static CompactSyntaxTree of(AstNode root) {
+    return new Writer().write(root);
+  }
+
+  /**
+   * Approximate number of bytes retained by this tree, not counting the types, which are shared by all trees.
+   */
+  public long memorySize() {
+    long size = 100L + nodes.length + tokens.length + 4L * (types.length + strings.length);
+    for (String string : strings) {
+      size += 40 + string.length();
+    }
+    return size;
+  }
+
+  /**
+   * Creates a new tree, which can be modified without affecting the trees created before or after it.
+   */
+  public AstNode toAstNode() {
+    Token[] tokenObjects = readTokens();
+    ByteReader in = new ByteReader(nodes);
+    Deque<AstNode> parents = new ArrayDeque<>();
+    Deque<Integer> remainingChildren = new ArrayDeque<>();
+    AstNode root = null;
+    int tokenIndex = 0;
+    int fromIndex = 0;
+    while (in.hasRemaining()) {
+      int typeAndFlags = in.readVarInt();
+      AstNodeType type = types[typeAndFlags >>> 1];
+      String name = (typeAndFlags & CUSTOM_NAME) != 0 ? strings[in.readVarInt()] : defaultName(type);
+      Token token = null;
+      if (in.readBoolean()) {
+        tokenIndex += in.readSignedVarInt();
+        token = tokenObjects[tokenIndex];
+      }
+      AstNode node = new AstNode(type, name, token);
+      fromIndex += in.readSignedVarInt();
+      node.setFromIndex(fromIndex);
+      node.setToIndex(fromIndex + in.readSignedVarInt());
+      int numberOfChildren = in.readVarInt();
+      if (parents.isEmpty()) {
+        root = node;
+      } else {
+        parents.peek().addChild(node);
+        remainingChildren.push(remainingChildren.pop() - 1);
+      }
+      if (numberOfChildren > 0) {
+        parents.push(node);
+        remainingChildren.push(numberOfChildren);
+      }
+      while (!remainingChildren.isEmpty() && remainingChildren.peek() == 0) {
+        parents.pop();
+        remainingChildren.pop();
+      }
+    }
+    return root;
+  }
+
+  private Token[] readTokens() {
+    Token[] tokenObjects = new Token[numberOfTokens];
+    ByteReader in = new ByteReader(tokens);
+    int[] line = {0};
+    int i = 0;
+    while (i < numberOfTokens) {
+      Token.Builder builder = readToken(in, line);
+      int numberOfComments = in.readVarInt();
+      for (int j = 0; j < numberOfComments; j++) {
+        builder.addTrivia(Trivia.createComment(readToken(in, line).build()));
+      }
+      tokenObjects[i] = builder.build();
+      i += numberOfComments + 1;
+    }
+    return tokenObjects;
+  }
+
+  private Token.Builder readToken(ByteReader in, int[] line) {
+    TokenType type = (TokenType) types[in.readVarInt()];
+    String value = strings[in.readVarInt()];
+    int originalValue = in.readVarInt();
+    line[0] += in.readSignedVarInt();
+    int column = in.readVarInt();
+    boolean generatedCode = in.readBoolean();
+    return Token.builder()
+      .setType(type)
+      .setValueAndOriginalValue(value, originalValue == 0 ? value : strings[originalValue - 1])
+      .setLine(line[0])
+      .setColumn(column)
+      .setGeneratedCode(generatedCode)
+      .setURI(uri);
+  }
+
+  private static String defaultName(AstNodeType type) {
+    return type instanceof TokenType ? ((TokenType) type).getName() : type.toString();
+  }
+
+  private static class Writer {
+    private final Map<AstNodeType, Integer> types = new IdentityHashMap<>();
+    private final Map<String, Integer> strings = new HashMap<>();
+    private final Map<Token, Integer> tokenIndexes = new IdentityHashMap<>();
+    private final ByteWriter nodes = new ByteWriter();
+    private final ByteWriter tokens = new ByteWriter();
+    private int numberOfTokens = 0;
+    private int lastLine = 0;
+    private URI uri = null;
+
+    private CompactSyntaxTree write(AstNode root) {
+      Deque<AstNode> workList = new ArrayDeque<>();
+      workList.push(root);
+      int lastTokenIndex = 0;
+      int lastFromIndex = 0;
+      while (!workList.isEmpty()) {
+        AstNode node = workList.pop();
+        AstNodeType type = node.getType();
+        boolean customName = !defaultName(type).equals(node.getName());
+        nodes.writeVarInt((index(types, type) << 1) | (customName ? CUSTOM_NAME : 0));
+        if (customName) {
+          nodes.writeVarInt(index(strings, node.getName()));
+        }
+        nodes.writeBoolean(node.hasToken());
+        if (node.hasToken()) {
+          int tokenIndex = tokenIndex(node.getToken());
+          nodes.writeSignedVarInt(tokenIndex - lastTokenIndex);
+          lastTokenIndex = tokenIndex;
+        }
+        nodes.writeSignedVarInt(node.getFromIndex() - lastFromIndex);
+        nodes.writeSignedVarInt(node.getToIndex() - node.getFromIndex());
+        lastFromIndex = node.getFromIndex();
+        List<AstNode> children = node.getChildren();
+        nodes.writeVarInt(children.size());
+        for (int i = children.size() - 1; i >= 0; i--) {
+          workList.push(children.get(i));
+        }
+      }
+      return new CompactSyntaxTree(toArray(types, new AstNodeType[types.size()]), toArray(strings, new String[strings.size()]), uri, numberOfTokens,
+        nodes.toByteArray(), tokens.toByteArray());
+    }
+
+    private int tokenIndex(Token token) {
+      Integer index = tokenIndexes.get(token);
+      if (index != null) {
+        return index;
+      }
+      index = numberOfTokens;
+      tokenIndexes.put(token, index);
+      writeToken(token);
+      List<Trivia> trivia = token.getTrivia();
+      tokens.writeVarInt(trivia.size());
+      for (Trivia comment : trivia) {
+        if (!comment.isComment() || comment.getTokens().size() != 1) {
+          throw new IllegalArgumentException("Unsupported trivia: " + comment);
+        }
+        writeToken(comment.getToken());
+      }
+      numberOfTokens += trivia.size() + 1;
+      return index;
+    }
+
+    private void writeToken(Token token) {
+      if (uri == null) {
+        uri = token.getURI();
+      } else if (!uri.equals(token.getURI())) {
+        throw new IllegalArgumentException("Tokens of different files: " + uri + " and " + token.getURI());
+      }
+      if (token.isCopyBook()) {
+        throw new IllegalArgumentException("Unsupported token: " + token);
+      }
+      tokens.writeVarInt(index(types, token.getType()));
+      tokens.writeVarInt(index(strings, token.getValue()));
+      tokens.writeVarInt(token.getOriginalValue().equals(token.getValue()) ? 0 : (index(strings, token.getOriginalValue()) + 1));
+      tokens.writeSignedVarInt(token.getLine() - lastLine);
+      lastLine = token.getLine();
+      tokens.writeVarInt(token.getColumn());
+      tokens.writeBoolean(token.isGeneratedCode());
+    }
+
+    private static <T> int index(Map<T, Integer> table, T value) {
+      return table.computeIfAbsent(value, v -> table.size());
+    }
+
+    private static <T> T[] toArray(Map<T, Integer> table, T[] array) {
+      table.forEach((value, index) -> array[index] = value);
+      return array;
+    }
+  }
+
+  private static class ByteWriter {
+    private byte[] bytes = new byte[4096];
+    private int size = 0;
+
+    private void writeBoolean(boolean value) {
+      writeVarInt(value ? 1 : 0);
+    }
+
+    private void writeSignedVarInt(int value) {
+      writeVarInt((value << 1) ^ (value >> 31));
+    }
+
+    private void writeVarInt(int value) {
+      int remaining = value;
+      while ((remaining & ~0x7F) != 0) {
+        write((byte) ((remaining & 0x7F) | 0x80));
+        remaining >>>= 7;
+      }
+      write((byte) remaining);
+    }
+
+    private void write(byte value) {
+      if (size == bytes.length) {
+        byte[] newBytes = new byte[size * 2];
+        System.arraycopy(bytes, 0, newBytes, 0, size);
+        bytes = newBytes;
+      }
+      bytes[size] = value;
+      size++;
+    }
+
+    private byte[] toByteArray() {
+      byte[] array = new byte[size];
+      System.arraycopy(bytes, 0, array, 0, size);
+      return array;
+    }
+  }
+
+  private static class ByteReader {
+    private final byte[] bytes;
+    private int position = 0;
+
+    private ByteReader(byte[] bytes) {
+      this.bytes = bytes;
+    }
+
+    private boolean hasRemaining() {
+      return position < bytes.length;
+    }
+
+    private boolean readBoolean() {
+      return readVarInt() != 0;
+    }
+
+    private int readSignedVarInt() {
+      int value = readVarInt();
+      return (value >>> 1) ^ -(value & 1);
+    }
+
+    private int readVarInt() {
+      int value = 0;
+      int shift = 0;
+      byte b;
+      do {
+        b = bytes[position];
+        position++;
+        value |= (b & 0x7F) << shift;
+        shift += 7;
+      } while ((b & 0x80) != 0);
+      return value;
+    }
+  }
+}
@@ -0,0 +1,51 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python.parser;
+
+import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.Token;
+import com.sonar.sslr.impl.matcher.RuleDefinition;
+import java.util.List;
+import org.sonar.sslr.internal.matchers.LexerfulAstCreator;
+import org.sonar.sslr.internal.vm.CompiledGrammar;
+import org.sonar.sslr.internal.vm.Machine;
+import org.sonar.sslr.internal.vm.MutableGrammarCompiler;
+
+/**
+ * Parses token lists with a grammar compiled once, whereas {@link com.sonar.sslr.impl.Parser#parse(List)} compiles
+ * the grammar on every call. This is the only class depending on the internal API of SSLR: it does what
+ * {@code Parser#parse(List)} does and must be kept in sync with it when SSLR is upgraded.
+ */
+class CompiledParser {
+
+  private final CompiledGrammar grammar;
+
+  CompiledParser(RuleDefinition rootRule) {
+    this.grammar = MutableGrammarCompiler.compile(rootRule);
+  }
+
+  /**
+   * @throws com.sonar.sslr.api.RecognitionException when the tokens do not match the grammar
+   */
+  AstNode parse(List<Token> tokens) {
+    return LexerfulAstCreator.create(Machine.parse(tokens, grammar), tokens);
+  }
+
+}
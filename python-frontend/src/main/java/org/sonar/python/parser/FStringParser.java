@@ -20,10 +20,10 @@
 package org.sonar.python.parser;
 
 import com.sonar.sslr.api.AstNode;
-import com.sonar.sslr.api.Grammar;
 import com.sonar.sslr.api.Token;
 import com.sonar.sslr.impl.Lexer;
-import com.sonar.sslr.impl.Parser;
+import com.sonar.sslr.impl.matcher.RuleDefinition;
+import java.util.Collections;
 import java.util.List;
 import org.sonar.python.api.PythonGrammar;
 import org.sonar.python.lexer.LexerState;
@@ -31,25 +31,34 @@ import org.sonar.python.lexer.PythonLexer;
 import org.sonar.python.tree.StringElementImpl;
 import org.sonar.python.tree.TokenImpl;
 
+/**
+ * Parses the replacement fields of f-strings. An instance is meant to be reused for all the f-strings parsed by a thread.
+ */
 public class FStringParser {
 
   private final LexerState lexerState;
   private final Lexer lexer;
-  private final Parser<Grammar> internalParser = Parser.builder(PythonGrammar.create()).build();
+  /**
+   * Compiling the grammar costs more than parsing the few tokens of an f-string: it is compiled once for all the f-strings.
+   */
+  private final CompiledParser parser;
 
   public FStringParser() {
     this.lexerState = new LexerState();
     this.lexer = PythonLexer.fStringLexer(lexerState);
-    this.internalParser.setRootRule(internalParser.getGrammar().rule(PythonGrammar.F_STRING_CONTENT));
+    this.parser = new CompiledParser((RuleDefinition) PythonGrammar.create().rule(PythonGrammar.F_STRING_CONTENT));
   }
 
   public List<AstNode> fStringExpressions(Token fStringToken) {
     StringElementImpl element = new StringElementImpl(new TokenImpl(fStringToken));
     String literalValue = element.trimmedQuotesValue();
+    if (literalValue.indexOf('{') < 0) {
+      return Collections.emptyList();
+    }
     lexerState.reset(fStringToken.getLine(), fStringToken.getColumn() + element.contentStartIndex());
     lexer.lex(literalValue);
     List<Token> tokens = lexer.getTokens();
-    AstNode astNode = internalParser.parse(tokens);
+    AstNode astNode = parser.parse(tokens);
     return astNode.getChildren(PythonGrammar.FORMATTED_EXPR);
   }
 
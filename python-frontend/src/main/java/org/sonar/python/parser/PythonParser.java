@@ -68,6 +68,8 @@ public final class PythonParser {
   private static class SslrPythonParser extends Parser<Grammar> {
     private final LexerState lexerState;
     private final Lexer lexer;
+    // com.sonar.sslr.impl.Parser compiles the grammar for every parsed file: it is compiled once per root rule instead
+    private CompiledParser compiledParser;
 
     private SslrPythonParser() {
       super(PythonGrammar.create());
@@ -80,7 +82,21 @@ public final class PythonParser {
     public AstNode parse(String source) {
       lexerState.reset();
       lexer.lex(source);
-      return super.parse(tokens());
+      return parse(tokens());
+    }
+
+    @Override
+    public AstNode parse(List<Token> tokens) {
+      if (compiledParser == null) {
+        compiledParser = new CompiledParser(getRootRule());
+      }
+      return compiledParser.parse(tokens);
+    }
+
+    @Override
+    public void setRootRule(Rule rootRule) {
+      super.setRootRule(rootRule);
+      compiledParser = null;
     }
 
     private List<Token> tokens() {
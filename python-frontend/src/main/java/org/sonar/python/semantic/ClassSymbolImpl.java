@@ -31,6 +31,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
@@ -47,11 +48,15 @@ import static org.sonar.python.tree.TreeUtils.locationInFile;
 public class ClassSymbolImpl extends SymbolImpl implements ClassSymbol {
 
   private final List<Symbol> superClasses = new ArrayList<>();
-  private Set<Symbol> allSuperClasses = null;
-  private Set<Symbol> allSuperClassesIncludingAmbiguousSymbols = null;
+  private volatile Set<Symbol> allSuperClasses = null;
+  private volatile Set<Symbol> allSuperClassesIncludingAmbiguousSymbols = null;
+  private volatile List<ClassSymbolImpl> resolutionOrder = null;
+  private volatile List<ClassSymbolImpl> resolutionOrderIncludingAmbiguousSymbols = null;
+  private final Map<String, Optional<Symbol>> resolvedMembers = new ConcurrentHashMap<>();
+  private final Map<String, Boolean> membersInHierarchy = new ConcurrentHashMap<>();
   private boolean hasSuperClassWithoutSymbol = false;
   private final Set<Symbol> members = new HashSet<>();
-  private Map<String, Symbol> membersByName = null;
+  private volatile Map<String, Symbol> membersByName = null;
   private boolean hasAlreadyReadSuperClasses = false;
   private boolean hasAlreadyReadMembers = false;
   private boolean hasDecorators = false;
@@ -145,18 +150,25 @@ public class ClassSymbolImpl extends SymbolImpl implements ClassSymbol {
     return members;
   }
 
+  /**
+   * Results, including missing members, are kept: once read, neither the members nor the super classes of a class can change.
+   * Typeshed class symbols being shared, so are their resolved members.
+   */
   @Override
   public Optional<Symbol> resolveMember(String memberName) {
-    for (Symbol symbol : allSuperClasses(false)) {
-      if (symbol.kind() == Kind.CLASS) {
-        ClassSymbolImpl classSymbol = (ClassSymbolImpl) symbol;
+    Optional<Symbol> resolvedMember = resolvedMembers.get(memberName);
+    if (resolvedMember == null) {
+      resolvedMember = Optional.empty();
+      for (ClassSymbolImpl classSymbol : resolutionOrder(false)) {
         Symbol matchingMember = classSymbol.membersByName().get(memberName);
         if (matchingMember != null) {
-          return Optional.of(matchingMember);
+          resolvedMember = Optional.of(matchingMember);
+          break;
         }
       }
+      resolvedMembers.put(memberName, resolvedMember);
     }
-    return Optional.empty();
+    return resolvedMember;
   }
 
   public boolean hasMetaClass() {
@@ -168,16 +180,12 @@ public class ClassSymbolImpl extends SymbolImpl implements ClassSymbol {
     if (hasUnresolvedTypeHierarchy() || hasSuperClassWithUnknownMetaClass()) {
       return true;
     }
-    for (Symbol symbol : allSuperClasses(true)) {
-      if (symbol.kind() == Kind.CLASS) {
-        ClassSymbolImpl classSymbol = (ClassSymbolImpl) symbol;
-        Symbol matchingMember = classSymbol.membersByName().get(memberName);
-        if (matchingMember != null) {
-          return true;
-        }
-      }
+    Boolean isMemberInHierarchy = membersInHierarchy.get(memberName);
+    if (isMemberInHierarchy == null) {
+      isMemberInHierarchy = resolutionOrder(true).stream().anyMatch(classSymbol -> classSymbol.membersByName().containsKey(memberName));
+      membersInHierarchy.put(memberName, isMemberInHierarchy);
     }
-    return false;
+    return isMemberInHierarchy;
   }
 
   public boolean hasSuperClassWithUnknownMetaClass() {
@@ -227,10 +235,12 @@ public class ClassSymbolImpl extends SymbolImpl implements ClassSymbol {
   }
 
   private Map<String, Symbol> membersByName() {
-    if (membersByName == null) {
-      membersByName = declaredMembers().stream().collect(Collectors.toMap(Symbol::name, m -> m, (s1, s2) -> s1));
+    Map<String, Symbol> symbolsByName = membersByName;
+    if (symbolsByName == null) {
+      symbolsByName = declaredMembers().stream().collect(Collectors.toMap(Symbol::name, m -> m, (s1, s2) -> s1));
+      membersByName = symbolsByName;
     }
-    return membersByName;
+    return symbolsByName;
   }
 
   public void addMembers(Collection<Symbol> members) {
@@ -261,18 +271,42 @@ public class ClassSymbolImpl extends SymbolImpl implements ClassSymbol {
   }
 
   private Set<Symbol> allSuperClasses(boolean includeAmbiguousSymbols) {
+    // super classes are fully explored before being published, as class symbols can be shared by concurrent analyses
     if (!includeAmbiguousSymbols) {
-      if (allSuperClasses == null) {
-        allSuperClasses = new LinkedHashSet<>();
-        exploreSuperClasses(this, allSuperClasses, false);
+      Set<Symbol> superClassesSet = allSuperClasses;
+      if (superClassesSet == null) {
+        superClassesSet = new LinkedHashSet<>();
+        exploreSuperClasses(this, superClassesSet, false);
+        allSuperClasses = superClassesSet;
       }
-      return allSuperClasses;
+      return superClassesSet;
+    }
+    Set<Symbol> superClassesSet = allSuperClassesIncludingAmbiguousSymbols;
+    if (superClassesSet == null) {
+      superClassesSet = new LinkedHashSet<>();
+      exploreSuperClasses(this, superClassesSet, true);
+      allSuperClassesIncludingAmbiguousSymbols = superClassesSet;
     }
-    if (allSuperClassesIncludingAmbiguousSymbols == null) {
-      allSuperClassesIncludingAmbiguousSymbols = new LinkedHashSet<>();
-      exploreSuperClasses(this, allSuperClassesIncludingAmbiguousSymbols, true);
+    return superClassesSet;
+  }
+
+  /**
+   * Classes of the hierarchy, in the order in which their members are looked up: this class, then its super classes, depth first.
+   */
+  private List<ClassSymbolImpl> resolutionOrder(boolean includeAmbiguousSymbols) {
+    List<ClassSymbolImpl> classes = includeAmbiguousSymbols ? resolutionOrderIncludingAmbiguousSymbols : resolutionOrder;
+    if (classes == null) {
+      classes = allSuperClasses(includeAmbiguousSymbols).stream()
+        .filter(symbol -> symbol.kind() == Kind.CLASS)
+        .map(ClassSymbolImpl.class::cast)
+        .collect(Collectors.toList());
+      if (includeAmbiguousSymbols) {
+        resolutionOrderIncludingAmbiguousSymbols = classes;
+      } else {
+        resolutionOrder = classes;
+      }
     }
-    return allSuperClassesIncludingAmbiguousSymbols;
+    return classes;
   }
 
   private static void exploreSuperClasses(Symbol symbol, Set<Symbol> set, boolean includeAmbiguousSymbols) {
@@ -296,7 +330,7 @@ public class ClassSymbolImpl extends SymbolImpl implements ClassSymbol {
     members.forEach(symbol -> ((SymbolImpl) symbol).removeUsages());
   }
 
-  boolean hasSuperClassWithoutSymbol() {
+  public boolean hasSuperClassWithoutSymbol() {
     return hasSuperClassWithoutSymbol;
   }
 }
@@ -98,6 +98,21 @@ public class FunctionSymbolImpl extends SymbolImpl implements FunctionSymbol {
     isStub = functionSymbol.isStub();
   }
 
+  public FunctionSymbolImpl(String name, @Nullable String fullyQualifiedName, @Nullable LocationInFile definitionLocation,
+                            boolean isInstanceMethod, boolean isAsynchronous, List<String> decorators, boolean hasVariadicParameter,
+                            @Nullable String annotatedReturnTypeName, boolean isStub) {
+    super(name, fullyQualifiedName);
+    setKind(Kind.FUNCTION);
+    this.functionDefinitionLocation = definitionLocation;
+    this.isInstanceMethod = isInstanceMethod;
+    this.isAsynchronous = isAsynchronous;
+    this.hasDecorators = !decorators.isEmpty();
+    this.decorators = decorators;
+    this.hasVariadicParameter = hasVariadicParameter;
+    this.annotatedReturnTypeName = annotatedReturnTypeName;
+    this.isStub = isStub;
+  }
+
   @Override
   FunctionSymbolImpl copyWithoutUsages() {
     FunctionSymbolImpl copy = new FunctionSymbolImpl(name(), this);
@@ -246,6 +261,10 @@ public class FunctionSymbolImpl extends SymbolImpl implements FunctionSymbol {
     return annotatedReturnTypeName;
   }
 
+  public void addParameters(List<Parameter> parameters) {
+    this.parameters.addAll(parameters);
+  }
+
   public void setDeclaredReturnType(InferredType declaredReturnType) {
     this.declaredReturnType = declaredReturnType;
   }
@@ -258,7 +277,7 @@ public class FunctionSymbolImpl extends SymbolImpl implements FunctionSymbol {
     this.owner = owner;
   }
 
-  private static class ParameterImpl implements Parameter {
+  public static class ParameterImpl implements Parameter {
 
     private final String name;
     private final InferredType declaredType;
@@ -270,12 +289,17 @@ public class FunctionSymbolImpl extends SymbolImpl implements FunctionSymbol {
 
     ParameterImpl(@Nullable String name, InferredType declaredType, boolean hasDefaultValue,
                   boolean isVariadic, ParameterState parameterState, @Nullable LocationInFile location) {
+      this(name, declaredType, hasDefaultValue, isVariadic, parameterState.keywordOnly, parameterState.positionalOnly, location);
+    }
+
+    public ParameterImpl(@Nullable String name, InferredType declaredType, boolean hasDefaultValue,
+                         boolean isVariadic, boolean isKeywordOnly, boolean isPositionalOnly, @Nullable LocationInFile location) {
       this.name = name;
       this.declaredType = declaredType;
       this.hasDefaultValue = hasDefaultValue;
       this.isVariadic = isVariadic;
-      this.isKeywordOnly = parameterState.keywordOnly;
-      this.isPositionalOnly = parameterState.positionalOnly;
+      this.isKeywordOnly = isKeywordOnly;
+      this.isPositionalOnly = isPositionalOnly;
       this.location = location;
     }
 
@@ -38,7 +38,7 @@ import org.sonar.plugins.python.api.tree.FileInput;
 public class ProjectLevelSymbolTable {
 
   private final Map<String, Set<Symbol>> globalSymbolsByModuleName;
-  private Map<String, Symbol> globalSymbolsByFQN;
+  private volatile Map<String, Symbol> globalSymbolsByFQN;
 
   public static ProjectLevelSymbolTable empty() {
     return new ProjectLevelSymbolTable(Collections.emptyMap());
@@ -57,7 +57,24 @@ public class ProjectLevelSymbolTable {
   }
 
   public void addModule(FileInput fileInput, String packageName, PythonFile pythonFile) {
-    SymbolTableBuilder symbolTableBuilder = new SymbolTableBuilder(packageName, pythonFile);
+    String fullyQualifiedModuleName = SymbolUtils.fullyQualifiedModuleName(packageName, pythonFile.fileName());
+    addModule(fullyQualifiedModuleName, globalSymbols(fileInput, packageName, pythonFile));
+  }
+
+  /**
+   * Adds symbols previously computed with {@link #globalSymbols(FileInput, String, PythonFile)}.
+   * Modules should be added in a stable order for the resulting table to be deterministic.
+   */
+  public void addModule(String fullyQualifiedModuleName, Set<Symbol> globalSymbols) {
+    globalSymbolsByModuleName.put(fullyQualifiedModuleName, globalSymbols);
+  }
+
+  /**
+   * Computes the global symbols exported by a module, without modifying any project level symbol table.
+   * It can be called concurrently for different files.
+   */
+  public static Set<Symbol> globalSymbols(FileInput fileInput, String packageName, PythonFile pythonFile) {
+    SymbolTableBuilder symbolTableBuilder = SymbolTableBuilder.declarationsOnly(packageName, pythonFile);
     String fullyQualifiedModuleName = SymbolUtils.fullyQualifiedModuleName(packageName, pythonFile.fileName());
     fileInput.accept(symbolTableBuilder);
     Set<Symbol> globalSymbols = new HashSet<>();
@@ -76,18 +93,25 @@ public class ProjectLevelSymbolTable {
         globalSymbols.add(new SymbolImpl(globalVariable.name(), fullyQualifiedModuleName + "." + globalVariable.name(), globalVariable.annotatedTypeName()));
       }
     }
-    globalSymbolsByModuleName.put(fullyQualifiedModuleName, globalSymbols);
+    return globalSymbols;
   }
 
   private Map<String, Symbol> globalSymbolsByFQN() {
-    if (globalSymbolsByFQN == null) {
-      globalSymbolsByFQN = globalSymbolsByModuleName.values()
-        .stream()
-        .flatMap(Collection::stream)
-        .filter(symbol -> symbol.fullyQualifiedName() != null)
-        .collect(Collectors.toMap(Symbol::fullyQualifiedName, Function.identity(), AmbiguousSymbolImpl::create));
+    Map<String, Symbol> symbolsByFQN = globalSymbolsByFQN;
+    if (symbolsByFQN == null) {
+      synchronized (this) {
+        symbolsByFQN = globalSymbolsByFQN;
+        if (symbolsByFQN == null) {
+          symbolsByFQN = globalSymbolsByModuleName.values()
+            .stream()
+            .flatMap(Collection::stream)
+            .filter(symbol -> symbol.fullyQualifiedName() != null)
+            .collect(Collectors.toMap(Symbol::fullyQualifiedName, Function.identity(), AmbiguousSymbolImpl::create));
+          globalSymbolsByFQN = symbolsByFQN;
+        }
+      }
     }
-    return globalSymbolsByFQN;
+    return symbolsByFQN;
   }
 
   @CheckForNull
@@ -44,7 +44,8 @@ public class SymbolImpl implements Symbol {
   private final String name;
   @Nullable
   String fullyQualifiedName;
-  private final List<Usage> usages = new ArrayList<>();
+  // symbols coming from typeshed can be shared by files analyzed concurrently
+  private final List<Usage> usages = Collections.synchronizedList(new ArrayList<>());
   private Map<String, Symbol> childrenSymbolByName = new HashMap<>();
   private Kind kind;
   private InferredType inferredType = InferredTypes.anyType();
@@ -121,7 +122,7 @@ public class SymbolImpl implements Symbol {
     ((SymbolImpl) symbol).addUsage(name, kind);
   }
 
-  void addChildSymbol(Symbol symbol) {
+  public void addChildSymbol(Symbol symbol) {
     childrenSymbolByName.put(symbol.name(), symbol);
   }
 
@@ -151,7 +152,7 @@ public class SymbolImpl implements Symbol {
     childrenSymbolByName.values().forEach(symbol -> ((SymbolImpl) symbol).removeUsages());
   }
 
-  Map<String, Symbol> getChildrenSymbolByName() {
+  public Map<String, Symbol> getChildrenSymbolByName() {
     return Collections.unmodifiableMap(childrenSymbolByName);
   }
 
@@ -84,6 +84,7 @@ import org.sonar.python.tree.LambdaExpressionImpl;
 import org.sonar.python.tree.TreeUtils;
 import org.sonar.python.types.InferredTypes;
 import org.sonar.python.types.TypeInference;
+import org.sonar.python.types.TypeInterner;
 import org.sonar.python.types.TypeShed;
 
 import static org.sonar.python.semantic.SymbolUtils.boundNamesFromExpression;
@@ -99,6 +100,7 @@ public class SymbolTableBuilder extends BaseTreeVisitor {
   private FileInput fileInput = null;
   private Set<Tree> assignmentLeftHandSides = new HashSet<>();
   private final PythonFile pythonFile;
+  private boolean declarationsOnly = false;
   private static final List<String> BASE_MODULES = Arrays.asList("", "typing", "typing_extensions");
 
   public SymbolTableBuilder(PythonFile pythonFile) {
@@ -123,16 +125,29 @@ public class SymbolTableBuilder extends BaseTreeVisitor {
     this.projectLevelSymbolTable = projectLevelSymbolTable;
   }
 
+  /**
+   * Only computes what is needed to export the global symbols of a module: types are not inferred
+   * and usages of class members are not recorded.
+   */
+  static SymbolTableBuilder declarationsOnly(String packageName, PythonFile pythonFile) {
+    SymbolTableBuilder symbolTableBuilder = new SymbolTableBuilder(packageName, pythonFile);
+    symbolTableBuilder.declarationsOnly = true;
+    return symbolTableBuilder;
+  }
+
   @Override
   public void visitFileInput(FileInput fileInput) {
     this.fileInput = fileInput;
     scopesByRootTree = new HashMap<>();
-    fileInput.accept(new FirstPhaseVisitor());
+    FirstPhaseVisitor firstPhaseVisitor = new FirstPhaseVisitor();
+    fileInput.accept(firstPhaseVisitor);
+    firstPhaseVisitor.importedModulesFQN.forEach(((FileInputImpl) fileInput)::addImportedModuleFQN);
     fileInput.accept(new SecondPhaseVisitor());
     createAmbiguousSymbols();
     addSymbolsToTree((FileInputImpl) fileInput);
     fileInput.accept(new ThirdPhaseVisitor());
-    if (!isTypeShedFile(pythonFile)) {
+    if (!isTypeShedFile(pythonFile) && !declarationsOnly) {
+      TypeInterner.reset();
       TypeInference.inferTypes(fileInput, pythonFile);
     }
   }
@@ -268,6 +283,8 @@ public class SymbolTableBuilder extends BaseTreeVisitor {
 
   private class FirstPhaseVisitor extends ScopeVisitor {
 
+    private final Set<String> importedModulesFQN = new HashSet<>();
+
     @Override
     public void visitFileInput(FileInput tree) {
       createScope(tree, null);
@@ -363,6 +380,7 @@ public class SymbolTableBuilder extends BaseTreeVisitor {
         ? moduleTree.names().stream().map(Name::name).collect(Collectors.joining("."))
         : null;
       if (importFrom.isWildcardImport()) {
+        addImportedModule(moduleName);
         Set<Symbol> importedModuleSymbols = projectLevelSymbolTable.getSymbolsFromModule(moduleName);
         if (importedModuleSymbols == null && moduleName != null && !moduleName.equals(fullyQualifiedModuleName)) {
           importedModuleSymbols = TypeShed.symbolsForModule(moduleName);
@@ -391,6 +409,12 @@ public class SymbolTableBuilder extends BaseTreeVisitor {
           targetModuleName = resolveFullyQualifiedNameBasedOnRelativeImport(dottedPrefix, targetModuleName);
         }
         Name alias = module.alias();
+        if (fromModuleName == null && dottedPrefix.isEmpty()) {
+          addImportedModule(module.dottedName().names().stream().map(Name::name).collect(Collectors.joining(".")));
+        } else {
+          addImportedModule(targetModuleName);
+          addImportedModule(fullyQualifiedName);
+        }
         if (targetModuleName != null) {
           currentScope().addImportedSymbol(alias == null ? nameTree : alias, fullyQualifiedName, targetModuleName);
         } else if (alias != null) {
@@ -403,6 +427,18 @@ public class SymbolTableBuilder extends BaseTreeVisitor {
       });
     }
 
+    private void addImportedModule(@Nullable String moduleFQN) {
+      if (moduleFQN == null || moduleFQN.isEmpty()) {
+        return;
+      }
+      int index = moduleFQN.indexOf('.');
+      while (index != -1) {
+        importedModulesFQN.add(moduleFQN.substring(0, index));
+        index = moduleFQN.indexOf('.', index + 1);
+      }
+      importedModulesFQN.add(moduleFQN);
+    }
+
     @CheckForNull
     private String resolveFullyQualifiedNameBasedOnRelativeImport(List<Token> dottedPrefix, @Nullable String moduleName) {
       if (filePath == null || dottedPrefix.size() > filePath.size()) {
@@ -702,6 +738,9 @@ public class SymbolTableBuilder extends BaseTreeVisitor {
     @Override
     public void visitQualifiedExpression(QualifiedExpression qualifiedExpression) {
       super.visitQualifiedExpression(qualifiedExpression);
+      if (declarationsOnly) {
+        return;
+      }
       TreeUtils.getSymbolFromTree(qualifiedExpression.qualifier())
         .filter(symbol -> symbol.kind() == Symbol.Kind.CLASS)
         .map(ClassSymbol.class::cast)
@@ -41,6 +41,7 @@ public class FileInputImpl extends PyTree implements FileInput {
   private final Token endOfFile;
   private final StringLiteral docstring;
   private final Set<Symbol> globalVariables = new HashSet<>();
+  private final Set<String> importedModulesFQN = new HashSet<>();
 
   public FileInputImpl(@Nullable StatementList statements, Token endOfFile, @Nullable StringLiteral docstring) {
     this.statements = statements;
@@ -74,6 +75,18 @@ public class FileInputImpl extends PyTree implements FileInput {
     globalVariables.add(globalVariable);
   }
 
+  /**
+   * Fully qualified names of the modules this file may import, including the parent packages of imported modules
+   * and the imported names of "from" imports (which can themselves be modules).
+   */
+  public Set<String> importedModulesFQN() {
+    return importedModulesFQN;
+  }
+
+  public void addImportedModuleFQN(String moduleFQN) {
+    importedModulesFQN.add(moduleFQN);
+  }
+
   @Override
   public void accept(TreeVisitor visitor) {
     visitor.visitFileInput(this);
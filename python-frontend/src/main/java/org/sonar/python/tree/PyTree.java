@@ -19,15 +19,27 @@
  */
 package org.sonar.python.tree;
 
+import java.util.Collection;
+import java.util.EnumSet;
 import java.util.List;
 import org.sonar.plugins.python.api.tree.Token;
 import org.sonar.plugins.python.api.tree.Tree;
 
 public abstract class PyTree implements Tree {
+  private static final int KINDS_MASK_LENGTH = (Kind.values().length + 63) / 64;
+  private static final long[][] SINGLE_KIND_MASKS = new long[Kind.values().length][];
+
+  static {
+    for (Kind kind : Kind.values()) {
+      SINGLE_KIND_MASKS[kind.ordinal()] = kindsMask(EnumSet.of(kind));
+    }
+  }
+
   protected Token firstToken;
   protected Token lastToken;
   private List<Tree> childs;
   private Tree parent = null;
+  private long[] subtreeKinds = null;
 
   protected PyTree() {
   }
@@ -81,6 +93,54 @@ public abstract class PyTree implements Tree {
     this.parent = parent;
   }
 
+  /**
+   * Bit mask of the given kinds, indexed by their ordinal, to be passed to {@link #subtreeContainsAnyKind(long[])}.
+   */
+  public static long[] kindsMask(Collection<Kind> kinds) {
+    long[] mask = new long[KINDS_MASK_LENGTH];
+    for (Kind kind : kinds) {
+      mask[kind.ordinal() >> 6] |= 1L << kind.ordinal();
+    }
+    return mask;
+  }
+
+  /**
+   * Returns false when neither this tree nor any of its descendants has one of the kinds of the mask, so that visitors
+   * can skip the whole subtree. Trees whose parents were not set by {@link PythonTreeMaker} conservatively return true.
+   */
+  public boolean subtreeContainsAnyKind(long[] kindsMask) {
+    if (subtreeKinds == null) {
+      return true;
+    }
+    for (int i = 0; i < subtreeKinds.length; i++) {
+      if ((subtreeKinds[i] & kindsMask[i]) != 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Computes the kinds of this subtree from the ones of the children, which must have been computed before.
+   * Leaves, most of which are tokens, share the mask of their kind.
+   */
+  void computeSubtreeKinds() {
+    long[] kinds = SINGLE_KIND_MASKS[getKind().ordinal()];
+    List<Tree> children = children();
+    if (!children.isEmpty()) {
+      kinds = kinds.clone();
+      for (Tree child : children) {
+        if (child != null) {
+          long[] childKinds = ((PyTree) child).subtreeKinds;
+          for (int i = 0; i < kinds.length; i++) {
+            kinds[i] |= childKinds[i];
+          }
+        }
+      }
+    }
+    subtreeKinds = kinds;
+  }
+
   abstract List<Tree> computeChildren();
 
   public List<Tree> children() {
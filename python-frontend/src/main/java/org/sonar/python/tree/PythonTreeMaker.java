@@ -97,13 +97,40 @@ import org.sonar.python.parser.FStringParser;
 
 public class PythonTreeMaker {
 
-  private static final FStringParser F_STRING_PARSER = new FStringParser();
+  private static final ThreadLocal<FStringParser> F_STRING_PARSER = ThreadLocal.withInitial(FStringParser::new);
 
 
   public FileInput fileInput(AstNode astNode) {
     List<Statement> statements = getStatements(astNode).stream().map(this::statement).collect(Collectors.toList());
-    StatementListImpl statementList = statements.isEmpty() ? null : new StatementListImpl(statements);
     Token endOfFile = toPyToken(astNode.getFirstChild(GenericTokenType.EOF).getToken());
+    return fileInput(statements, endOfFile);
+  }
+
+  /**
+   * Same as {@link #fileInput(AstNode)}, except that each top-level statement is detached from the given FILE_INPUT node as soon
+   * as it is converted. The SSLR nodes of the converted statements can then be garbage collected while the rest of the file is
+   * converted, instead of both trees being entirely in memory at the same time. The given node must not be used afterwards.
+   */
+  public FileInput consumeFileInput(AstNode astNode) {
+    Token endOfFile = toPyToken(astNode.getFirstChild(GenericTokenType.EOF).getToken());
+    List<AstNode> children = astNode.getChildren();
+    AstNode[] topLevelNodes = children.toArray(new AstNode[0]);
+    children.clear();
+    List<Statement> statements = new ArrayList<>();
+    for (int i = 0; i < topLevelNodes.length; i++) {
+      AstNode topLevelNode = topLevelNodes[i];
+      topLevelNodes[i] = null;
+      if (topLevelNode.is(PythonGrammar.STATEMENT)) {
+        for (StatementWithSeparator statementWithSeparator : getStatementsWithSeparatorsOf(topLevelNode)) {
+          statements.add(statement(statementWithSeparator));
+        }
+      }
+    }
+    return fileInput(statements, endOfFile);
+  }
+
+  private FileInput fileInput(List<Statement> statements, Token endOfFile) {
+    StatementListImpl statementList = statements.isEmpty() ? null : new StatementListImpl(statements);
     FileInputImpl pyFileInputTree = new FileInputImpl(statementList, endOfFile, DocstringExtractor.extractDocstring(statementList));
     setParents(pyFileInputTree);
     return pyFileInputTree;
@@ -127,6 +154,7 @@ public class PythonTreeMaker {
         setParents(child);
       }
     }
+    ((PyTree) root).computeSubtreeKinds();
   }
 
   private Statement statement(StatementWithSeparator statementWithSeparator) {
@@ -251,17 +279,18 @@ public class PythonTreeMaker {
     List<AstNode> statements = astNode.getChildren(PythonGrammar.STATEMENT);
     List<StatementWithSeparator> statementsWithSeparators = new ArrayList<>();
     for (AstNode stmt : statements) {
-      if (stmt.hasDirectChildren(PythonGrammar.STMT_LIST)) {
-        List<StatementWithSeparator> statementList = getStatementsWithSeparators(stmt);
-        statementsWithSeparators.addAll(statementList);
-      } else {
-        StatementWithSeparator compoundStmt = new StatementWithSeparator(stmt.getFirstChild(PythonGrammar.COMPOUND_STMT).getFirstChild(), null);
-        statementsWithSeparators.add(compoundStmt);
-      }
+      statementsWithSeparators.addAll(getStatementsWithSeparatorsOf(stmt));
     }
     return statementsWithSeparators;
   }
 
+  private static List<StatementWithSeparator> getStatementsWithSeparatorsOf(AstNode stmt) {
+    if (stmt.hasDirectChildren(PythonGrammar.STMT_LIST)) {
+      return getStatementsWithSeparators(stmt);
+    }
+    return Collections.singletonList(new StatementWithSeparator(stmt.getFirstChild(PythonGrammar.COMPOUND_STMT).getFirstChild(), null));
+  }
+
   private static List<StatementWithSeparator> getStatementsWithSeparators(AstNode stmt) {
     List<StatementWithSeparator> statementsWithSeparators = new ArrayList<>();
     AstNode stmtListNode = stmt.getFirstChild(PythonGrammar.STMT_LIST);
@@ -1284,7 +1313,7 @@ public class PythonTreeMaker {
       com.sonar.sslr.api.Token token = elementNode.getToken();
       StringElementImpl element = new StringElementImpl(toPyToken(token));
       if (element.isInterpolated()) {
-        F_STRING_PARSER.fStringExpressions(token).forEach(
+        F_STRING_PARSER.get().fStringExpressions(token).forEach(
           expressionNode -> element.addFormattedExpression(formattedExpression(expressionNode))
         );
       }
@@ -23,6 +23,9 @@ import java.util.List;
 import java.util.Objects;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonar.plugins.python.api.cfg.ControlFlowGraph;
 import org.sonar.plugins.python.api.tree.Statement;
 import org.sonar.plugins.python.api.tree.StatementList;
 import org.sonar.plugins.python.api.tree.Tree;
@@ -31,6 +34,8 @@ import org.sonar.plugins.python.api.tree.TreeVisitor;
 public class StatementListImpl extends PyTree implements StatementList {
 
   private List<Statement> statements;
+  private boolean hasControlFlowGraph = false;
+  private ControlFlowGraph controlFlowGraph = null;
 
   public StatementListImpl(List<Statement> statements) {
     this.statements = statements;
@@ -41,6 +46,23 @@ public class StatementListImpl extends PyTree implements StatementList {
     return statements;
   }
 
+  /**
+   * Whether {@link ControlFlowGraph#build} was already called for these statements, whatever its outcome.
+   */
+  public boolean hasControlFlowGraph() {
+    return hasControlFlowGraph;
+  }
+
+  @CheckForNull
+  public ControlFlowGraph controlFlowGraph() {
+    return controlFlowGraph;
+  }
+
+  public void setControlFlowGraph(@Nullable ControlFlowGraph controlFlowGraph) {
+    this.controlFlowGraph = controlFlowGraph;
+    this.hasControlFlowGraph = true;
+  }
+
   @Override
   public void accept(TreeVisitor visitor) {
     visitor.visitStatementList(this);
@@ -30,27 +30,39 @@ import org.sonar.plugins.python.api.tree.Trivia;
 
 public class TokenImpl extends PyTree implements Token {
 
-  private com.sonar.sslr.api.Token token;
-  private List<Trivia> trivia;
+  private final String value;
+  private final int line;
+  private final int column;
+  private final TokenType type;
+  private final List<Trivia> trivia;
 
+  /**
+   * Only the fields of the SSLR token which are needed by the tree are copied: the SSLR token is not retained.
+   */
   public TokenImpl(com.sonar.sslr.api.Token token) {
-    this.token = token;
-    this.trivia = token.getTrivia().stream().map(tr -> new TriviaImpl(new TokenImpl(tr.getToken()))).collect(Collectors.toList());
+    this.value = token.getValue();
+    this.line = token.getLine();
+    this.column = token.getColumn();
+    this.type = token.getType();
+    List<com.sonar.sslr.api.Trivia> tokenTrivia = token.getTrivia();
+    this.trivia = tokenTrivia.isEmpty()
+      ? Collections.emptyList()
+      : tokenTrivia.stream().map(tr -> new TriviaImpl(new TokenImpl(tr.getToken()))).collect(Collectors.toList());
   }
 
   @Override
   public String value() {
-    return token.getValue();
+    return value;
   }
 
   @Override
   public int line() {
-    return token.getLine();
+    return line;
   }
 
   @Override
   public int column() {
-    return token.getColumn();
+    return column;
   }
 
   @Override
@@ -59,7 +71,7 @@ public class TokenImpl extends PyTree implements Token {
   }
 
   public TokenType type() {
-    return token.getType();
+    return type;
   }
 
   @Override
@@ -152,6 +152,10 @@ public class DeclaredType implements InferredType {
     return typeClass;
   }
 
+  List<DeclaredType> typeArgs() {
+    return typeArgs;
+  }
+
   public Set<Symbol> alternativeTypeSymbols() {
     return alternativeTypeSymbols;
   }
@@ -178,7 +182,7 @@ public class DeclaredType implements InferredType {
   public static InferredType fromInferredType(InferredType inferredType) {
     if (inferredType instanceof RuntimeType) {
       ClassSymbol typeClass = ((RuntimeType) inferredType).getTypeClass();
-      return new DeclaredType(typeClass);
+      return TypeInterner.declaredType(typeClass);
     }
     if (inferredType instanceof DeclaredType) {
       return inferredType;
@@ -119,7 +119,7 @@ public class InferredTypes {
 
   public static InferredType runtimeType(@Nullable Symbol typeClass) {
     if (typeClass instanceof ClassSymbol) {
-      return new RuntimeType((ClassSymbol) typeClass);
+      return TypeInterner.runtimeType((ClassSymbol) typeClass);
     }
     if (typeClass instanceof AmbiguousSymbol) {
       return union(((AmbiguousSymbol) typeClass).alternatives().stream().map(InferredTypes::runtimeType));
@@ -159,7 +159,7 @@ public class InferredTypes {
       Symbol symbol = ((Name) expression).symbol();
       if (symbol != null) {
         String builtinFqn = ALIASED_ANNOTATIONS.get(symbol.fullyQualifiedName());
-        return builtinFqn != null ? new DeclaredType(builtinSymbols.get(builtinFqn)) : new DeclaredType(symbol);
+        return TypeInterner.declaredType(builtinFqn != null ? builtinSymbols.get(builtinFqn) : symbol);
       }
     }
     if (expression.is(Kind.SUBSCRIPTION)) {
@@ -178,7 +178,7 @@ public class InferredTypes {
         .orElse(null);
     }
     if (expression.is(Kind.NONE)) {
-      return new DeclaredType(builtinSymbols.get(BuiltinTypes.NONE_TYPE));
+      return TypeInterner.declaredType(builtinSymbols.get(BuiltinTypes.NONE_TYPE));
     }
     return null;
   }
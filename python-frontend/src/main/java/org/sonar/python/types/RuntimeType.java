@@ -33,6 +33,7 @@ class RuntimeType implements InferredType {
   private final ClassSymbol typeClass;
   private Set<String> typeClassSuperClassesFQN = null;
   private Set<String> typeClassMembersFQN = null;
+  private int hashCode = 0;
 
   RuntimeType(ClassSymbol typeClass) {
     this.typeClass = typeClass;
@@ -99,6 +100,7 @@ class RuntimeType implements InferredType {
     RuntimeType that = (RuntimeType) o;
     return Objects.equals(typeClass.name(), that.typeClass.name()) &&
       Objects.equals(typeClass.fullyQualifiedName(), that.typeClass.fullyQualifiedName())
+      && hashCode() == that.hashCode()
       && Objects.equals(typeClassSuperClassesFQN(), that.typeClassSuperClassesFQN())
       && Objects.equals(typeClassMembersFQN(), that.typeClassMembersFQN());
   }
@@ -123,7 +125,10 @@ class RuntimeType implements InferredType {
 
   @Override
   public int hashCode() {
-    return Objects.hash(typeClass.name(), typeClass.fullyQualifiedName(), typeClassSuperClassesFQN(), typeClassMembersFQN());
+    if (hashCode == 0) {
+      hashCode = Objects.hash(typeClass.name(), typeClass.fullyQualifiedName(), typeClassSuperClassesFQN(), typeClassMembersFQN());
+    }
+    return hashCode;
   }
 
   @Override
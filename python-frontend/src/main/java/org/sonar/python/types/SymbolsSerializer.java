@@ -0,0 +1,447 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python.types;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonar.plugins.python.api.LocationInFile;
+import org.sonar.plugins.python.api.symbols.AmbiguousSymbol;
+import org.sonar.plugins.python.api.symbols.ClassSymbol;
+import org.sonar.plugins.python.api.symbols.FunctionSymbol;
+import org.sonar.plugins.python.api.symbols.Symbol;
+import org.sonar.plugins.python.api.types.InferredType;
+import org.sonar.python.semantic.AmbiguousSymbolImpl;
+import org.sonar.python.semantic.ClassSymbolImpl;
+import org.sonar.python.semantic.FunctionSymbolImpl;
+import org.sonar.python.semantic.SymbolImpl;
+
+/**
+ * Binary representation of the global symbols of a module, allowing them to be reused by a later analysis.
+ * Each symbol is written once and then referenced by its index, so that cycles (e.g. a method parameter annotated
+ * with its own class) and shared symbols are preserved. Typeshed classes and functions are not written: they are
+ * referenced by fully qualified name, and resolved again when reading.
+ * <p>
+ * Sets of symbols and of types are written in a stable order, so that equal symbols always have the same binary
+ * representation, whatever the iteration order of their sets.
+ */
+public class SymbolsSerializer {
+
+  /**
+   * To be changed whenever the binary representation changes, so that previously written symbols are discarded.
+   */
+  public static final int FORMAT_VERSION = 1;
+
+  private static final byte NEW_SYMBOL = 0;
+  private static final byte REFERENCE = 1;
+  private static final byte TYPESHED_SYMBOL = 2;
+
+  private static final byte ANY_TYPE = 0;
+  private static final byte RUNTIME_TYPE = 1;
+  private static final byte DECLARED_TYPE = 2;
+  private static final byte UNION_TYPE = 3;
+
+  private SymbolsSerializer() {
+  }
+
+  public static byte[] serialize(Collection<Symbol> symbols) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      new Writer(out).writeSymbols(symbols);
+    } catch (IOException e) {
+      // not expected when writing in memory
+      throw new IllegalStateException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * @throws IOException when the given bytes are not a valid representation of symbols, or refer to unknown typeshed symbols
+   */
+  public static Set<Symbol> deserialize(byte[] bytes) throws IOException {
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+      return new HashSet<>(new Reader(in).readSymbols());
+    }
+  }
+
+  @CheckForNull
+  private static Symbol typeshedSymbol(String fullyQualifiedName) {
+    Symbol builtinSymbol = TypeShed.builtinSymbols().get(fullyQualifiedName);
+    if (builtinSymbol != null || !fullyQualifiedName.contains(".")) {
+      return builtinSymbol;
+    }
+    String moduleName = fullyQualifiedName.substring(0, fullyQualifiedName.lastIndexOf('.'));
+    return TypeShed.symbolWithFQN(moduleName, fullyQualifiedName);
+  }
+
+  private static class Writer {
+
+    private static final Comparator<Symbol> SYMBOL_ORDER = Comparator.comparing(Writer::symbolKey);
+    private static final Comparator<InferredType> TYPE_ORDER = Comparator.comparing(Writer::typeKey);
+
+    private final DataOutputStream out;
+    private final Map<Symbol, Integer> ids = new IdentityHashMap<>();
+
+    private Writer(DataOutputStream out) {
+      this.out = out;
+    }
+
+    /**
+     * Lists (e.g. super classes) are written in their order, other collections in {@link #SYMBOL_ORDER}.
+     */
+    private void writeSymbols(Collection<? extends Symbol> symbols) throws IOException {
+      out.writeInt(symbols.size());
+      Collection<? extends Symbol> orderedSymbols = symbols instanceof List ? symbols : symbols.stream().sorted(SYMBOL_ORDER).collect(Collectors.toList());
+      for (Symbol symbol : orderedSymbols) {
+        writeSymbol(symbol);
+      }
+    }
+
+    /**
+     * Symbols of a same set having the same key are the same declaration (e.g. alternatives of an ambiguous symbol are
+     * functions or classes with different definition locations).
+     */
+    private static String symbolKey(Symbol symbol) {
+      StringBuilder key = new StringBuilder().append(symbol.kind().ordinal()).append(' ').append(symbol.name()).append(' ').append(symbol.fullyQualifiedName());
+      LocationInFile location = null;
+      if (symbol.is(Symbol.Kind.CLASS)) {
+        location = ((ClassSymbol) symbol).definitionLocation();
+      } else if (symbol.is(Symbol.Kind.FUNCTION)) {
+        location = ((FunctionSymbol) symbol).definitionLocation();
+      }
+      if (location != null) {
+        key.append(' ').append(location.fileId()).append(':').append(location.startLine()).append(':').append(location.startLineOffset());
+      }
+      return key.toString();
+    }
+
+    private static String typeKey(InferredType type) {
+      if (type instanceof RuntimeType) {
+        return "R(" + symbolKey(((RuntimeType) type).getTypeClass()) + ")";
+      } else if (type instanceof DeclaredType) {
+        DeclaredType declaredType = (DeclaredType) type;
+        return "D(" + symbolKey(declaredType.getTypeClass()) + declaredType.typeArgs().stream().map(Writer::typeKey).collect(Collectors.joining(",", "[", "]")) + ")";
+      } else if (type instanceof UnionType) {
+        return ((UnionType) type).types().stream().map(Writer::typeKey).sorted().collect(Collectors.joining(",", "U(", ")"));
+      }
+      return "A";
+    }
+
+    private void writeSymbol(Symbol symbol) throws IOException {
+      Integer id = ids.get(symbol);
+      if (id != null) {
+        out.writeByte(REFERENCE);
+        out.writeInt(id);
+        return;
+      }
+      if (isTypeshedSymbol(symbol)) {
+        out.writeByte(TYPESHED_SYMBOL);
+        out.writeUTF(symbol.fullyQualifiedName());
+        return;
+      }
+      ids.put(symbol, ids.size());
+      out.writeByte(NEW_SYMBOL);
+      out.writeByte(symbol.kind().ordinal());
+      out.writeUTF(symbol.name());
+      writeNullableString(symbol.fullyQualifiedName());
+      switch (symbol.kind()) {
+        case CLASS:
+          writeClass((ClassSymbolImpl) symbol);
+          break;
+        case FUNCTION:
+          writeFunction((FunctionSymbolImpl) symbol);
+          break;
+        case AMBIGUOUS:
+          writeSymbols(((AmbiguousSymbol) symbol).alternatives());
+          break;
+        default:
+          writeNullableString(symbol.annotatedTypeName());
+      }
+    }
+
+    /**
+     * Typeshed symbols can be copied (e.g. super classes of project classes): copies are replaced by the original symbols.
+     */
+    private static boolean isTypeshedSymbol(Symbol symbol) {
+      String fullyQualifiedName = symbol.fullyQualifiedName();
+      if (fullyQualifiedName == null) {
+        return false;
+      }
+      boolean isStub = (symbol.is(Symbol.Kind.CLASS) && ((ClassSymbol) symbol).definitionLocation() == null)
+        || (symbol.is(Symbol.Kind.FUNCTION) && ((FunctionSymbol) symbol).isStub());
+      if (!isStub) {
+        return false;
+      }
+      Symbol typeshedSymbol = typeshedSymbol(fullyQualifiedName);
+      return typeshedSymbol != null && typeshedSymbol.kind() == symbol.kind();
+    }
+
+    private void writeClass(ClassSymbolImpl classSymbol) throws IOException {
+      writeLocation(classSymbol.definitionLocation());
+      out.writeBoolean(classSymbol.hasDecorators());
+      out.writeBoolean(classSymbol.hasMetaClass());
+      writeNullableString(classSymbol.metaclassFQN());
+      out.writeBoolean(classSymbol.hasSuperClassWithoutSymbol());
+      writeSymbols(classSymbol.superClasses());
+      writeSymbols(classSymbol.declaredMembers());
+    }
+
+    private void writeFunction(FunctionSymbolImpl functionSymbol) throws IOException {
+      writeLocation(functionSymbol.definitionLocation());
+      out.writeBoolean(functionSymbol.isInstanceMethod());
+      out.writeBoolean(functionSymbol.isAsynchronous());
+      out.writeInt(functionSymbol.decorators().size());
+      for (String decorator : functionSymbol.decorators()) {
+        out.writeUTF(decorator);
+      }
+      out.writeBoolean(functionSymbol.hasVariadicParameter());
+      writeNullableString(functionSymbol.annotatedReturnTypeName());
+      out.writeBoolean(functionSymbol.isStub());
+      writeType(functionSymbol.declaredReturnType());
+      out.writeInt(functionSymbol.parameters().size());
+      for (FunctionSymbol.Parameter parameter : functionSymbol.parameters()) {
+        writeNullableString(parameter.name());
+        writeType(parameter.declaredType());
+        out.writeBoolean(parameter.hasDefaultValue());
+        out.writeBoolean(parameter.isVariadic());
+        out.writeBoolean(parameter.isKeywordOnly());
+        out.writeBoolean(parameter.isPositionalOnly());
+        writeLocation(parameter.location());
+      }
+    }
+
+    private void writeType(InferredType type) throws IOException {
+      if (type instanceof RuntimeType) {
+        out.writeByte(RUNTIME_TYPE);
+        writeSymbol(((RuntimeType) type).getTypeClass());
+      } else if (type instanceof DeclaredType) {
+        DeclaredType declaredType = (DeclaredType) type;
+        out.writeByte(DECLARED_TYPE);
+        writeSymbol(declaredType.getTypeClass());
+        out.writeInt(declaredType.typeArgs().size());
+        for (DeclaredType typeArg : declaredType.typeArgs()) {
+          writeType(typeArg);
+        }
+      } else if (type instanceof UnionType) {
+        Set<InferredType> types = ((UnionType) type).types();
+        out.writeByte(UNION_TYPE);
+        out.writeInt(types.size());
+        for (InferredType alternative : types.stream().sorted(TYPE_ORDER).collect(Collectors.toList())) {
+          writeType(alternative);
+        }
+      } else {
+        out.writeByte(ANY_TYPE);
+      }
+    }
+
+    private void writeLocation(@Nullable LocationInFile location) throws IOException {
+      out.writeBoolean(location != null);
+      if (location != null) {
+        out.writeUTF(location.fileId());
+        out.writeInt(location.startLine());
+        out.writeInt(location.startLineOffset());
+        out.writeInt(location.endLine());
+        out.writeInt(location.endLineOffset());
+      }
+    }
+
+    private void writeNullableString(@Nullable String string) throws IOException {
+      out.writeBoolean(string != null);
+      if (string != null) {
+        out.writeUTF(string);
+      }
+    }
+  }
+
+  private static class Reader {
+
+    private final DataInputStream in;
+    // symbols are registered as soon as they are created, before their content is read, so that they can be referenced by it
+    private final List<Symbol> symbolsById = new ArrayList<>();
+
+    private Reader(DataInputStream in) {
+      this.in = in;
+    }
+
+    private List<Symbol> readSymbols() throws IOException {
+      int size = in.readInt();
+      List<Symbol> symbols = new ArrayList<>();
+      for (int i = 0; i < size; i++) {
+        symbols.add(readSymbol());
+      }
+      return symbols;
+    }
+
+    private Symbol readSymbol() throws IOException {
+      byte tag = in.readByte();
+      if (tag == REFERENCE) {
+        int id = in.readInt();
+        if (id < 0 || id >= symbolsById.size()) {
+          throw new IOException("Invalid symbol reference: " + id);
+        }
+        return symbolsById.get(id);
+      }
+      if (tag == TYPESHED_SYMBOL) {
+        String fullyQualifiedName = in.readUTF();
+        Symbol symbol = typeshedSymbol(fullyQualifiedName);
+        if (symbol == null) {
+          throw new IOException("Unknown typeshed symbol: " + fullyQualifiedName);
+        }
+        return symbol;
+      }
+      if (tag != NEW_SYMBOL) {
+        throw new IOException("Invalid symbol tag: " + tag);
+      }
+      int kindOrdinal = in.readByte();
+      if (kindOrdinal < 0 || kindOrdinal >= Symbol.Kind.values().length) {
+        throw new IOException("Invalid symbol kind: " + kindOrdinal);
+      }
+      Symbol.Kind kind = Symbol.Kind.values()[kindOrdinal];
+      String name = in.readUTF();
+      String fullyQualifiedName = readNullableString();
+      switch (kind) {
+        case CLASS:
+          return readClass(name, fullyQualifiedName);
+        case FUNCTION:
+          return readFunction(name, fullyQualifiedName);
+        case AMBIGUOUS:
+          Set<Symbol> alternatives = new HashSet<>();
+          Symbol ambiguousSymbol = register(new AmbiguousSymbolImpl(name, fullyQualifiedName, alternatives));
+          alternatives.addAll(readSymbols());
+          return ambiguousSymbol;
+        default:
+          SymbolImpl symbol = new SymbolImpl(name, fullyQualifiedName, readNullableString());
+          symbol.setKind(kind);
+          return register(symbol);
+      }
+    }
+
+    private Symbol readClass(String name, @Nullable String fullyQualifiedName) throws IOException {
+      LocationInFile definitionLocation = readLocation();
+      boolean hasDecorators = in.readBoolean();
+      boolean hasMetaClass = in.readBoolean();
+      String metaclassFQN = readNullableString();
+      boolean hasSuperClassWithoutSymbol = in.readBoolean();
+      ClassSymbolImpl classSymbol = new ClassSymbolImpl(name, fullyQualifiedName, definitionLocation, hasDecorators, hasMetaClass, metaclassFQN);
+      register(classSymbol);
+      if (hasSuperClassWithoutSymbol) {
+        classSymbol.setHasSuperClassWithoutSymbol();
+      }
+      for (Symbol superClass : readSymbols()) {
+        classSymbol.addSuperClass(superClass);
+      }
+      classSymbol.addMembers(readSymbols());
+      return classSymbol;
+    }
+
+    private Symbol readFunction(String name, @Nullable String fullyQualifiedName) throws IOException {
+      LocationInFile definitionLocation = readLocation();
+      boolean isInstanceMethod = in.readBoolean();
+      boolean isAsynchronous = in.readBoolean();
+      int numberOfDecorators = in.readInt();
+      List<String> decorators = new ArrayList<>();
+      for (int i = 0; i < numberOfDecorators; i++) {
+        decorators.add(in.readUTF());
+      }
+      boolean hasVariadicParameter = in.readBoolean();
+      String annotatedReturnTypeName = readNullableString();
+      boolean isStub = in.readBoolean();
+      FunctionSymbolImpl functionSymbol = new FunctionSymbolImpl(name, fullyQualifiedName, definitionLocation, isInstanceMethod, isAsynchronous,
+        decorators, hasVariadicParameter, annotatedReturnTypeName, isStub);
+      register(functionSymbol);
+      functionSymbol.setDeclaredReturnType(readType());
+      int numberOfParameters = in.readInt();
+      List<FunctionSymbol.Parameter> parameters = new ArrayList<>();
+      for (int i = 0; i < numberOfParameters; i++) {
+        String parameterName = readNullableString();
+        InferredType declaredType = readType();
+        boolean hasDefaultValue = in.readBoolean();
+        boolean isVariadic = in.readBoolean();
+        boolean isKeywordOnly = in.readBoolean();
+        boolean isPositionalOnly = in.readBoolean();
+        parameters.add(new FunctionSymbolImpl.ParameterImpl(parameterName, declaredType, hasDefaultValue, isVariadic, isKeywordOnly, isPositionalOnly, readLocation()));
+      }
+      functionSymbol.addParameters(parameters);
+      return functionSymbol;
+    }
+
+    private InferredType readType() throws IOException {
+      byte tag = in.readByte();
+      switch (tag) {
+        case ANY_TYPE:
+          return InferredTypes.anyType();
+        case RUNTIME_TYPE:
+          return InferredTypes.runtimeType(readSymbol());
+        case DECLARED_TYPE:
+          Symbol typeClass = readSymbol();
+          int numberOfTypeArgs = in.readInt();
+          List<DeclaredType> typeArgs = new ArrayList<>();
+          for (int i = 0; i < numberOfTypeArgs; i++) {
+            InferredType typeArg = readType();
+            if (!(typeArg instanceof DeclaredType)) {
+              throw new IOException("Invalid type argument: " + typeArg);
+            }
+            typeArgs.add((DeclaredType) typeArg);
+          }
+          return new DeclaredType(typeClass, typeArgs);
+        case UNION_TYPE:
+          int numberOfTypes = in.readInt();
+          List<InferredType> types = new ArrayList<>();
+          for (int i = 0; i < numberOfTypes; i++) {
+            types.add(readType());
+          }
+          return InferredTypes.union(types.stream());
+        default:
+          throw new IOException("Invalid type tag: " + tag);
+      }
+    }
+
+    @CheckForNull
+    private LocationInFile readLocation() throws IOException {
+      if (!in.readBoolean()) {
+        return null;
+      }
+      return new LocationInFile(in.readUTF(), in.readInt(), in.readInt(), in.readInt(), in.readInt());
+    }
+
+    @CheckForNull
+    private String readNullableString() throws IOException {
+      return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private Symbol register(Symbol symbol) {
+      symbolsById.add(symbol);
+      return symbol;
+    }
+  }
+}
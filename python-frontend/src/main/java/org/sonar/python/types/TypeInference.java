@@ -47,6 +47,7 @@ import org.sonar.plugins.python.api.tree.QualifiedExpression;
 import org.sonar.plugins.python.api.tree.Tree;
 import org.sonar.plugins.python.api.tree.TryStatement;
 import org.sonar.plugins.python.api.types.InferredType;
+import org.sonar.python.FileAnalysisBudget;
 import org.sonar.python.semantic.SymbolImpl;
 import org.sonar.python.tree.FunctionDefImpl;
 import org.sonar.python.tree.NameImpl;
@@ -57,6 +58,7 @@ public class TypeInference extends BaseTreeVisitor {
   // The super() builtin is not specified precisely in typeshed.
   // It should return a proxy object (temporary object of the superclass) that allows to access methods of the base class
   // https://docs.python.org/3/library/functions.html#super
+  private static final ThreadLocal<long[]> INFERENCE_NANOS = ThreadLocal.withInitial(() -> new long[1]);
   private static final InferredType TYPE_OF_SUPER = InferredTypes.runtimeType(TypeShed.typeShedClass("super"));
 
   private final Map<Symbol, Set<Assignment>> assignmentsByLhs = new HashMap<>();
@@ -65,6 +67,23 @@ public class TypeInference extends BaseTreeVisitor {
   private Map<String, InferredType> parameterTypesByName = new HashMap<>();
 
   public static void inferTypes(FileInput fileInput, PythonFile pythonFile) {
+    long start = System.nanoTime();
+    try {
+      doInferTypes(fileInput, pythonFile);
+    } finally {
+      INFERENCE_NANOS.get()[0] += System.nanoTime() - start;
+    }
+  }
+
+  /**
+   * Time spent by the current thread inferring types since the analyzer was loaded. Types are inferred while building the
+   * symbol table, so this lets callers tell both apart.
+   */
+  public static long currentThreadInferenceNanos() {
+    return INFERENCE_NANOS.get()[0];
+  }
+
+  private static void doInferTypes(FileInput fileInput, PythonFile pythonFile) {
     fileInput.accept(new BaseTreeVisitor() {
       @Override
       public void visitFunctionDef(FunctionDef funcDef) {
@@ -100,6 +119,9 @@ public class TypeInference extends BaseTreeVisitor {
   }
 
   private static void inferTypesAndMemberAccessSymbols(FunctionDef functionDef, PythonFile pythonFile) {
+    if (FileAnalysisBudget.isExceeded()) {
+      return;
+    }
     TypeInference visitor = new TypeInference();
     functionDef.accept(visitor);
     Set<Name> assignedNames = visitor.assignmentsByLhs.values().stream()
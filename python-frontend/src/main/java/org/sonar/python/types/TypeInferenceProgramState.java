@@ -31,15 +31,33 @@ import org.sonar.plugins.python.api.symbols.Symbol;
 import org.sonar.plugins.python.api.types.InferredType;
 import org.sonar.python.cfg.fixpoint.ProgramState;
 
+/**
+ * Types of the tracked variables at a program point. The sets of types are never modified once in the state, so states can
+ * share them, as well as the map holding them: {@link #copy()} does not copy anything, the map is only copied when a state
+ * sharing it is about to be modified. Similarly, {@link #join(ProgramState)} returns a state sharing the map of this one when
+ * the other state does not bring new types, and only allocates a new set when none of the two sets contains the other.
+ */
 public class TypeInferenceProgramState implements ProgramState {
   // Using Set of types instead of "Union type" in order to represent BOTTOM as an empty set
-  private final Map<Symbol, Set<InferredType>> inferredTypesBySymbol;
+  private Map<Symbol, Set<InferredType>> inferredTypesBySymbol;
+  private boolean isShared;
 
   TypeInferenceProgramState() {
-    this.inferredTypesBySymbol = new HashMap<>();
+    this(new HashMap<>());
+  }
+
+  private TypeInferenceProgramState(Map<Symbol, Set<InferredType>> inferredTypesBySymbol) {
+    this.inferredTypesBySymbol = inferredTypesBySymbol;
   }
 
+  /**
+   * The given set must not be modified afterwards.
+   */
   void setTypes(Symbol symbol, Set<InferredType> types) {
+    if (isShared) {
+      inferredTypesBySymbol = new HashMap<>(inferredTypesBySymbol);
+      isShared = false;
+    }
     inferredTypesBySymbol.put(symbol, types);
   }
 
@@ -56,7 +74,7 @@ public class TypeInferenceProgramState implements ProgramState {
       return false;
     }
     TypeInferenceProgramState that = (TypeInferenceProgramState) o;
-    return Objects.equals(inferredTypesBySymbol, that.inferredTypesBySymbol);
+    return inferredTypesBySymbol == that.inferredTypesBySymbol || Objects.equals(inferredTypesBySymbol, that.inferredTypesBySymbol);
   }
 
   @Override
@@ -80,22 +98,29 @@ public class TypeInferenceProgramState implements ProgramState {
 
   @Override
   public ProgramState join(ProgramState otherState) {
-    TypeInferenceProgramState result = new TypeInferenceProgramState();
-    ((TypeInferenceProgramState) otherState).inferredTypesBySymbol.forEach(((symbol, types) -> {
-      HashSet<InferredType> union = new HashSet<>(types);
-      union.addAll(inferredTypesBySymbol.getOrDefault(symbol, Collections.emptySet()));
-      result.setTypes(symbol, union);
-    }));
-    inferredTypesBySymbol.forEach(((symbol, types) -> {
-      if (!result.inferredTypesBySymbol.containsKey(symbol)) {
-        result.setTypes(symbol, types);
+    TypeInferenceProgramState result = (TypeInferenceProgramState) copy();
+    Map<Symbol, Set<InferredType>> otherTypesBySymbol = ((TypeInferenceProgramState) otherState).inferredTypesBySymbol;
+    if (otherTypesBySymbol == inferredTypesBySymbol) {
+      return result;
+    }
+    otherTypesBySymbol.forEach((symbol, otherTypes) -> {
+      Set<InferredType> types = inferredTypesBySymbol.get(symbol);
+      if (types == null || (otherTypes != types && types.size() < otherTypes.size() && otherTypes.containsAll(types))) {
+        result.setTypes(symbol, otherTypes);
+      } else if (otherTypes != types && !types.containsAll(otherTypes)) {
+        Set<InferredType> union = new HashSet<>(types);
+        union.addAll(otherTypes);
+        result.setTypes(symbol, union);
       }
-    }));
+    });
     return result;
   }
 
   @Override
   public ProgramState copy() {
-    return join(new TypeInferenceProgramState());
+    isShared = true;
+    TypeInferenceProgramState copy = new TypeInferenceProgramState(inferredTypesBySymbol);
+    copy.isShared = true;
+    return copy;
   }
 }
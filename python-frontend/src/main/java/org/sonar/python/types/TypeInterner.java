@@ -0,0 +1,131 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python.types;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import org.sonar.plugins.python.api.symbols.ClassSymbol;
+import org.sonar.plugins.python.api.symbols.Symbol;
+import org.sonar.plugins.python.api.types.InferredType;
+
+/**
+ * Canonical instances of the types inferred while analyzing a file: one {@link RuntimeType} per class symbol, one
+ * {@link DeclaredType} without type arguments per symbol and one {@link UnionType} per set of members. Equal types are then
+ * most of the time the same instance, and comparing them does not need to compare their class hierarchies.
+ * <p>
+ * Types are still compared by value, so a type built outside of the interner (e.g. those of the typeshed symbols) remains
+ * equal to its canonical instance. The interner is confined to the analyzing thread and cleared for each file (see
+ * {@link #reset()}), so that it does not retain the symbols of the files analyzed before.
+ */
+public final class TypeInterner {
+
+  private static final ThreadLocal<TypeInterner> INTERNER = ThreadLocal.withInitial(TypeInterner::new);
+
+  private static final AtomicLong lookups = new AtomicLong();
+  private static final AtomicLong hits = new AtomicLong();
+  private static final AtomicLong internedTypes = new AtomicLong();
+
+  private final Map<ClassSymbol, RuntimeType> runtimeTypes = new IdentityHashMap<>();
+  private final Map<Symbol, DeclaredType> declaredTypes = new IdentityHashMap<>();
+  private final Map<Set<InferredType>, UnionType> unionTypes = new HashMap<>();
+
+  private TypeInterner() {
+  }
+
+  static RuntimeType runtimeType(ClassSymbol typeClass) {
+    return intern(INTERNER.get().runtimeTypes, typeClass, RuntimeType::new);
+  }
+
+  static DeclaredType declaredType(Symbol typeClass) {
+    return intern(INTERNER.get().declaredTypes, typeClass, DeclaredType::new);
+  }
+
+  /**
+   * The given set of members must not be modified afterwards. An interned union is only returned when its members are the
+   * same instances as the given ones, as equal types may still resolve to different symbols.
+   */
+  static UnionType unionType(Set<InferredType> types) {
+    Map<Set<InferredType>, UnionType> unionTypes = INTERNER.get().unionTypes;
+    lookups.incrementAndGet();
+    UnionType unionType = unionTypes.get(types);
+    if (unionType != null && unionType.hasSameMembers(types)) {
+      hits.incrementAndGet();
+      return unionType;
+    }
+    unionType = new UnionType(types);
+    unionTypes.put(types, unionType);
+    internedTypes.incrementAndGet();
+    return unionType;
+  }
+
+  private static <K, V> V intern(Map<K, V> instances, K key, Function<K, V> factory) {
+    lookups.incrementAndGet();
+    V instance = instances.get(key);
+    if (instance != null) {
+      hits.incrementAndGet();
+      return instance;
+    }
+    instance = factory.apply(key);
+    instances.put(key, instance);
+    internedTypes.incrementAndGet();
+    return instance;
+  }
+
+  /**
+   * Forgets the types interned by the current thread, to be called when starting the analysis of a file.
+   */
+  public static void reset() {
+    INTERNER.remove();
+  }
+
+  /**
+   * Number of canonical types held by the interner of the current thread, i.e. interned since the analysis of the current
+   * file started.
+   */
+  public static int size() {
+    TypeInterner interner = INTERNER.get();
+    return interner.runtimeTypes.size() + interner.declaredTypes.size() + interner.unionTypes.size();
+  }
+
+  /**
+   * Number of times a canonical type was requested since the analyzer was loaded.
+   */
+  public static long lookups() {
+    return lookups.get();
+  }
+
+  /**
+   * Number of times the requested type was already interned.
+   */
+  public static long hits() {
+    return hits.get();
+  }
+
+  /**
+   * Number of canonical types created, i.e. lookups which were not hits.
+   */
+  public static long internedTypes() {
+    return internedTypes.get();
+  }
+}
@@ -26,9 +26,11 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import javax.annotation.CheckForNull;
@@ -57,14 +59,19 @@ import org.sonar.python.tree.PythonTreeMaker;
 
 import static org.sonar.plugins.python.api.types.BuiltinTypes.NONE_TYPE;
 
+/**
+ * Symbols of the builtins and of the typeshed modules, loaded lazily and at most once per JVM: they are shared by the
+ * analyses of all the files and projects. Loading happens under the TypeShed lock while loaded symbols are read without locking.
+ */
 public class TypeShed {
 
   private static final String TYPING = "typing";
   private static final String TYPING_EXTENSIONS = "typing_extensions";
   private static Map<String, Symbol> builtins;
-  private static final Map<String, Set<Symbol>> typeShedSymbols = new HashMap<>();
+  // set once builtins are fully computed: they can then be read without holding the TypeShed lock
+  private static volatile boolean builtinsComputed = false;
+  private static final Map<String, ModuleSymbols> typeShedSymbols = new ConcurrentHashMap<>();
   private static final Map<String, Set<Symbol>> builtinGlobalSymbols = new HashMap<>();
-  private static final Set<String> modulesInProgress = new HashSet<>();
 
   private static final String STDLIB_2AND3 = "typeshed/stdlib/2and3/";
   private static final String STDLIB_2 = "typeshed/stdlib/2/";
@@ -73,20 +80,44 @@ public class TypeShed {
   private static final String THIRD_PARTY_2 = "typeshed/third_party/2/";
   private static final String THIRD_PARTY_3 = "typeshed/third_party/3/";
   private static final String CUSTOM_THIRD_PARTY = "custom/";
+  static final List<String> CATEGORIES = Arrays.asList(CUSTOM_THIRD_PARTY, STDLIB_2AND3, STDLIB_2, STDLIB_3, THIRD_PARTY_2AND3, THIRD_PARTY_2, THIRD_PARTY_3);
+
+  private static boolean indexLoaded = false;
+  @Nullable
+  private static TypeShedIndex index = null;
 
   private TypeShed() {
   }
 
   public static Map<String, Symbol> builtinSymbols() {
+    if (!builtinsComputed) {
+      synchronized (TypeShed.class) {
+        initBuiltinSymbols();
+      }
+    }
+    return builtins;
+  }
+
+  private static void initBuiltinSymbols() {
     // InferredTypes class initialization requires builtInSymbols to be computed. Calling dummy method
     // from it explicitly to overcome the issue of TypeShed.builtins being assigned twice
     if (TypeShed.builtins == null && !InferredTypes.isInitialized()) {
+      TypeShedIndex typeShedIndex = index();
+      if (typeShedIndex != null) {
+        Map<String, Symbol> builtins = typeShedIndex.builtinSymbols();
+        TypeShed.builtins = Collections.unmodifiableMap(builtins);
+        InferredTypes.setBuiltinSymbols(builtins);
+        typeShedIndex.readTypes();
+        TypeShed.builtinGlobalSymbols.put("", new HashSet<>(builtins.values()));
+        builtinsComputed = true;
+        return;
+      }
       Map<String, Symbol> builtins = new HashMap<>();
       builtins.put(NONE_TYPE, new ClassSymbolImpl(NONE_TYPE, NONE_TYPE));
       InputStream resource = TypeShed.class.getResourceAsStream("typeshed/stdlib/2and3/builtins.pyi");
       PythonFile file = new TypeShedPythonFile(resource, "");
       AstNode astNode = PythonParser.create().parse(file.content());
-      FileInput fileInput = new PythonTreeMaker().fileInput(astNode);
+      FileInput fileInput = new PythonTreeMaker().consumeFileInput(astNode);
       Map<String, Set<Symbol>> globalSymbols = new HashMap<>();
       Set<Symbol> typingModuleSymbols = typingModuleSymbols();
       globalSymbols.put(TYPING, typingModuleSymbols);
@@ -101,8 +132,25 @@ public class TypeShed {
       InferredTypes.setBuiltinSymbols(builtins);
       fileInput.accept(new ReturnTypeVisitor());
       TypeShed.builtinGlobalSymbols.put("", new HashSet<>(builtins.values()));
+      builtinsComputed = true;
     }
-    return builtins;
+  }
+
+  /**
+   * Returns null when stubs have to be parsed, i.e. when generating the index.
+   */
+  @CheckForNull
+  private static TypeShedIndex index() {
+    if (!indexLoaded) {
+      index = TypeShedIndex.load();
+      indexLoaded = true;
+    }
+    return index;
+  }
+
+  static synchronized void disableIndex() {
+    index = null;
+    indexLoaded = true;
   }
 
   private static void setDeclaredReturnType(Symbol symbol, FunctionDef functionDef) {
@@ -155,12 +203,7 @@ public class TypeShed {
   }
 
   public static Set<Symbol> symbolsForModule(String moduleName) {
-    if (!TypeShed.typeShedSymbols.containsKey(moduleName)) {
-      Set<Symbol> symbols = searchTypeShedForModule(moduleName);
-      typeShedSymbols.put(moduleName, symbols);
-      return symbols;
-    }
-    return TypeShed.typeShedSymbols.get(moduleName);
+    return typeShedSymbols.computeIfAbsent(moduleName, ModuleSymbols::new).get();
   }
 
   @CheckForNull
@@ -187,13 +230,14 @@ public class TypeShed {
   }
 
   private static Set<Symbol> searchTypeShedForModule(String moduleName) {
-    if (modulesInProgress.contains(moduleName)) {
-      return new HashSet<>();
+    TypeShedIndex typeShedIndex = index();
+    if (typeShedIndex != null) {
+      // builtin symbols are referred to by the symbols of other modules
+      builtinSymbols();
+      return typeShedIndex.moduleSymbols(moduleName);
     }
-    modulesInProgress.add(moduleName);
     Set<Symbol> customSymbols = new HashSet<>(getModuleSymbols(moduleName, CUSTOM_THIRD_PARTY, builtinGlobalSymbols).values());
     if (!customSymbols.isEmpty()) {
-      modulesInProgress.remove(moduleName);
       return customSymbols;
     }
     Set<Symbol> standardLibrarySymbols = new HashSet<>(getModuleSymbols(moduleName, STDLIB_2AND3, builtinGlobalSymbols).values());
@@ -202,7 +246,6 @@ public class TypeShed {
         getModuleSymbols(moduleName, STDLIB_3, builtinGlobalSymbols), moduleName);
     }
     if (!standardLibrarySymbols.isEmpty()) {
-      modulesInProgress.remove(moduleName);
       return standardLibrarySymbols;
     }
     Set<Symbol> thirdPartySymbols = new HashSet<>(getModuleSymbols(moduleName, THIRD_PARTY_2AND3, builtinGlobalSymbols).values());
@@ -210,7 +253,6 @@ public class TypeShed {
       thirdPartySymbols = commonSymbols(getModuleSymbols(moduleName, THIRD_PARTY_2, builtinGlobalSymbols),
         getModuleSymbols(moduleName, THIRD_PARTY_3, builtinGlobalSymbols), moduleName);
     }
-    modulesInProgress.remove(moduleName);
     return thirdPartySymbols;
   }
 
@@ -239,7 +281,7 @@ public class TypeShed {
     }
     PythonFile file = new TypeShedPythonFile(moduleDescription.resource, moduleDescription.fileName);
     AstNode astNode = PythonParser.create().parse(file.content());
-    FileInput fileInput = new PythonTreeMaker().fileInput(astNode);
+    FileInput fileInput = new PythonTreeMaker().consumeFileInput(astNode);
     new SymbolTableBuilder(moduleDescription.packageName, file, ProjectLevelSymbolTable.from(initialSymbols)).visitFileInput(fileInput);
     fileInput.accept(new ReturnTypeVisitor());
     return fileInput.globalVariables().stream()
@@ -262,9 +304,12 @@ public class TypeShed {
     return (ClassSymbol) symbol;
   }
 
+  /**
+   * Builtins and symbols of the modules loaded so far.
+   */
   public static Collection<Symbol> stubFilesSymbols() {
     Set<Symbol> symbols = new HashSet<>(TypeShed.builtinSymbols().values());
-    typeShedSymbols.values().forEach(symbols::addAll);
+    typeShedSymbols.values().forEach(module -> module.addLoadedSymbolsTo(symbols));
     return symbols;
   }
 
@@ -324,6 +369,49 @@ public class TypeShed {
     }
   }
 
+  /**
+   * Symbols of a module, loaded on first access. As loading holds the TypeShed lock, a module found being loaded is
+   * necessarily loaded by the current thread: it is a cyclic import between stubs, which sees the module as empty.
+   */
+  private static class ModuleSymbols {
+    private final String moduleName;
+    @Nullable
+    private volatile Set<Symbol> symbols = null;
+    private boolean loading = false;
+
+    ModuleSymbols(String moduleName) {
+      this.moduleName = moduleName;
+    }
+
+    Set<Symbol> get() {
+      Set<Symbol> result = symbols;
+      if (result != null) {
+        return result;
+      }
+      synchronized (TypeShed.class) {
+        if (symbols == null) {
+          if (loading) {
+            return new HashSet<>();
+          }
+          loading = true;
+          try {
+            symbols = searchTypeShedForModule(moduleName);
+          } finally {
+            loading = false;
+          }
+        }
+        return symbols;
+      }
+    }
+
+    void addLoadedSymbolsTo(Set<Symbol> result) {
+      Set<Symbol> loadedSymbols = symbols;
+      if (loadedSymbols != null) {
+        result.addAll(loadedSymbols);
+      }
+    }
+  }
+
   private static class ModuleDescription {
     InputStream resource;
     String fileName;
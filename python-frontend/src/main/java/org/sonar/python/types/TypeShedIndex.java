@@ -0,0 +1,396 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python.types;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import javax.annotation.CheckForNull;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.plugins.python.api.LocationInFile;
+import org.sonar.plugins.python.api.symbols.ClassSymbol;
+import org.sonar.plugins.python.api.symbols.FunctionSymbol;
+import org.sonar.plugins.python.api.symbols.Symbol;
+import org.sonar.plugins.python.api.types.InferredType;
+import org.sonar.python.semantic.AmbiguousSymbolImpl;
+import org.sonar.python.semantic.ClassSymbolImpl;
+import org.sonar.python.semantic.FunctionSymbolImpl;
+import org.sonar.python.semantic.SymbolImpl;
+
+/**
+ * Symbols of the typeshed and custom stubs, precomputed from the stubs during the build so that they don't have to be
+ * parsed at runtime. The index is read once, but the symbols of a module are only created when the module is requested.
+ * <p>
+ * The index starts with a table of contents: the strings to which symbols refer by index, then for each module, its name,
+ * the modules its symbols refer to, and the position of its symbols. The first module holds the builtin symbols. The symbols of a module are written in 4 sections:
+ * the symbols themselves without what refers to other symbols, then their super classes, members, alternatives or
+ * children, then the root symbols of the module (i.e. the ones returned by {@link TypeShed#symbolsForModule(String)}),
+ * and finally the types of functions. A module and all the modules it refers to are read section by section,
+ * so that every referred symbol already exists, and class hierarchies are complete before types are created.
+ * <p>
+ * Not thread-safe: {@link TypeShed} only reads it while holding its lock.
+ */
+class TypeShedIndex {
+
+  private static final Logger LOG = Loggers.get(TypeShedIndex.class);
+  static final String RESOURCE_NAME = "typeshed.index.gz";
+  static final int FORMAT_VERSION = 2;
+  static final int BUILTINS_MODULE = 0;
+
+  static final byte PLAIN_SYMBOL = 0;
+  static final byte CLASS_SYMBOL = 1;
+  static final byte FUNCTION_SYMBOL = 2;
+  static final byte AMBIGUOUS_SYMBOL = 3;
+
+  static final byte ANY_TYPE = 0;
+  static final byte RUNTIME_TYPE = 1;
+  static final byte DECLARED_TYPE = 2;
+  static final byte UNION_TYPE = 3;
+  // declared type of variadic parameters
+  static final byte NO_TYPE = 4;
+
+  private final byte[] bytes;
+  private final String[] strings;
+  private final Map<String, Integer> moduleIndexByName = new HashMap<>();
+  private final int[][] dependencies;
+  private final int[] offsets;
+  private final int[] lengths;
+  private final Map<Integer, Module> modules = new HashMap<>();
+  private final List<Module> modulesWithoutTypes = new ArrayList<>();
+
+  TypeShedIndex(byte[] bytes) throws IOException {
+    this.bytes = bytes;
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+    if (in.readInt() != FORMAT_VERSION) {
+      throw new IOException("Unsupported format");
+    }
+    strings = new String[in.readInt()];
+    for (int i = 0; i < strings.length; i++) {
+      strings[i] = in.readUTF();
+    }
+    int numberOfModules = in.readInt();
+    dependencies = new int[numberOfModules][];
+    offsets = new int[numberOfModules];
+    lengths = new int[numberOfModules];
+    for (int i = 0; i < numberOfModules; i++) {
+      String moduleName = in.readUTF();
+      if (i != BUILTINS_MODULE) {
+        moduleIndexByName.put(moduleName, i);
+      }
+      dependencies[i] = new int[in.readInt()];
+      for (int j = 0; j < dependencies[i].length; j++) {
+        dependencies[i][j] = in.readInt();
+      }
+      offsets[i] = in.readInt();
+      lengths[i] = in.readInt();
+    }
+  }
+
+  /**
+   * Returns null when the index is not available, in which case stubs have to be parsed.
+   */
+  @CheckForNull
+  static TypeShedIndex load() {
+    try (InputStream resource = TypeShedIndex.class.getResourceAsStream(RESOURCE_NAME)) {
+      if (resource == null) {
+        LOG.debug("Typeshed index not found");
+        return null;
+      }
+      return new TypeShedIndex(uncompress(resource));
+    } catch (IOException e) {
+      LOG.debug("Unable to read typeshed index: " + e.getMessage());
+      return null;
+    }
+  }
+
+  private static byte[] uncompress(InputStream resource) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (InputStream in = new GZIPInputStream(resource)) {
+      byte[] buffer = new byte[64 * 1024];
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        out.write(buffer, 0, read);
+      }
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * Types of builtin functions may refer to builtin symbols through {@link TypeShed#builtinSymbols()}: they are only
+   * read by {@link #readTypes()}, once the returned symbols are published.
+   */
+  Map<String, Symbol> builtinSymbols() {
+    Module module = module(BUILTINS_MODULE);
+    Map<String, Symbol> builtinSymbols = new HashMap<>();
+    for (int i = 0; i < module.roots.size(); i++) {
+      builtinSymbols.put(module.rootKeys.get(i), module.roots.get(i));
+    }
+    return builtinSymbols;
+  }
+
+  /**
+   * Returns an empty set for modules which are not part of the stubs.
+   */
+  Set<Symbol> moduleSymbols(String moduleName) {
+    Integer moduleIndex = moduleIndexByName.get(moduleName);
+    if (moduleIndex == null) {
+      return new HashSet<>();
+    }
+    Module module = module(moduleIndex);
+    readTypes();
+    return new HashSet<>(module.roots);
+  }
+
+  void readTypes() {
+    try {
+      for (Module module : modulesWithoutTypes) {
+        module.readTypes();
+      }
+    } catch (IOException e) {
+      throw invalidIndex(e);
+    }
+    modulesWithoutTypes.clear();
+  }
+
+  private static IllegalStateException invalidIndex(IOException e) {
+    // the index is part of the analyzer: it can only be invalid if the analyzer itself is broken
+    return new IllegalStateException("Invalid typeshed index", e);
+  }
+
+  private Module module(int moduleIndex) {
+    Module module = modules.get(moduleIndex);
+    if (module != null) {
+      return module;
+    }
+    List<Module> newModules = new ArrayList<>();
+    Deque<Integer> workList = new ArrayDeque<>();
+    workList.add(moduleIndex);
+    while (!workList.isEmpty()) {
+      int index = workList.pop();
+      if (!modules.containsKey(index)) {
+        Module newModule = new Module(new DataInputStream(new ByteArrayInputStream(bytes, offsets[index], lengths[index])));
+        modules.put(index, newModule);
+        newModules.add(newModule);
+        for (int dependency : dependencies[index]) {
+          workList.push(dependency);
+        }
+      }
+    }
+    try {
+      for (Module newModule : newModules) {
+        newModule.readSymbols();
+      }
+      for (Module newModule : newModules) {
+        newModule.readLinks();
+      }
+      for (Module newModule : newModules) {
+        newModule.readRoots();
+      }
+    } catch (IOException e) {
+      throw invalidIndex(e);
+    }
+    modulesWithoutTypes.addAll(newModules);
+    return modules.get(moduleIndex);
+  }
+
+  private class Module {
+    private final DataInputStream in;
+    private Symbol[] symbols;
+    private final List<String> rootKeys = new ArrayList<>();
+    private final List<Symbol> roots = new ArrayList<>();
+
+    private Module(DataInputStream in) {
+      this.in = in;
+    }
+
+    private void readSymbols() throws IOException {
+      symbols = new Symbol[readVarInt()];
+      for (int i = 0; i < symbols.length; i++) {
+        symbols[i] = readSymbol();
+      }
+    }
+
+    private Symbol readSymbol() throws IOException {
+      byte implementation = in.readByte();
+      Symbol.Kind kind = Symbol.Kind.values()[in.readByte()];
+      String name = readString();
+      String fullyQualifiedName = readString();
+      SymbolImpl symbol;
+      switch (implementation) {
+        case CLASS_SYMBOL:
+          ClassSymbolImpl classSymbol = new ClassSymbolImpl(name, fullyQualifiedName, readLocation(), in.readBoolean(), in.readBoolean(), readString());
+          if (in.readBoolean()) {
+            classSymbol.setHasSuperClassWithoutSymbol();
+          }
+          symbol = classSymbol;
+          break;
+        case FUNCTION_SYMBOL:
+          LocationInFile location = readLocation();
+          boolean isInstanceMethod = in.readBoolean();
+          boolean isAsynchronous = in.readBoolean();
+          List<String> decorators = new ArrayList<>();
+          int numberOfDecorators = readVarInt();
+          for (int i = 0; i < numberOfDecorators; i++) {
+            decorators.add(readString());
+          }
+          boolean hasVariadicParameter = in.readBoolean();
+          String annotatedReturnTypeName = readString();
+          symbol = new FunctionSymbolImpl(name, fullyQualifiedName, location, isInstanceMethod, isAsynchronous, decorators, hasVariadicParameter,
+            annotatedReturnTypeName, in.readBoolean());
+          break;
+        case AMBIGUOUS_SYMBOL:
+          // alternatives are added when reading links
+          symbol = new AmbiguousSymbolImpl(name, fullyQualifiedName, new HashSet<>());
+          break;
+        default:
+          symbol = new SymbolImpl(name, fullyQualifiedName, readString());
+      }
+      // the kind of a class or function symbol is OTHER when its name is bound several times
+      symbol.setKind(kind);
+      return symbol;
+    }
+
+    private void readLinks() throws IOException {
+      for (Symbol symbol : symbols) {
+        if (symbol instanceof ClassSymbolImpl) {
+          ClassSymbolImpl classSymbol = (ClassSymbolImpl) symbol;
+          for (Symbol superClass : readReferences()) {
+            classSymbol.addSuperClass(superClass);
+          }
+          classSymbol.addMembers(readReferences());
+        } else if (symbol instanceof AmbiguousSymbolImpl) {
+          ((AmbiguousSymbolImpl) symbol).alternatives().addAll(readReferences());
+        } else if (!(symbol instanceof FunctionSymbolImpl)) {
+          for (Symbol child : readReferences()) {
+            ((SymbolImpl) symbol).addChildSymbol(child);
+          }
+        }
+      }
+    }
+
+    private void readTypes() throws IOException {
+      for (Symbol symbol : symbols) {
+        if (symbol instanceof FunctionSymbolImpl) {
+          FunctionSymbolImpl functionSymbol = (FunctionSymbolImpl) symbol;
+          functionSymbol.setDeclaredReturnType(readType());
+          int numberOfParameters = readVarInt();
+          List<FunctionSymbol.Parameter> parameters = new ArrayList<>(numberOfParameters);
+          for (int i = 0; i < numberOfParameters; i++) {
+            String parameterName = readString();
+            parameters.add(new FunctionSymbolImpl.ParameterImpl(parameterName, readType(), in.readBoolean(), in.readBoolean(), in.readBoolean(),
+              in.readBoolean(), readLocation()));
+          }
+          functionSymbol.addParameters(parameters);
+        }
+      }
+    }
+
+    private void readRoots() throws IOException {
+      int numberOfRoots = readVarInt();
+      for (int i = 0; i < numberOfRoots; i++) {
+        rootKeys.add(readString());
+        roots.add(readReference());
+      }
+    }
+
+    private List<Symbol> readReferences() throws IOException {
+      int size = readVarInt();
+      List<Symbol> references = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+        references.add(readReference());
+      }
+      return references;
+    }
+
+    private Symbol readReference() throws IOException {
+      int value = readVarInt();
+      if ((value & 1) == 0) {
+        return symbols[value >>> 1];
+      }
+      return modules.get(value >>> 1).symbols[readVarInt()];
+    }
+
+    @CheckForNull
+    private InferredType readType() throws IOException {
+      byte tag = in.readByte();
+      switch (tag) {
+        case RUNTIME_TYPE:
+          return new RuntimeType((ClassSymbol) readReference());
+        case DECLARED_TYPE:
+          Symbol typeClass = readReference();
+          int numberOfTypeArgs = readVarInt();
+          List<DeclaredType> typeArgs = new ArrayList<>(numberOfTypeArgs);
+          for (int i = 0; i < numberOfTypeArgs; i++) {
+            typeArgs.add((DeclaredType) readType());
+          }
+          return new DeclaredType(typeClass, typeArgs);
+        case UNION_TYPE:
+          int numberOfTypes = readVarInt();
+          List<InferredType> types = new ArrayList<>(numberOfTypes);
+          for (int i = 0; i < numberOfTypes; i++) {
+            types.add(readType());
+          }
+          return InferredTypes.union(types.stream());
+        case NO_TYPE:
+          return null;
+        default:
+          return InferredTypes.anyType();
+      }
+    }
+
+    @CheckForNull
+    private LocationInFile readLocation() throws IOException {
+      if (!in.readBoolean()) {
+        return null;
+      }
+      return new LocationInFile(readString(), in.readInt(), in.readInt(), in.readInt(), in.readInt());
+    }
+
+    @CheckForNull
+    private String readString() throws IOException {
+      int index = readVarInt();
+      return index == 0 ? null : strings[index - 1];
+    }
+
+    private int readVarInt() throws IOException {
+      int value = 0;
+      int shift = 0;
+      byte b;
+      do {
+        b = in.readByte();
+        value |= (b & 0x7F) << shift;
+        shift += 7;
+      } while ((b & 0x80) != 0);
+      return value;
+    }
+  }
+}
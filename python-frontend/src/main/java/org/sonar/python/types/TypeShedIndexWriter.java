@@ -0,0 +1,620 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python.types;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+import javax.annotation.Nullable;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.plugins.python.api.LocationInFile;
+import org.sonar.plugins.python.api.symbols.AmbiguousSymbol;
+import org.sonar.plugins.python.api.symbols.ClassSymbol;
+import org.sonar.plugins.python.api.symbols.FunctionSymbol;
+import org.sonar.plugins.python.api.symbols.Symbol;
+import org.sonar.plugins.python.api.types.InferredType;
+import org.sonar.python.semantic.AmbiguousSymbolImpl;
+import org.sonar.python.semantic.ClassSymbolImpl;
+import org.sonar.python.semantic.FunctionSymbolImpl;
+import org.sonar.python.semantic.SymbolImpl;
+
+/**
+ * Generates {@link TypeShedIndex} by parsing all the stubs, as {@link TypeShed} does when the index is not available.
+ * It is run during the build (see {@link #main(String[])}), the analyzer only reads the index.
+ * Stubs importing a symbol get their own copy of it, so most symbols are structurally identical to others: only one of
+ * them is written. Symbols belonging to the same set (e.g. the alternatives of an ambiguous symbol) are never merged.
+ * Each symbol belongs to a single module: the first one of which it is a root symbol, or otherwise the first one from
+ * which it can be reached. Modules are processed in alphabetical order, so that the index does not change as long as
+ * the stubs don't.
+ */
+public class TypeShedIndexWriter {
+
+  private static final Logger LOG = Loggers.get(TypeShedIndexWriter.class);
+  private static final String RESOURCES_PATH = "org/sonar/python/types";
+  private static final Comparator<Symbol> SYMBOL_ORDER = Comparator.comparing(Symbol::name)
+    .thenComparing(s -> Objects.toString(s.fullyQualifiedName(), ""))
+    .thenComparing(Symbol::kind);
+
+  private final List<String> moduleNames = new ArrayList<>();
+  private final List<List<Symbol>> rootsByModule = new ArrayList<>();
+  private final List<List<String>> rootKeysByModule = new ArrayList<>();
+  private final List<List<Symbol>> symbolsByModule = new ArrayList<>();
+  private final List<SortedSet<Integer>> dependenciesByModule = new ArrayList<>();
+  private final Map<Symbol, Integer> moduleBySymbol = new IdentityHashMap<>();
+  private final Map<Symbol, Integer> indexBySymbol = new IdentityHashMap<>();
+  private final Map<Symbol, Symbol> canonicalSymbols = new IdentityHashMap<>();
+  private final Map<String, Integer> strings = new LinkedHashMap<>();
+
+  private TypeShedIndexWriter() {
+  }
+
+  /**
+   * Run by the "generate-typeshed-index" execution of the build, in the process-classes phase, with the directory of
+   * the classes (which contains the stubs) as argument. The index is written into it, unless it is more recent than
+   * all the classes and stubs.
+   */
+  public static void main(String[] args) throws IOException {
+    Path classesDirectory = Paths.get(args[0]);
+    Path resourcesDirectory = classesDirectory.resolve(RESOURCES_PATH);
+    Path indexFile = resourcesDirectory.resolve(TypeShedIndex.RESOURCE_NAME);
+    if (isUpToDate(indexFile, classesDirectory)) {
+      LOG.info("Typeshed index is up to date: " + indexFile);
+      return;
+    }
+    long start = System.currentTimeMillis();
+    write(resourcesDirectory, indexFile);
+    LOG.info("Typeshed index written in " + (System.currentTimeMillis() - start) + " ms: " + indexFile);
+  }
+
+  static boolean isUpToDate(Path indexFile, Path inputDirectory) throws IOException {
+    if (!Files.isRegularFile(indexFile)) {
+      return false;
+    }
+    long indexTime = indexFile.toFile().lastModified();
+    try (Stream<Path> files = Files.walk(inputDirectory)) {
+      return files
+        .filter(file -> !file.equals(indexFile))
+        .noneMatch(file -> Files.isRegularFile(file) && file.toFile().lastModified() > indexTime);
+    }
+  }
+
+  /**
+   * Returns the uncompressed content of the written index.
+   */
+  static byte[] write(Path resourcesDirectory, Path indexFile) throws IOException {
+    byte[] index = write(resourcesDirectory);
+    Files.createDirectories(indexFile.getParent());
+    try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(indexFile))) {
+      out.write(index);
+    }
+    return index;
+  }
+
+  static byte[] write(Path resourcesDirectory) throws IOException {
+    TypeShed.disableIndex();
+    TypeShedIndexWriter writer = new TypeShedIndexWriter();
+    Map<String, Symbol> builtins = TypeShed.builtinSymbols();
+    List<String> builtinKeys = builtins.keySet().stream().sorted(Comparator.nullsFirst(Comparator.naturalOrder())).collect(Collectors.toList());
+    writer.addModule("", builtinKeys, builtinKeys.stream().map(builtins::get).collect(Collectors.toList()));
+    for (String moduleName : moduleNames(resourcesDirectory)) {
+      List<Symbol> symbols = TypeShed.symbolsForModule(moduleName).stream().sorted(SYMBOL_ORDER).collect(Collectors.toList());
+      if (!symbols.isEmpty()) {
+        List<String> keys = symbols.stream().map(s -> (String) null).collect(Collectors.toList());
+        writer.addModule(moduleName, keys, symbols);
+      }
+    }
+    writer.mergeEquivalentSymbols();
+    writer.assignSymbols();
+    return writer.toBytes();
+  }
+
+  private void addModule(String moduleName, List<String> keys, List<Symbol> roots) {
+    moduleNames.add(moduleName);
+    rootKeysByModule.add(keys);
+    rootsByModule.add(roots);
+  }
+
+  /**
+   * Names of the modules which can be found in the stubs, whatever their category.
+   */
+  static SortedSet<String> moduleNames(Path resourcesDirectory) throws IOException {
+    SortedSet<String> moduleNames = new TreeSet<>();
+    for (String category : TypeShed.CATEGORIES) {
+      Path categoryDirectory = resourcesDirectory.resolve(category);
+      try (Stream<Path> files = Files.walk(categoryDirectory)) {
+        files.filter(file -> file.toString().endsWith(".pyi"))
+          .map(file -> {
+            String relativePath = categoryDirectory.relativize(file).toString().replace('\\', '/');
+            relativePath = relativePath.substring(0, relativePath.length() - ".pyi".length());
+            if (relativePath.endsWith("/__init__")) {
+              relativePath = relativePath.substring(0, relativePath.length() - "/__init__".length());
+            }
+            return relativePath.replace('/', '.');
+          })
+          .forEach(moduleNames::add);
+      }
+    }
+    return moduleNames;
+  }
+
+  private void mergeEquivalentSymbols() throws IOException {
+    List<Symbol> symbols = new ArrayList<>();
+    Map<Symbol, Integer> idBySymbol = new IdentityHashMap<>();
+    Deque<Symbol> workList = new ArrayDeque<>();
+    rootsByModule.forEach(workList::addAll);
+    while (!workList.isEmpty()) {
+      Symbol symbol = workList.pop();
+      if (!idBySymbol.containsKey(symbol)) {
+        idBySymbol.put(symbol, symbols.size());
+        symbols.add(symbol);
+        workList.addAll(references(symbol));
+      }
+    }
+    SymbolGraph graph = new SymbolGraph(symbols, idBySymbol);
+    Set<Integer> distinctSymbols = new HashSet<>();
+    int[] classes;
+    boolean hasMergedSiblings;
+    do {
+      classes = graph.equivalenceClasses(distinctSymbols);
+      hasMergedSiblings = false;
+      for (int[] siblings : graph.sets) {
+        Map<Integer, Integer> siblingByClass = new HashMap<>();
+        for (int sibling : siblings) {
+          Integer other = siblingByClass.putIfAbsent(classes[sibling], sibling);
+          if (other != null) {
+            distinctSymbols.add(sibling);
+            distinctSymbols.add(other);
+            hasMergedSiblings = true;
+          }
+        }
+      }
+    } while (hasMergedSiblings);
+    Map<Integer, Symbol> symbolByClass = new HashMap<>();
+    for (Symbol symbol : symbols) {
+      canonicalSymbols.put(symbol, symbolByClass.computeIfAbsent(classes[idBySymbol.get(symbol)], c -> symbol));
+    }
+  }
+
+  private Symbol canonical(Symbol symbol) {
+    return canonicalSymbols.get(symbol);
+  }
+
+  private void assignSymbols() {
+    for (int module = 0; module < moduleNames.size(); module++) {
+      symbolsByModule.add(new ArrayList<>());
+      dependenciesByModule.add(new TreeSet<>());
+      for (Symbol root : rootsByModule.get(module)) {
+        own(canonical(root), module);
+        int owner = moduleBySymbol.get(canonical(root));
+        if (owner != module) {
+          dependenciesByModule.get(module).add(owner);
+        }
+      }
+    }
+    for (int module = 0; module < moduleNames.size(); module++) {
+      Deque<Symbol> workList = new ArrayDeque<>(symbolsByModule.get(module));
+      while (!workList.isEmpty()) {
+        for (Symbol reference : references(workList.pop())) {
+          Symbol referenced = canonical(reference);
+          Integer owner = moduleBySymbol.get(referenced);
+          if (owner == null) {
+            own(referenced, module);
+            workList.add(referenced);
+          } else if (owner != module) {
+            dependenciesByModule.get(module).add(owner);
+          }
+        }
+      }
+    }
+  }
+
+  private void own(Symbol symbol, int module) {
+    if (!moduleBySymbol.containsKey(symbol)) {
+      moduleBySymbol.put(symbol, module);
+      indexBySymbol.put(symbol, symbolsByModule.get(module).size());
+      symbolsByModule.get(module).add(symbol);
+    }
+  }
+
+  private static List<Symbol> references(Symbol symbol) {
+    List<Symbol> references = new ArrayList<>(links(symbol));
+    if (symbol instanceof FunctionSymbolImpl) {
+      FunctionSymbolImpl functionSymbol = (FunctionSymbolImpl) symbol;
+      addTypeReferences(functionSymbol.declaredReturnType(), references);
+      functionSymbol.parameters().forEach(parameter -> addTypeReferences(parameter.declaredType(), references));
+    }
+    return references;
+  }
+
+  private static List<Symbol> links(Symbol symbol) {
+    switch (implementation(symbol)) {
+      case TypeShedIndex.CLASS_SYMBOL:
+        List<Symbol> links = new ArrayList<>(((ClassSymbol) symbol).superClasses());
+        links.addAll(sorted(((ClassSymbol) symbol).declaredMembers()));
+        return links;
+      case TypeShedIndex.AMBIGUOUS_SYMBOL:
+        return sorted(((AmbiguousSymbol) symbol).alternatives());
+      case TypeShedIndex.FUNCTION_SYMBOL:
+        return new ArrayList<>();
+      default:
+        return sorted(((SymbolImpl) symbol).getChildrenSymbolByName().values());
+    }
+  }
+
+  /**
+   * Symbols are not written according to their kind but to their implementation, which keeps its state when the kind
+   * of the symbol is changed.
+   */
+  private static byte implementation(Symbol symbol) {
+    if (symbol instanceof ClassSymbolImpl) {
+      return TypeShedIndex.CLASS_SYMBOL;
+    }
+    if (symbol instanceof FunctionSymbolImpl) {
+      return TypeShedIndex.FUNCTION_SYMBOL;
+    }
+    if (symbol instanceof AmbiguousSymbolImpl) {
+      return TypeShedIndex.AMBIGUOUS_SYMBOL;
+    }
+    return TypeShedIndex.PLAIN_SYMBOL;
+  }
+
+  private static List<Symbol> sorted(Collection<Symbol> symbols) {
+    return symbols.stream().sorted(SYMBOL_ORDER).collect(Collectors.toList());
+  }
+
+  private static void addTypeReferences(InferredType type, List<Symbol> references) {
+    if (type instanceof RuntimeType) {
+      references.add(((RuntimeType) type).getTypeClass());
+    } else if (type instanceof DeclaredType) {
+      references.add(((DeclaredType) type).getTypeClass());
+      ((DeclaredType) type).typeArgs().forEach(typeArg -> addTypeReferences(typeArg, references));
+    } else if (type instanceof UnionType) {
+      sortedTypes((UnionType) type).forEach(t -> addTypeReferences(t, references));
+    }
+  }
+
+  private static List<InferredType> sortedTypes(UnionType type) {
+    return type.types().stream().sorted(Comparator.comparing(InferredType::toString)).collect(Collectors.toList());
+  }
+
+  private byte[] toBytes() throws IOException {
+    List<byte[]> moduleBytes = new ArrayList<>();
+    for (int module = 0; module < moduleNames.size(); module++) {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      try (DataOutputStream out = new DataOutputStream(bytes)) {
+        new ModuleWriter(module, out).write();
+      }
+      moduleBytes.add(bytes.toByteArray());
+    }
+    // offsets are written with a fixed size: the length of the table of contents does not depend on them
+    int tableOfContentsLength = tableOfContents(moduleBytes, 0).length;
+    ByteArrayOutputStream index = new ByteArrayOutputStream();
+    index.write(tableOfContents(moduleBytes, tableOfContentsLength));
+    for (byte[] bytes : moduleBytes) {
+      index.write(bytes);
+    }
+    return index.toByteArray();
+  }
+
+  private byte[] tableOfContents(List<byte[]> moduleBytes, int firstOffset) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeInt(TypeShedIndex.FORMAT_VERSION);
+      out.writeInt(strings.size());
+      for (String string : strings.keySet()) {
+        out.writeUTF(string);
+      }
+      out.writeInt(moduleNames.size());
+      int offset = firstOffset;
+      for (int module = 0; module < moduleNames.size(); module++) {
+        out.writeUTF(moduleNames.get(module));
+        out.writeInt(dependenciesByModule.get(module).size());
+        for (int dependency : dependenciesByModule.get(module)) {
+          out.writeInt(dependency);
+        }
+        out.writeInt(offset);
+        out.writeInt(moduleBytes.get(module).length);
+        offset += moduleBytes.get(module).length;
+      }
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Graph of all the symbols, identified by their index in the list of symbols.
+   */
+  private class SymbolGraph {
+    private final String[] contents;
+    private final int[][] references;
+    private final List<int[]> sets = new ArrayList<>();
+    private final int[][][] setsBySymbol;
+
+    private SymbolGraph(List<Symbol> symbols, Map<Symbol, Integer> idBySymbol) throws IOException {
+      contents = new String[symbols.size()];
+      references = new int[symbols.size()][];
+      setsBySymbol = new int[symbols.size()][][];
+      for (int i = 0; i < symbols.size(); i++) {
+        Symbol symbol = symbols.get(i);
+        // the content of a symbol is what would be written for it, except references
+        List<Symbol> symbolReferences = new ArrayList<>();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+          ModuleWriter writer = new ModuleWriter(out, symbolReferences);
+          writer.writeSymbol(symbol);
+          if (symbol instanceof FunctionSymbolImpl) {
+            writer.writeTypes((FunctionSymbolImpl) symbol);
+          }
+        }
+        contents[i] = new String(bytes.toByteArray(), StandardCharsets.ISO_8859_1);
+        List<Collection<Symbol>> symbolSets = new ArrayList<>();
+        if (symbol instanceof FunctionSymbolImpl && idBySymbol.containsKey(((FunctionSymbolImpl) symbol).owner())) {
+          // the owner is set when reading the members of classes: functions of different classes cannot be merged
+          symbolReferences.add(((FunctionSymbolImpl) symbol).owner());
+        }
+        if (symbol instanceof ClassSymbolImpl) {
+          symbolReferences.addAll(((ClassSymbol) symbol).superClasses());
+          symbolSets.add(((ClassSymbol) symbol).declaredMembers());
+        } else if (!(symbol instanceof FunctionSymbolImpl)) {
+          symbolSets.add(links(symbol));
+        }
+        references[i] = symbolReferences.stream().mapToInt(idBySymbol::get).toArray();
+        setsBySymbol[i] = symbolSets.stream().map(set -> set.stream().mapToInt(idBySymbol::get).toArray()).toArray(int[][]::new);
+        sets.addAll(Arrays.asList(setsBySymbol[i]));
+      }
+      for (List<Symbol> roots : rootsByModule) {
+        sets.add(roots.stream().mapToInt(idBySymbol::get).toArray());
+      }
+    }
+
+    /**
+     * Symbols have the same class when they have the same content, and their references have the same classes.
+     */
+    private int[] equivalenceClasses(Set<Integer> distinctSymbols) {
+      int[] classes = new int[contents.length];
+      Map<String, Integer> classByKey = new HashMap<>();
+      for (int i = 0; i < contents.length; i++) {
+        String key = distinctSymbols.contains(i) ? (contents[i] + i) : contents[i];
+        classes[i] = classByKey.computeIfAbsent(key, k -> classByKey.size());
+      }
+      int numberOfClasses = classByKey.size();
+      while (true) {
+        int[] newClasses = new int[contents.length];
+        Map<String, Integer> newClassByKey = new HashMap<>();
+        for (int i = 0; i < contents.length; i++) {
+          StringBuilder key = new StringBuilder().append(classes[i]);
+          for (int reference : references[i]) {
+            key.append(',').append(classes[reference]);
+          }
+          for (int[] set : setsBySymbol[i]) {
+            key.append('|');
+            int[] sortedClasses = Arrays.stream(set).map(element -> classes[element]).sorted().toArray();
+            for (int sortedClass : sortedClasses) {
+              key.append(',').append(sortedClass);
+            }
+          }
+          newClasses[i] = newClassByKey.computeIfAbsent(key.toString(), k -> newClassByKey.size());
+        }
+        if (newClassByKey.size() == numberOfClasses) {
+          return newClasses;
+        }
+        numberOfClasses = newClassByKey.size();
+        System.arraycopy(newClasses, 0, classes, 0, classes.length);
+      }
+    }
+  }
+
+  private class ModuleWriter {
+    private final int module;
+    private final DataOutputStream out;
+    @Nullable
+    private final List<Symbol> collectedReferences;
+
+    private ModuleWriter(int module, DataOutputStream out) {
+      this.module = module;
+      this.out = out;
+      this.collectedReferences = null;
+    }
+
+    /**
+     * References are not written but collected.
+     */
+    private ModuleWriter(DataOutputStream out, List<Symbol> collectedReferences) {
+      this.module = -1;
+      this.out = out;
+      this.collectedReferences = collectedReferences;
+    }
+
+    private void write() throws IOException {
+      List<Symbol> symbols = symbolsByModule.get(module);
+      writeVarInt(symbols.size());
+      for (Symbol symbol : symbols) {
+        writeSymbol(symbol);
+      }
+      for (Symbol symbol : symbols) {
+        if (symbol instanceof ClassSymbolImpl) {
+          ClassSymbol classSymbol = (ClassSymbol) symbol;
+          writeReferences(classSymbol.superClasses());
+          writeReferences(sorted(classSymbol.declaredMembers()));
+        } else if (!(symbol instanceof FunctionSymbolImpl)) {
+          writeReferences(links(symbol));
+        }
+      }
+      List<String> rootKeys = rootKeysByModule.get(module);
+      List<Symbol> roots = rootsByModule.get(module);
+      writeVarInt(roots.size());
+      for (int i = 0; i < roots.size(); i++) {
+        writeString(rootKeys.get(i));
+        writeReference(roots.get(i));
+      }
+      for (Symbol symbol : symbols) {
+        if (symbol instanceof FunctionSymbolImpl) {
+          writeTypes((FunctionSymbolImpl) symbol);
+        }
+      }
+    }
+
+    private void writeSymbol(Symbol symbol) throws IOException {
+      byte implementation = implementation(symbol);
+      out.writeByte(implementation);
+      out.writeByte(symbol.kind().ordinal());
+      writeString(symbol.name());
+      writeString(symbol.fullyQualifiedName());
+      switch (implementation) {
+        case TypeShedIndex.CLASS_SYMBOL:
+          ClassSymbolImpl classSymbol = (ClassSymbolImpl) symbol;
+          writeLocation(classSymbol.definitionLocation());
+          out.writeBoolean(classSymbol.hasDecorators());
+          out.writeBoolean(classSymbol.hasMetaClass());
+          writeString(classSymbol.metaclassFQN());
+          out.writeBoolean(classSymbol.hasSuperClassWithoutSymbol());
+          break;
+        case TypeShedIndex.FUNCTION_SYMBOL:
+          FunctionSymbolImpl functionSymbol = (FunctionSymbolImpl) symbol;
+          writeLocation(functionSymbol.definitionLocation());
+          out.writeBoolean(functionSymbol.isInstanceMethod());
+          out.writeBoolean(functionSymbol.isAsynchronous());
+          writeVarInt(functionSymbol.decorators().size());
+          for (String decorator : functionSymbol.decorators()) {
+            writeString(decorator);
+          }
+          out.writeBoolean(functionSymbol.hasVariadicParameter());
+          writeString(functionSymbol.annotatedReturnTypeName());
+          out.writeBoolean(functionSymbol.isStub());
+          break;
+        case TypeShedIndex.AMBIGUOUS_SYMBOL:
+          break;
+        default:
+          writeString(((SymbolImpl) symbol).annotatedTypeName());
+      }
+    }
+
+    private void writeTypes(FunctionSymbolImpl functionSymbol) throws IOException {
+      writeType(functionSymbol.declaredReturnType());
+      writeVarInt(functionSymbol.parameters().size());
+      for (FunctionSymbol.Parameter parameter : functionSymbol.parameters()) {
+        writeString(parameter.name());
+        writeType(parameter.declaredType());
+        out.writeBoolean(parameter.hasDefaultValue());
+        out.writeBoolean(parameter.isVariadic());
+        out.writeBoolean(parameter.isKeywordOnly());
+        out.writeBoolean(parameter.isPositionalOnly());
+        writeLocation(parameter.location());
+      }
+    }
+
+    private void writeType(@Nullable InferredType type) throws IOException {
+      if (type == null) {
+        out.writeByte(TypeShedIndex.NO_TYPE);
+      } else if (type instanceof RuntimeType) {
+        out.writeByte(TypeShedIndex.RUNTIME_TYPE);
+        writeReference(((RuntimeType) type).getTypeClass());
+      } else if (type instanceof DeclaredType) {
+        DeclaredType declaredType = (DeclaredType) type;
+        out.writeByte(TypeShedIndex.DECLARED_TYPE);
+        writeReference(declaredType.getTypeClass());
+        writeVarInt(declaredType.typeArgs().size());
+        for (DeclaredType typeArg : declaredType.typeArgs()) {
+          writeType(typeArg);
+        }
+      } else if (type instanceof UnionType) {
+        List<InferredType> types = sortedTypes((UnionType) type);
+        out.writeByte(TypeShedIndex.UNION_TYPE);
+        writeVarInt(types.size());
+        for (InferredType alternative : types) {
+          writeType(alternative);
+        }
+      } else {
+        out.writeByte(TypeShedIndex.ANY_TYPE);
+      }
+    }
+
+    private void writeReferences(List<Symbol> symbols) throws IOException {
+      writeVarInt(symbols.size());
+      for (Symbol symbol : symbols) {
+        writeReference(symbol);
+      }
+    }
+
+    private void writeReference(Symbol symbol) throws IOException {
+      if (collectedReferences != null) {
+        collectedReferences.add(symbol);
+        return;
+      }
+      Symbol canonicalSymbol = canonical(symbol);
+      int owner = moduleBySymbol.get(canonicalSymbol);
+      int index = indexBySymbol.get(canonicalSymbol);
+      if (owner == module) {
+        writeVarInt(index << 1);
+      } else {
+        writeVarInt((owner << 1) | 1);
+        writeVarInt(index);
+      }
+    }
+
+    private void writeLocation(@Nullable LocationInFile location) throws IOException {
+      out.writeBoolean(location != null);
+      if (location != null) {
+        writeString(location.fileId());
+        out.writeInt(location.startLine());
+        out.writeInt(location.startLineOffset());
+        out.writeInt(location.endLine());
+        out.writeInt(location.endLineOffset());
+      }
+    }
+
+    private void writeString(@Nullable String string) throws IOException {
+      writeVarInt(string == null ? 0 : (strings.computeIfAbsent(string, k -> strings.size()) + 1));
+    }
+
+    private void writeVarInt(int value) throws IOException {
+      int remaining = value;
+      while ((remaining & ~0x7F) != 0) {
+        out.writeByte((remaining & 0x7F) | 0x80);
+        remaining >>>= 7;
+      }
+      out.writeByte(remaining);
+    }
+  }
+}
@@ -33,22 +33,35 @@ import static org.sonar.python.types.InferredTypes.anyType;
 class UnionType implements InferredType {
 
   private final Set<InferredType> types;
+  private final int hashCode;
 
-  private UnionType(Set<InferredType> types) {
+  UnionType(Set<InferredType> types) {
     this.types = types;
+    this.hashCode = Objects.hash(types);
   }
 
   public static InferredType or(InferredType type1, InferredType type2) {
     if (type1.equals(anyType()) || type2.equals(anyType())) {
       return anyType();
     }
-    if (type1.equals(type2)) {
+    if (type1.equals(type2) || contains(type1, type2)) {
       return type1;
     }
+    if (contains(type2, type1)) {
+      return type2;
+    }
     Set<InferredType> types = new HashSet<>();
     addTypes(type1, types);
     addTypes(type2, types);
-    return new UnionType(types);
+    return TypeInterner.unionType(types);
+  }
+
+  private static boolean contains(InferredType union, InferredType type) {
+    if (!(union instanceof UnionType)) {
+      return false;
+    }
+    Set<InferredType> unionTypes = ((UnionType) union).types;
+    return type instanceof UnionType ? unionTypes.containsAll(((UnionType) type).types) : unionTypes.contains(type);
   }
 
   private static void addTypes(InferredType type, Set<InferredType> types) {
@@ -138,12 +151,12 @@ class UnionType implements InferredType {
       return false;
     }
     UnionType unionType = (UnionType) o;
-    return Objects.equals(types, unionType.types);
+    return hashCode == unionType.hashCode && Objects.equals(types, unionType.types);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(types);
+    return hashCode;
   }
 
   @Override
@@ -151,6 +164,18 @@ class UnionType implements InferredType {
     return "UnionType" + types;
   }
 
+  /**
+   * Whether the given types, equal to the members of this union, are also the same instances.
+   */
+  boolean hasSameMembers(Set<InferredType> otherTypes) {
+    for (InferredType otherType : otherTypes) {
+      if (types.stream().noneMatch(type -> type == otherType)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   Set<InferredType> types() {
     return Collections.unmodifiableSet(types);
   }
@@ -662,6 +662,26 @@ public class ControlFlowGraphTest {
     assertThat(cfg.start().elements()).extracting(element -> ((Parameter) element).name().name()).containsExactlyInAnyOrder("p1", "p2", "p3", "p4");
   }
 
+  @Test
+  public void built_once_per_tree() {
+    long builtGraphs = ControlFlowGraph.builtGraphs();
+    long reusedGraphs = ControlFlowGraph.reusedGraphs();
+    // the type inference already builds the graph of the function
+    FileInput fileInput = PythonTestUtils.parse("def f(p): return p");
+    FunctionDef fun = (FunctionDef) fileInput.statements().statements().get(0);
+    ControlFlowGraph cfg = ControlFlowGraph.build(fun, file);
+    assertThat(ControlFlowGraph.build(fun, file)).isSameAs(cfg);
+    assertThat(ControlFlowGraph.build(fileInput, file)).isNotSameAs(cfg);
+    assertThat(ControlFlowGraph.builtGraphs() - builtGraphs).isEqualTo(2);
+    assertThat(ControlFlowGraph.reusedGraphs() - reusedGraphs).isEqualTo(2);
+
+    fileInput = PythonTestUtils.parse("def f():", "  continue");
+    fun = (FunctionDef) fileInput.statements().statements().get(0);
+    assertThat(ControlFlowGraph.build(fun, file)).isNull();
+    assertThat(ControlFlowGraph.build(fun, file)).isNull();
+    assertThat(ControlFlowGraph.builtGraphs() - builtGraphs).isEqualTo(3);
+  }
+
   @Test
   public void successors_predecessors_order() {
     ControlFlowGraph cfg = cfg(
@@ -0,0 +1,87 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python;
+
+import org.junit.After;
+import org.junit.Test;
+import org.sonar.plugins.python.api.cfg.ControlFlowGraph;
+import org.sonar.plugins.python.api.tree.FileInput;
+import org.sonar.plugins.python.api.tree.FunctionDef;
+import org.sonar.plugins.python.api.tree.Name;
+import org.sonar.plugins.python.api.tree.Tree;
+import org.sonar.plugins.python.api.types.BuiltinTypes;
+import org.sonar.python.types.InferredTypes;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.python.PythonTestUtils.getFirstChild;
+import static org.sonar.python.PythonTestUtils.parse;
+import static org.sonar.python.PythonTestUtils.parseWithoutSymbols;
+import static org.sonar.python.PythonTestUtils.pythonFile;
+
+public class FileAnalysisBudgetTest {
+
+  @After
+  public void stop() {
+    FileAnalysisBudget.stop();
+  }
+
+  @Test
+  public void no_budget() {
+    assertThat(FileAnalysisBudget.isExceeded()).isFalse();
+    assertThat(FileAnalysisBudget.stop()).isFalse();
+  }
+
+  @Test
+  public void budget() {
+    FileAnalysisBudget.start(60_000);
+    assertThat(FileAnalysisBudget.isExceeded()).isFalse();
+    assertThat(FileAnalysisBudget.stop()).isFalse();
+
+    FileAnalysisBudget.start(-1);
+    assertThat(FileAnalysisBudget.isExceeded()).isTrue();
+    assertThat(FileAnalysisBudget.stop()).isTrue();
+    assertThat(FileAnalysisBudget.isExceeded()).isFalse();
+
+    FileAnalysisBudget.startExceeded();
+    assertThat(FileAnalysisBudget.stop()).isTrue();
+  }
+
+  @Test
+  public void expensive_analyses_are_skipped_once_exceeded() {
+    String[] code = {
+      "def foo():",
+      "  x = 42",
+      "  return x"
+    };
+    FileInput fileInput = parseWithoutSymbols(code);
+    FunctionDef functionDef = getFirstChild(fileInput, t -> t.is(Tree.Kind.FUNCDEF));
+    FileAnalysisBudget.startExceeded();
+    assertThat(ControlFlowGraph.build(functionDef, pythonFile("mod"))).isNull();
+
+    fileInput = parse(code);
+    Name returnedName = getFirstChild(fileInput, t -> t.is(Tree.Kind.NAME) && t.parent().is(Tree.Kind.RETURN_STMT));
+    assertThat(returnedName.type()).isEqualTo(InferredTypes.anyType());
+    FileAnalysisBudget.stop();
+
+    fileInput = parse(code);
+    returnedName = getFirstChild(fileInput, t -> t.is(Tree.Kind.NAME) && t.parent().is(Tree.Kind.RETURN_STMT));
+    assertThat(returnedName.type().canOnlyBe(BuiltinTypes.INT)).isTrue();
+  }
+}
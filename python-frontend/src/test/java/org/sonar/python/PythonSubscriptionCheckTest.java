@@ -20,21 +20,32 @@
 package org.sonar.python;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import javax.annotation.Nullable;
 import org.junit.Test;
 import org.sonar.plugins.python.api.IssueLocation;
+import org.sonar.plugins.python.api.LocationInFile;
 import org.sonar.plugins.python.api.PythonCheck;
+import org.sonar.plugins.python.api.PythonFile;
 import org.sonar.plugins.python.api.PythonSubscriptionCheck;
 import org.sonar.plugins.python.api.PythonVisitorContext;
 import org.sonar.plugins.python.api.PythonCheck.PreciseIssue;
+import org.sonar.plugins.python.api.SubscriptionContext;
+import org.sonar.plugins.python.api.symbols.Symbol;
 import org.sonar.plugins.python.api.tree.FunctionDef;
 import org.sonar.plugins.python.api.tree.Name;
 import org.sonar.plugins.python.api.tree.Token;
 import org.sonar.plugins.python.api.tree.Tree;
 import org.sonar.plugins.python.api.tree.Trivia;
+import org.sonar.python.cfg.fixpoint.DataflowAnalyses;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.python.PythonTestUtils.getFirstDescendant;
 
 public class PythonSubscriptionCheckTest {
 
@@ -153,7 +164,123 @@ public class PythonSubscriptionCheckTest {
     assertThat(issues.get(0).primaryLocation().startLine()).isEqualTo(8);
   }
 
+  @Test
+  public void test_call_expression_consumer() {
+    TestPythonCheck check = new TestPythonCheck() {
+      @Override
+      public void initialize(Context context) {
+        context.registerCallExpressionConsumer(Collections.singleton("print"), ctx -> ctx.addIssue(ctx.syntaxNode(), MESSAGE));
+        context.registerCallExpressionConsumer(Collections.singleton("len"), ctx -> ctx.addIssue(ctx.syntaxNode(), "len"));
+      }
+    };
+    List<PreciseIssue> issues = scanFileForIssues(FILE, check);
+    assertThat(issues).hasSize(1);
+    assertThat(issues.get(0).primaryLocation().startLine()).isEqualTo(2);
+    assertThat(issues.get(0).primaryLocation().message()).isEqualTo(MESSAGE);
+  }
+
+  @Test
+  public void test_default_call_expression_consumer() {
+    TestPythonCheck check = new TestPythonCheck() {
+      @Override
+      public void initialize(Context context) {
+        Context syntaxNodeContext = context::registerSyntaxNodeConsumer;
+        syntaxNodeContext.registerCallExpressionConsumer(new HashSet<>(Arrays.asList("print", "len")), ctx -> ctx.addIssue(ctx.syntaxNode(), MESSAGE));
+      }
+    };
+    List<PreciseIssue> issues = scanFileForIssues(FILE, check);
+    assertThat(issues).hasSize(1);
+    assertThat(issues.get(0).primaryLocation().startLine()).isEqualTo(2);
+  }
+
+  @Test
+  public void test_shared_dataflow_analyses() {
+    List<DataflowAnalyses> analyses = new ArrayList<>();
+    PythonSubscriptionCheck check = new TestPythonCheck() {
+      @Override
+      public void initialize(Context context) {
+        context.registerSyntaxNodeConsumer(Tree.Kind.FUNCDEF, ctx -> analyses.add(SubscriptionVisitor.dataflowAnalyses(ctx)));
+        context.registerSyntaxNodeConsumer(Tree.Kind.NAME, ctx -> analyses.add(SubscriptionVisitor.dataflowAnalyses(ctx)));
+      }
+    };
+    scanFileForIssues(FILE, check);
+    assertThat(analyses.size()).isGreaterThan(2);
+    assertThat(new HashSet<>(analyses)).hasSize(1);
+  }
+
+  @Test
+  public void test_dataflow_analyses_of_other_contexts() {
+    PythonVisitorContext visitorContext = TestPythonVisitorRunner.createContext(FILE);
+    FunctionDef functionDef = getFirstDescendant(visitorContext.rootTree(), t -> t.is(Tree.Kind.FUNCDEF));
+    SubscriptionContext subscriptionContext = new FileSubscriptionContext(visitorContext.pythonFile());
+    DataflowAnalyses analyses = SubscriptionVisitor.dataflowAnalyses(subscriptionContext);
+    assertThat(analyses).isNotSameAs(SubscriptionVisitor.dataflowAnalyses(subscriptionContext));
+    assertThat(analyses.liveVariables(functionDef)).isNotNull();
+    assertThat(analyses.definedVariables(functionDef)).isNotNull();
+  }
+
   private abstract static class TestPythonCheck extends PythonSubscriptionCheck {
 
   }
+
+  /**
+   * Implementation of the plugin API outside of this analyzer.
+   */
+  private static class FileSubscriptionContext implements SubscriptionContext {
+    private final PythonFile pythonFile;
+
+    private FileSubscriptionContext(PythonFile pythonFile) {
+      this.pythonFile = pythonFile;
+    }
+
+    @Override
+    public PythonFile pythonFile() {
+      return pythonFile;
+    }
+
+    @Override
+    public Tree syntaxNode() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public PreciseIssue addIssue(Tree element, @Nullable String message) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public PreciseIssue addIssue(LocationInFile location, @Nullable String message) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public PreciseIssue addIssue(Token token, @Nullable String message) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public PreciseIssue addIssue(Token from, Token to, @Nullable String message) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public PreciseIssue addFileIssue(String finalMessage) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public PreciseIssue addLineIssue(String message, int lineNumber) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Collection<Symbol> stubFilesSymbols() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public File workingDirectory() {
+      throw new UnsupportedOperationException();
+    }
+  }
 }
@@ -60,14 +60,14 @@ public final class PythonTestUtils {
 
   public static FileInput parse(SymbolTableBuilder symbolTableBuilder, String... lines) {
     String code = String.join(System.getProperty("line.separator"), lines);
-    FileInput tree = pythonTreeMaker.fileInput(p.parse(code));
+    FileInput tree = pythonTreeMaker.consumeFileInput(p.parse(code));
     symbolTableBuilder.visitFileInput(tree);
     return tree;
   }
 
   public static FileInput parseWithoutSymbols(String... lines) {
     String code = String.join(System.getProperty("line.separator"), lines);
-    return pythonTreeMaker.fileInput(p.parse(code));
+    return pythonTreeMaker.consumeFileInput(p.parse(code));
   }
 
 
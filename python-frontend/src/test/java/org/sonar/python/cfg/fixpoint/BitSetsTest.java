@@ -0,0 +1,84 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python.cfg.fixpoint;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BitSetsTest {
+
+  @Test
+  public void set_get_and_iterate_over_several_words() {
+    long[] bits = BitSets.create(130);
+    assertThat(bits).hasSize(3);
+    BitSets.set(bits, 0);
+    BitSets.set(bits, 63);
+    BitSets.set(bits, 64);
+    BitSets.set(bits, 129);
+    assertThat(BitSets.get(bits, 63)).isTrue();
+    assertThat(BitSets.get(bits, 65)).isFalse();
+    List<Integer> indexes = new ArrayList<>();
+    BitSets.forEach(bits, indexes::add);
+    assertThat(indexes).containsExactly(0, 63, 64, 129);
+
+    BitSets.clear(bits);
+    assertThat(bits).containsOnly(0L);
+  }
+
+  @Test
+  public void transfer() {
+    long[] gen = BitSets.create(100);
+    long[] kill = BitSets.create(100);
+    long[] input = BitSets.create(100);
+    long[] output = BitSets.create(100);
+    BitSets.set(gen, 1);
+    BitSets.set(kill, 2);
+    BitSets.set(input, 2);
+    BitSets.set(input, 70);
+
+    assertThat(BitSets.transfer(output, gen, input, kill)).isTrue();
+    List<Integer> indexes = new ArrayList<>();
+    BitSets.forEach(output, indexes::add);
+    assertThat(indexes).containsExactly(1, 70);
+    assertThat(BitSets.transfer(output, gen, input, kill)).isFalse();
+  }
+
+  @Test
+  public void set_operations() {
+    long[] bits1 = BitSets.create(70);
+    long[] bits2 = BitSets.create(70);
+    BitSets.set(bits1, 3);
+    BitSets.set(bits2, 66);
+    assertThat(BitSets.intersects(bits1, bits2)).isFalse();
+
+    BitSets.or(bits1, bits2);
+    assertThat(BitSets.intersects(bits1, bits2)).isTrue();
+    BitSets.andNot(bits1, bits2);
+    assertThat(BitSets.get(bits1, 3)).isTrue();
+    assertThat(BitSets.get(bits1, 66)).isFalse();
+
+    long[] copy = BitSets.create(70);
+    BitSets.copy(bits2, copy);
+    assertThat(copy).isEqualTo(bits2);
+  }
+}
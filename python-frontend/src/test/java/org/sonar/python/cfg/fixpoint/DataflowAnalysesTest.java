@@ -0,0 +1,68 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python.cfg.fixpoint;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.sonar.plugins.python.api.PythonFile;
+import org.sonar.plugins.python.api.tree.FileInput;
+import org.sonar.plugins.python.api.tree.FunctionDef;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.plugins.python.api.tree.Tree.Kind.FUNCDEF;
+import static org.sonar.python.PythonTestUtils.getFirstDescendant;
+import static org.sonar.python.PythonTestUtils.parse;
+
+public class DataflowAnalysesTest {
+  private final PythonFile file = Mockito.mock(PythonFile.class, "file1.py");
+  private final DataflowAnalyses analyses = new DataflowAnalyses(file);
+
+  @Test
+  public void computed_once_per_function() {
+    FileInput fileInput = parse(
+      "def f(p):",
+      "  x = p",
+      "  return x",
+      "def g(): pass"
+    );
+    FunctionDef f = getFirstDescendant(fileInput, t -> t.is(FUNCDEF) && ((FunctionDef) t).name().name().equals("f"));
+    FunctionDef g = getFirstDescendant(fileInput, t -> t.is(FUNCDEF) && ((FunctionDef) t).name().name().equals("g"));
+
+    LiveVariablesAnalysis liveVariables = analyses.liveVariables(f);
+    assertThat(liveVariables).isNotNull();
+    assertThat(analyses.liveVariables(f)).isSameAs(liveVariables);
+    assertThat(analyses.liveVariables(g)).isNotSameAs(liveVariables);
+
+    DefinedVariablesAnalysis definedVariables = analyses.definedVariables(f);
+    assertThat(definedVariables).isNotNull();
+    assertThat(analyses.definedVariables(f)).isSameAs(definedVariables);
+  }
+
+  @Test
+  public void no_control_flow_graph() {
+    FileInput fileInput = parse(
+      "def f():",
+      "  continue"
+    );
+    FunctionDef f = getFirstDescendant(fileInput, t -> t.is(FUNCDEF));
+    assertThat(analyses.liveVariables(f)).isNull();
+    assertThat(analyses.definedVariables(f)).isNull();
+  }
+}
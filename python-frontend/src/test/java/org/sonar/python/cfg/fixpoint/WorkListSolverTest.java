@@ -0,0 +1,122 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python.cfg.fixpoint;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.sonar.plugins.python.api.PythonFile;
+import org.sonar.plugins.python.api.cfg.CfgBlock;
+import org.sonar.plugins.python.api.cfg.ControlFlowGraph;
+import org.sonar.plugins.python.api.tree.FunctionDef;
+import org.sonar.python.cfg.fixpoint.WorkListSolver.Direction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.plugins.python.api.tree.Tree.Kind.FUNCDEF;
+import static org.sonar.python.PythonTestUtils.getFirstDescendant;
+import static org.sonar.python.PythonTestUtils.parse;
+
+public class WorkListSolverTest {
+  private final PythonFile file = Mockito.mock(PythonFile.class, "file1.py");
+
+  @Test
+  public void reverse_postorder_for_forward_problems() {
+    ControlFlowGraph cfg = cfg(
+      "def f(x):",
+      "  x = 1",
+      "  while x:",
+      "    x = 2",
+      "  return x"
+    );
+    WorkListSolver solver = new WorkListSolver(cfg, Direction.FORWARD);
+    assertThat(solver.blockCount()).isEqualTo(cfg.blocks().size());
+    assertThat(solver.block(0)).isSameAs(cfg.start());
+    assertThat(solver.id(cfg.start())).isZero();
+    for (int id = 1; id < solver.blockCount(); id++) {
+      // back edges aside, a block comes after its predecessors
+      assertThat(solver.flowPredecessors(id)).hasSize(solver.block(id).predecessors().size()).isNotEmpty();
+      assertThat(Arrays.stream(solver.flowPredecessors(id)).min().getAsInt()).isLessThan(id);
+    }
+  }
+
+  @Test
+  public void postorder_for_backward_problems() {
+    ControlFlowGraph cfg = cfg(
+      "def f(x):",
+      "  x = 1",
+      "  while x:",
+      "    x = 2",
+      "  return x"
+    );
+    WorkListSolver solver = new WorkListSolver(cfg, Direction.BACKWARD);
+    WorkListSolver forwardSolver = new WorkListSolver(cfg, Direction.FORWARD);
+    int lastId = solver.blockCount() - 1;
+    assertThat(solver.block(lastId)).isSameAs(cfg.start());
+    for (int id = 0; id <= lastId; id++) {
+      assertThat(solver.block(id)).isSameAs(forwardSolver.block(lastId - id));
+    }
+    assertThat(solver.flowPredecessors(lastId)).hasSize(cfg.start().successors().size());
+  }
+
+  @Test
+  public void unreachable_blocks_are_visited() {
+    ControlFlowGraph cfg = cfg(
+      "def f():",
+      "  return",
+      "  x = 1"
+    );
+    WorkListSolver solver = new WorkListSolver(cfg, Direction.FORWARD);
+    assertThat(solver.blockCount()).isEqualTo(cfg.blocks().size());
+    Set<CfgBlock> visited = new HashSet<>();
+    assertThat(solver.solve(id -> {
+      visited.add(solver.block(id));
+      return false;
+    })).isEqualTo(cfg.blocks().size());
+    assertThat(visited).isEqualTo(cfg.blocks());
+  }
+
+  @Test
+  public void pending_blocks_are_not_queued_twice() {
+    ControlFlowGraph cfg = cfg(
+      "def f(x):",
+      "  x = 1",
+      "  while x:",
+      "    x = 2",
+      "  return x"
+    );
+    WorkListSolver solver = new WorkListSolver(cfg, Direction.FORWARD);
+    long solvedProblems = WorkListSolver.solvedProblems();
+    long visitedBlocks = WorkListSolver.visitedBlocks();
+    Set<CfgBlock> changed = new HashSet<>();
+    // every output changes on the first visit only: only the loop condition, target of the back edge, is visited again
+    int visits = solver.solve(id -> changed.add(solver.block(id)));
+    assertThat(visits).isEqualTo(cfg.blocks().size() + 1);
+    assertThat(WorkListSolver.solvedProblems() - solvedProblems).isEqualTo(1);
+    assertThat(WorkListSolver.visitedBlocks() - visitedBlocks).isEqualTo(visits);
+    assertThat(WorkListSolver.maxVisitedBlocks()).isGreaterThanOrEqualTo(visits);
+  }
+
+  private ControlFlowGraph cfg(String... lines) {
+    FunctionDef functionDef = getFirstDescendant(parse(lines), t -> t.is(FUNCDEF));
+    return ControlFlowGraph.build(functionDef, file);
+  }
+}
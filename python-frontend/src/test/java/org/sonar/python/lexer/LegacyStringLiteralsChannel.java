@@ -30,9 +30,11 @@ import org.sonar.sslr.channel.Channel;
 import org.sonar.sslr.channel.CodeReader;
 
 /**
+ * The string literal channel of {@link LegacyPythonLexer}.
+ *
  * http://docs.python.org/reference/lexical_analysis.html#string-literals
  */
-public class StringLiteralsChannel extends Channel<Lexer> {
+class LegacyStringLiteralsChannel extends Channel<Lexer> {
 
   private static final char EOF = (char) -1;
   private static final Set<Character> PREFIX_CHARS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList('R', 'F', 'U', 'B')));
@@ -0,0 +1,152 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python.lexer;
+
+import com.sonar.sslr.api.Token;
+import com.sonar.sslr.api.Trivia;
+import com.sonar.sslr.impl.Lexer;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that {@link PythonLexer} produces the same tokens as {@link LegacyPythonLexer}, the regular expression channels
+ * it replaced. The ruling corpus (its/sources) is compared when the submodule is checked out.
+ */
+public class PythonLexerDifferentialTest {
+
+  private static final String[] CORPORA = {
+    "../its/sources",
+    "src/test/resources",
+    "src/main/resources/org/sonar/python/types",
+    "../python-checks/src/test/resources",
+    "../sonar-python-plugin/src/test/resources"
+  };
+
+  private static final String[] FRAGMENTS = {"0", "1", "7", "8", "9", "_", "__", ".", "e", "E", "+", "-", "j", "J", "l", "L", "x", "X", "o", "O",
+    "b", "B", "r", "R", "f", "F", "u", "U", "a", "'", "\"", "'''", "\"\"\"", "\\", "\n", "\r", " ", "\t", "\f", "#", "{", "}", "(", "é",
+    "́", "𝔘", "\uD835", "·", "Ⅰ", "if", "else", "￿", "z", "\u000B", "٠"};
+
+  @Test
+  public void same_tokens_on_corpora() throws IOException {
+    List<Path> files = new ArrayList<>();
+    for (String corpus : CORPORA) {
+      File directory = new File(corpus);
+      if (directory.isDirectory()) {
+        try (Stream<Path> paths = Files.walk(directory.toPath())) {
+          paths.filter(p -> p.toString().endsWith(".py") || p.toString().endsWith(".pyi")).forEach(files::add);
+        }
+      }
+    }
+    assertThat(files.size()).isGreaterThan(1000);
+    List<String> mismatches = new ArrayList<>();
+    for (Path file : files) {
+      String code = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+      compare(file.toString(), code, mismatches);
+    }
+    assertThat(mismatches).isEmpty();
+  }
+
+  @Test
+  public void same_tokens_on_random_inputs() {
+    Random random = new Random(42);
+    List<String> mismatches = new ArrayList<>();
+    for (int i = 0; i < 20_000; i++) {
+      StringBuilder code = new StringBuilder();
+      int length = 1 + random.nextInt(12);
+      for (int k = 0; k < length; k++) {
+        code.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+      }
+      compare(code.toString(), code.toString(), mismatches);
+    }
+    assertThat(mismatches).isEmpty();
+  }
+
+  private final StatefulLexer legacyLexer = new StatefulLexer(LegacyPythonLexer::create);
+  private final StatefulLexer lexer = new StatefulLexer(PythonLexer::create);
+  private final StatefulLexer legacyFStringLexer = new StatefulLexer(LegacyPythonLexer::fStringLexer);
+  private final StatefulLexer fStringLexer = new StatefulLexer(PythonLexer::fStringLexer);
+
+  private void compare(String name, String code, List<String> mismatches) {
+    compare(name, code, legacyLexer, lexer, mismatches);
+    compare(name + " (f-string lexer)", code, legacyFStringLexer, fStringLexer, mismatches);
+  }
+
+  private static void compare(String name, String code, StatefulLexer expectedLexer, StatefulLexer actualLexer, List<String> mismatches) {
+    String expected = expectedLexer.lex(code);
+    String actual = actualLexer.lex(code);
+    if (!expected.equals(actual)) {
+      mismatches.add(name + ": expected <" + firstDifference(expected, actual) + "> but was <" + firstDifference(actual, expected) + ">");
+    }
+  }
+
+  private static String describe(Token token) {
+    StringBuilder sb = new StringBuilder();
+    for (Trivia trivia : token.getTrivia()) {
+      sb.append("trivia ").append(describeToken(trivia.getToken())).append('\n');
+    }
+    return sb.append(describeToken(token)).toString();
+  }
+
+  private static String describeToken(Token token) {
+    return token.getType() + " " + token.getValue() + " " + token.getOriginalValue() + " " + token.getLine() + ":" + token.getColumn();
+  }
+
+  private static String firstDifference(String text, String other) {
+    String[] lines = text.split("\n", -1);
+    String[] otherLines = other.split("\n", -1);
+    for (int i = 0; i < lines.length; i++) {
+      if (i >= otherLines.length || !lines[i].equals(otherLines[i])) {
+        return lines[i];
+      }
+    }
+    return "end of tokens";
+  }
+
+  private static class StatefulLexer {
+    private final LexerState lexerState = new LexerState();
+    private final Lexer lexer;
+
+    StatefulLexer(Function<LexerState, Lexer> lexerFactory) {
+      this.lexer = lexerFactory.apply(lexerState);
+    }
+
+    String lex(String code) {
+      lexerState.reset();
+      try {
+        return lexer.lex(code).stream().map(PythonLexerDifferentialTest::describe).collect(Collectors.joining("\n"));
+      } catch (RuntimeException e) {
+        return e.getClass().getName() + " " + e.getMessage();
+      }
+    }
+  }
+
+}
@@ -25,6 +25,7 @@ import com.sonar.sslr.api.Token;
 import com.sonar.sslr.impl.Lexer;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.sonar.python.api.PythonKeyword;
@@ -114,6 +115,8 @@ public class PythonLexerTest {
 
     assertThat("unterminated", lexer.lex("'''"), hasToken("'", GenericTokenType.UNKNOWN_CHAR));
     assertThat("unterminated", lexer.lex("\"\"\""), hasToken("\"", GenericTokenType.UNKNOWN_CHAR));
+    assertThat("unterminated with prefix", lexer.lex("b'''foo"), hasToken("b''", PythonTokenType.STRING));
+    assertThat("unterminated with prefix", lexer.lex("u'''foo"), hasToken("u", GenericTokenType.IDENTIFIER));
   }
 
   /**
@@ -190,6 +193,11 @@ public class PythonLexerTest {
     assertThat("2.7.3 long hex integer", lexer.lex("0xffL"), hasToken("0xffL", PythonTokenType.NUMBER));
 
     assertThat("2.7.3 octal integer", lexer.lex("0700"), hasToken("0700", PythonTokenType.NUMBER));
+
+    assertThat(lexer.lex("0x"), hasToken("0", PythonTokenType.NUMBER));
+    assertThat(lexer.lex("0o8"), hasToken("0", PythonTokenType.NUMBER));
+    assertThat(lexer.lex("0778"), allOf(hasToken("077", PythonTokenType.NUMBER), hasToken("8", PythonTokenType.NUMBER)));
+    assertThat(lexer.lex("1__0"), hasToken("1", PythonTokenType.NUMBER));
   }
 
   /**
@@ -207,6 +215,8 @@ public class PythonLexerTest {
     assertThat(lexer.lex("3_0.1_4e-1_0"), hasToken("3_0.1_4e-1_0", PythonTokenType.NUMBER));
     assertThat(lexer.lex("0e0"), hasToken("0e0", PythonTokenType.NUMBER));
     assertThat(lexer.lex("0_0e0_0"), hasToken("0_0e0_0", PythonTokenType.NUMBER));
+    assertThat(lexer.lex("1e+"), hasToken("1", PythonTokenType.NUMBER));
+    assertThat(lexer.lex("1.e"), hasToken("1.", PythonTokenType.NUMBER));
   }
 
   /**
@@ -232,6 +242,21 @@ public class PythonLexerTest {
   public void identifiers_and_keywords() {
     assertThat(lexer.lex("class"), hasToken("class", PythonKeyword.CLASS));
     assertThat(lexer.lex("identifier"), hasToken("identifier", GenericTokenType.IDENTIFIER));
+    assertThat(lexer.lex("classes"), hasToken("classes", GenericTokenType.IDENTIFIER));
+    assertThat(lexer.lex("Class"), hasToken("Class", GenericTokenType.IDENTIFIER));
+  }
+
+  @Test
+  public void shared_token_values() {
+    List<Token> tokens = lexer.lex("if foo:\n  foo = 42\nif foo:\n  foo = 42");
+    List<Token> foos = tokens.stream().filter(t -> t.getValue().equals("foo")).collect(Collectors.toList());
+    assertThat(foos).hasSize(4);
+    assertThat(foos).allMatch(t -> t.getValue() == foos.get(0).getValue());
+    List<Token> indents = tokens.stream().filter(t -> t.getType() == PythonTokenType.INDENT).collect(Collectors.toList());
+    assertThat(indents).hasSize(2);
+    assertThat(indents.get(0).getValue()).isSameAs(indents.get(1).getValue());
+    List<Token> strings = lexer.lex("'foo' 'foo'");
+    assertThat(strings.get(0).getValue()).isNotSameAs(strings.get(1).getValue());
   }
 
   /**
@@ -313,5 +338,7 @@ public class PythonLexerTest {
     assertThat(lexer.lex("_hello123"), hasToken(GenericTokenType.IDENTIFIER));
     assertThat(lexer.lex("こんにちは"), hasToken(GenericTokenType.IDENTIFIER));
     assertThat(lexer.lex("_你好"), hasToken(GenericTokenType.IDENTIFIER));
+    assertThat(lexer.lex("𝔘x"), hasToken("𝔘x", GenericTokenType.IDENTIFIER));
+    assertThat(lexer.lex("é"), hasToken("é", GenericTokenType.IDENTIFIER));
   }
 }
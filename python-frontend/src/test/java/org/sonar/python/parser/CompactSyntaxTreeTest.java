@@ -0,0 +1,135 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python.parser;
+
+import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.GenericTokenType;
+import com.sonar.sslr.api.Token;
+import com.sonar.sslr.api.Trivia;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.Test;
+import org.sonar.python.api.PythonGrammar;
+import org.sonar.python.tree.PythonTreeMaker;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class CompactSyntaxTreeTest {
+
+  private final PythonParser parser = PythonParser.create();
+
+  @Test
+  public void same_tree() {
+    String code = "# comment\n" +
+      "def f(x, *args):  # other comment\n" +
+      "  if x and \\\n" +
+      "      args:\n" +
+      "    return f'{x!r:>{10}} and {args}' + \"\"\"multi\n" +
+      "line\"\"\"\n" +
+      "\n" +
+      "  pass\n" +
+      "class A:\n" +
+      "  def g(self): return [y ** 2 for y in range(3)]";
+    AstNode astNode = parser.parse(code);
+    assertThat(print(CompactSyntaxTree.of(astNode).toAstNode())).isEqualTo(print(astNode));
+  }
+
+  @Test
+  public void same_trees_as_parser() throws IOException {
+    List<Path> files;
+    try (Stream<Path> paths = Files.walk(Paths.get("src/test/resources/parser"))) {
+      files = paths.filter(path -> path.toString().endsWith(".py")).sorted().collect(Collectors.toList());
+    }
+    assertThat(files).isNotEmpty();
+    for (Path file : files) {
+      AstNode astNode = parser.parse(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+      assertThat(print(CompactSyntaxTree.of(astNode).toAstNode())).as(file.toString()).isEqualTo(print(astNode));
+    }
+  }
+
+  @Test
+  public void each_tree_is_new() {
+    CompactSyntaxTree syntaxTree = CompactSyntaxTree.of(parser.parse("x = 1\ny = 2\n"));
+    AstNode first = syntaxTree.toAstNode();
+    AstNode second = syntaxTree.toAstNode();
+    assertThat(first).isNotSameAs(second);
+    // the children of the consumed tree are removed
+    new PythonTreeMaker().consumeFileInput(first);
+    assertThat(first.getChildren()).isEmpty();
+    assertThat(second.getChildren()).extracting(AstNode::getType).containsExactly(PythonGrammar.STATEMENT, PythonGrammar.STATEMENT, GenericTokenType.EOF);
+    assertThat(print(syntaxTree.toAstNode())).isEqualTo(print(second));
+  }
+
+  @Test
+  public void smaller_than_code() {
+    StringBuilder code = new StringBuilder();
+    for (int i = 0; i < 100; i++) {
+      code.append("def function_").append(i).append("(param, *args):\n")
+        .append("  # comment\n")
+        .append("  return param.attribute[").append(i).append("] + args\n");
+    }
+    assertThat(CompactSyntaxTree.of(parser.parse(code.toString())).memorySize()).isBetween((long) code.length(), 8L * code.length());
+  }
+
+  @Test
+  public void tokens_of_different_files() {
+    AstNode root = new AstNode(PythonGrammar.FILE_INPUT, "file_input", null);
+    root.addChild(new AstNode(token("a", URI.create("file:///a.py"))));
+    root.addChild(new AstNode(token("b", URI.create("file:///b.py"))));
+    assertThatThrownBy(() -> CompactSyntaxTree.of(root))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessage("Tokens of different files: file:///a.py and file:///b.py");
+  }
+
+  private static Token token(String value, URI uri) {
+    return Token.builder().setType(GenericTokenType.IDENTIFIER).setValueAndOriginalValue(value).setLine(1).setColumn(0).setURI(uri).build();
+  }
+
+  private static String print(AstNode node) {
+    StringBuilder sb = new StringBuilder();
+    print(node, sb);
+    return sb.toString();
+  }
+
+  private static void print(AstNode node, StringBuilder sb) {
+    sb.append(node.getType()).append(' ').append(node.getName()).append(':').append(node.getFromIndex()).append('-').append(node.getToIndex());
+    if (node.hasToken()) {
+      Token token = node.getToken();
+      sb.append(' ').append(token.getType()).append(' ').append(token.getValue()).append(' ').append(token.getOriginalValue())
+        .append('@').append(token.getLine()).append(':').append(token.getColumn())
+        .append(' ').append(token.isGeneratedCode()).append(' ').append(token.getURI());
+      for (Trivia trivia : token.getTrivia()) {
+        Token comment = trivia.getToken();
+        sb.append(" #").append(comment.getValue()).append('@').append(comment.getLine()).append(':').append(comment.getColumn());
+      }
+    }
+    sb.append('(');
+    node.getChildren().forEach(child -> print(child, sb));
+    sb.append(')');
+  }
+}
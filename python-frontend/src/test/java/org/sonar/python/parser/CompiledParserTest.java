@@ -0,0 +1,88 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python.parser;
+
+import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.Grammar;
+import com.sonar.sslr.api.RecognitionException;
+import com.sonar.sslr.api.Token;
+import com.sonar.sslr.impl.Lexer;
+import com.sonar.sslr.impl.Parser;
+import com.sonar.sslr.impl.matcher.RuleDefinition;
+import java.util.List;
+import org.junit.Test;
+import org.sonar.python.api.PythonGrammar;
+import org.sonar.python.lexer.LexerState;
+import org.sonar.python.lexer.PythonLexer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class CompiledParserTest {
+
+  private final Grammar grammar = PythonGrammar.create();
+  private final Parser<Grammar> sslrParser = Parser.builder(grammar).withLexer(PythonLexer.create(new LexerState())).build();
+  private final CompiledParser compiledParser = new CompiledParser((RuleDefinition) grammar.rule(PythonGrammar.FILE_INPUT));
+
+  @Test
+  public void same_tree_as_sslr_parser() {
+    String code = "def f(x, *args):\n  if x:\n    return foo(key=[1, 2.0, 'a'])[1:2] + (lambda y: y ** 2)(3)\n  pass\nz = f(1)\n";
+    List<Token> tokens = tokens(code);
+    assertThat(print(compiledParser.parse(tokens))).isEqualTo(print(sslrParser.parse(tokens)));
+  }
+
+  @Test
+  public void compiled_grammar_is_reusable() {
+    assertThat(compiledParser.parse(tokens("x + 1")).getTokenValue()).isEqualTo("x");
+    assertThat(compiledParser.parse(tokens("y * 2")).getTokenValue()).isEqualTo("y");
+  }
+
+  @Test
+  public void parse_error() {
+    List<Token> tokens = tokens("def f(x):\n  foo(x,\n    y +\n  )\n");
+    RecognitionException expected = (RecognitionException) catchThrowable(() -> sslrParser.parse(tokens));
+    RecognitionException actual = (RecognitionException) catchThrowable(() -> compiledParser.parse(tokens));
+    assertThat(actual.getLine()).isEqualTo(4).isEqualTo(expected.getLine());
+    assertThat(actual.getMessage()).isEqualTo(expected.getMessage());
+    assertThat(actual.getMessage())
+      .startsWith("Parse error at line 4 column 2:")
+      .contains("  -->    )");
+  }
+
+  private static List<Token> tokens(String code) {
+    LexerState lexerState = new LexerState();
+    lexerState.reset();
+    Lexer lexer = PythonLexer.create(lexerState);
+    lexer.lex(code);
+    return lexer.getTokens();
+  }
+
+  private static String print(AstNode node) {
+    StringBuilder sb = new StringBuilder();
+    print(node, sb);
+    return sb.toString();
+  }
+
+  private static void print(AstNode node, StringBuilder sb) {
+    sb.append(node.getName()).append('@').append(node.getTokenLine()).append(':').append(node.getFromIndex()).append('-').append(node.getToIndex()).append('(');
+    node.getChildren().forEach(child -> print(child, sb));
+    sb.append(')');
+  }
+}
@@ -103,6 +103,13 @@ public class FStringParserTest {
     assertThat(parse("f'{delta.days=:,d}'")).hasSize(1);
   }
 
+  @Test
+  public void parser_is_reusable() {
+    assertThat(parse("f'{x +}'")).isEmpty();
+    assertThat(parse("f'{x} {y}'")).hasSize(2);
+    assertThat(parse("f'{z}'", 3, 1).get(0).getTokens().get(1).getLine()).isEqualTo(3);
+  }
+
   private List<AstNode> parse(String tokenValue) {
     return parse(tokenValue, 1, 1);
   }
@@ -134,6 +134,26 @@ public class ClassSymbolImplTest {
     assertThat(a.resolveMember("foo")).contains(fooA);
   }
 
+  @Test
+  public void resolved_members_are_kept() {
+    ClassSymbolImpl a = new ClassSymbolImpl("a", null);
+    ClassSymbolImpl b = new ClassSymbolImpl("b", null);
+    Symbol fooB = new SymbolImpl("foo", "b.foo");
+    b.addMembers(Collections.singleton(fooB));
+    a.addSuperClass(b);
+    assertThat(a.resolveMember("foo")).contains(fooB);
+    assertThat(a.resolveMember("foo")).isSameAs(a.resolveMember("foo"));
+    assertThat(a.resolveMember("bar")).isEmpty();
+    assertThat(a.resolveMember("bar")).isEmpty();
+    assertThat(a.canHaveMember("foo")).isTrue();
+    assertThat(a.canHaveMember("foo")).isTrue();
+    assertThat(a.canHaveMember("bar")).isFalse();
+    assertThat(a.canHaveMember("bar")).isFalse();
+
+    ClassSymbol typeShedClass = TypeShed.typeShedClass("int");
+    assertThat(typeShedClass.resolveMember("real")).isSameAs(TypeShed.typeShedClass("int").resolveMember("real"));
+  }
+
   @Test
   public void should_throw_when_adding_member_after_call_to_resolveMember() {
     ClassSymbolImpl a = new ClassSymbolImpl("a", null);
@@ -37,6 +37,7 @@ import org.sonar.plugins.python.api.tree.Name;
 import org.sonar.plugins.python.api.tree.QualifiedExpression;
 import org.sonar.plugins.python.api.tree.Tree;
 import org.sonar.python.parser.PythonParser;
+import org.sonar.python.tree.FileInputImpl;
 import org.sonar.python.tree.PythonTreeMaker;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -291,6 +292,23 @@ public class FullyQualifiedNameTest {
     assertThat(b.symbol().fullyQualifiedName()).isNull();
   }
 
+  @Test
+  public void imported_modules() {
+    FileInputImpl tree = (FileInputImpl) parse(
+      new SymbolTableBuilder("my_package", pythonFile("my_module.py")),
+      "import a.b.c",
+      "import d as e",
+      "from f.g import h",
+      "from .other import i",
+      "from j import *",
+      "from ... import k",
+      "def fn():",
+      "  import l"
+    );
+    assertThat(tree.importedModulesFQN()).containsExactlyInAnyOrder(
+      "a", "a.b", "a.b.c", "d", "f", "f.g", "f.g.h", "my_package", "my_package.other", "my_package.other.i", "j", "l");
+  }
+
   @Test
   public void imported_symbol() {
     FileInput tree = parse(
@@ -30,15 +30,18 @@ import java.util.Set;
 import java.util.stream.Collectors;
 import org.junit.Test;
 import org.sonar.plugins.python.api.symbols.ClassSymbol;
+import org.sonar.plugins.python.api.symbols.FunctionSymbol;
 import org.sonar.plugins.python.api.symbols.Symbol;
 import org.sonar.plugins.python.api.symbols.Usage;
 import org.sonar.plugins.python.api.tree.CallExpression;
 import org.sonar.plugins.python.api.tree.FileInput;
 import org.sonar.plugins.python.api.tree.FunctionDef;
 import org.sonar.plugins.python.api.tree.ImportFrom;
+import org.sonar.plugins.python.api.tree.Name;
 import org.sonar.plugins.python.api.tree.QualifiedExpression;
 import org.sonar.plugins.python.api.tree.Tree;
 import org.sonar.python.PythonTestUtils;
+import org.sonar.python.types.InferredTypes;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.tuple;
@@ -412,6 +415,46 @@ public class ProjectLevelSymbolTableTest {
     assertThat(globalSymbols).extracting(Symbol::usages).allSatisfy(usages -> assertThat(usages).isEmpty());
   }
 
+  @Test
+  public void global_symbols_computed_separately() {
+    FileInput tree = parseWithoutSymbols(
+      "obj1 = 42",
+      "def fn(): pass",
+      "class A: pass"
+    );
+    Set<Symbol> globalSymbols = ProjectLevelSymbolTable.globalSymbols(tree, "my_package", pythonFile("mod.py"));
+    assertThat(globalSymbols).extracting(Symbol::fullyQualifiedName).containsExactlyInAnyOrder("my_package.mod.obj1", "my_package.mod.fn", "my_package.mod.A");
+
+    ProjectLevelSymbolTable projectLevelSymbolTable = new ProjectLevelSymbolTable();
+    assertThat(projectLevelSymbolTable.getSymbolsFromModule("my_package.mod")).isNull();
+    projectLevelSymbolTable.addModule("my_package.mod", globalSymbols);
+    assertThat(projectLevelSymbolTable.getSymbolsFromModule("my_package.mod")).isSameAs(globalSymbols);
+    assertThat(projectLevelSymbolTable.getSymbol("my_package.mod.A").kind()).isEqualTo(Symbol.Kind.CLASS);
+  }
+
+  @Test
+  public void global_symbols_computed_without_type_inference() {
+    FileInput tree = parseWithoutSymbols(
+      "def fn(p: int) -> str:",
+      "  x = 42",
+      "  return x"
+    );
+    Set<Symbol> globalSymbols = ProjectLevelSymbolTable.globalSymbols(tree, "", pythonFile("mod.py"));
+    FunctionSymbol fn = (FunctionSymbol) globalSymbols.iterator().next();
+    assertThat(fn.parameters().get(0).declaredType()).isEqualTo(InferredTypes.DECL_INT);
+    assertThat(((FunctionSymbolImpl) fn).declaredReturnType()).isEqualTo(InferredTypes.DECL_STR);
+    Name x = PythonTestUtils.getLastDescendant(tree, t -> t.is(Tree.Kind.NAME) && ((Name) t).name().equals("x"));
+    assertThat(x.type()).isEqualTo(InferredTypes.anyType());
+
+    tree = parse(
+      "def fn(p: int) -> str:",
+      "  x = 42",
+      "  return x"
+    );
+    x = PythonTestUtils.getLastDescendant(tree, t -> t.is(Tree.Kind.NAME) && ((Name) t).name().equals("x"));
+    assertThat(x.type()).isEqualTo(InferredTypes.INT);
+  }
+
   @Test
   public void global_symbols_private_by_convention() {
     // although being private by convention, it's considered as exported
@@ -28,6 +28,7 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -157,6 +158,49 @@ public class PythonTreeMakerTest extends RuleTest {
     assertThat(functionDef.is(Tree.Kind.WHILE_STMT, Tree.Kind.CLASSDEF)).isFalse();
   }
 
+  @Test
+  public void subtree_kinds() {
+    FileInput fileInput = parse("def foo(): pass\nclass A:\n  x = bar()", treeMaker::fileInput);
+    FunctionDef functionDef = (FunctionDef) fileInput.statements().statements().get(0);
+    ClassDef classDef = (ClassDef) fileInput.statements().statements().get(1);
+    long[] callExpressions = PyTree.kindsMask(Collections.singletonList(Tree.Kind.CALL_EXPR));
+    assertThat(((PyTree) fileInput).subtreeContainsAnyKind(callExpressions)).isTrue();
+    assertThat(((PyTree) classDef).subtreeContainsAnyKind(callExpressions)).isTrue();
+    assertThat(((PyTree) functionDef).subtreeContainsAnyKind(callExpressions)).isFalse();
+    assertThat(((PyTree) functionDef).subtreeContainsAnyKind(PyTree.kindsMask(Arrays.asList(Tree.Kind.CALL_EXPR, Tree.Kind.PASS_STMT)))).isTrue();
+    assertThat(((PyTree) functionDef.name()).subtreeContainsAnyKind(PyTree.kindsMask(Collections.singletonList(Tree.Kind.TOKEN)))).isTrue();
+    assertThat(((PyTree) functionDef.name()).subtreeContainsAnyKind(PyTree.kindsMask(Collections.emptyList()))).isFalse();
+
+    setRootRule(PythonGrammar.EXPR);
+    Expression expression = parse("foo()", treeMaker::expression);
+    assertThat(((PyTree) expression).subtreeContainsAnyKind(PyTree.kindsMask(Collections.emptyList()))).isTrue();
+  }
+
+  @Test
+  public void consume_file_input() {
+    String code = "'''doc'''\nimport os; x = 1\n\nif x:\n  def foo(): return f'{x}'\nelse:\n  pass\n";
+    FileInput expected = parse(code, treeMaker::fileInput);
+    AstNode astNode = p.parse(code);
+    FileInput fileInput = treeMaker.consumeFileInput(astNode);
+    assertThat(astNode.getChildren()).isEmpty();
+    assertThat(treeToString(fileInput)).isEqualTo(treeToString(expected));
+    assertThat(fileInput.docstring().trimmedQuotesValue()).isEqualTo("doc");
+    assertThat(fileInput.statements().statements().get(0).parent()).isSameAs(fileInput.statements());
+  }
+
+  private static String treeToString(Tree tree) {
+    StringBuilder sb = new StringBuilder(tree.getKind().name());
+    if (tree instanceof Token) {
+      Token token = (Token) tree;
+      sb.append(' ').append(token.value()).append(' ').append(token.line()).append(':').append(token.column());
+    }
+    sb.append('(');
+    for (Tree child : tree.children()) {
+      sb.append(child == null ? "null" : treeToString(child)).append(',');
+    }
+    return sb.append(')').toString();
+  }
+
   @Test
   public void unexpected_expression_should_throw_an_exception() {
     try {
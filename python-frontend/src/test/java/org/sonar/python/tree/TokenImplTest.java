@@ -0,0 +1,58 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python.tree;
+
+import com.sonar.sslr.api.GenericTokenType;
+import com.sonar.sslr.api.Trivia;
+import java.net.URI;
+import org.junit.Test;
+import org.sonar.python.api.PythonTokenType;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TokenImplTest {
+
+  @Test
+  public void copies_sslr_token() {
+    com.sonar.sslr.api.Token comment = sslrToken(GenericTokenType.COMMENT, "# comment", 1, 0).build();
+    com.sonar.sslr.api.Token sslrToken = sslrToken(PythonTokenType.NUMBER, "42", 2, 4)
+      .addTrivia(Trivia.createComment(comment))
+      .build();
+    TokenImpl token = new TokenImpl(sslrToken);
+    assertThat(token.value()).isEqualTo("42");
+    assertThat(token.line()).isEqualTo(2);
+    assertThat(token.column()).isEqualTo(4);
+    assertThat(token.type()).isEqualTo(PythonTokenType.NUMBER);
+    assertThat(token.trivia()).hasSize(1);
+    assertThat(token.trivia().get(0).value()).isEqualTo("# comment");
+    assertThat(token.trivia().get(0).token().line()).isEqualTo(1);
+
+    assertThat(new TokenImpl(sslrToken(PythonTokenType.NUMBER, "42", 3, 0).build()).trivia()).isEmpty();
+  }
+
+  private static com.sonar.sslr.api.Token.Builder sslrToken(com.sonar.sslr.api.TokenType type, String value, int line, int column) {
+    return com.sonar.sslr.api.Token.builder()
+      .setType(type)
+      .setValueAndOriginalValue(value)
+      .setURI(URI.create("tests://unittest"))
+      .setLine(line)
+      .setColumn(column);
+  }
+}
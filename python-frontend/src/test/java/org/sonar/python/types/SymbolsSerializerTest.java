@@ -0,0 +1,178 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python.types;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.junit.Test;
+import org.sonar.plugins.python.api.PythonFile;
+import org.sonar.plugins.python.api.symbols.AmbiguousSymbol;
+import org.sonar.plugins.python.api.symbols.ClassSymbol;
+import org.sonar.plugins.python.api.symbols.FunctionSymbol;
+import org.sonar.plugins.python.api.symbols.Symbol;
+import org.sonar.plugins.python.api.tree.FileInput;
+import org.sonar.python.semantic.ClassSymbolImpl;
+import org.sonar.python.semantic.FunctionSymbolImpl;
+import org.sonar.python.semantic.ProjectLevelSymbolTable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.python.PythonTestUtils.parseWithoutSymbols;
+import static org.sonar.python.PythonTestUtils.pythonFile;
+
+public class SymbolsSerializerTest {
+
+  @Test
+  public void classes() throws IOException {
+    Map<String, Symbol> symbols = serializeAndDeserialize(
+      "class A(Exception):",
+      "  attr = 42",
+      "  def method(self, other: A, *args, p: int = 1, **kwargs) -> str: ...",
+      "class B(A, metaclass=Meta): pass",
+      "class C(unknown): pass"
+    );
+    ClassSymbol a = (ClassSymbol) symbols.get("A");
+    assertThat(a.fullyQualifiedName()).isEqualTo("my_package.mod.A");
+    assertThat(a.definitionLocation().startLine()).isEqualTo(1);
+    assertThat(a.definitionLocation().fileId()).contains("mod");
+    // the copy of the typeshed super class is replaced by the original one
+    assertThat(a.superClasses()).containsExactly(TypeShed.typeShedClass("Exception"));
+    assertThat(a.isOrExtends("BaseException")).isTrue();
+    assertThat(a.hasUnresolvedTypeHierarchy()).isFalse();
+    assertThat(a.declaredMembers()).extracting(Symbol::name).containsExactlyInAnyOrder("attr", "method");
+
+    FunctionSymbolImpl method = (FunctionSymbolImpl) a.resolveMember("method").get();
+    assertThat(method.owner()).isSameAs(a);
+    assertThat(method.isInstanceMethod()).isTrue();
+    assertThat(method.hasVariadicParameter()).isTrue();
+    assertThat(method.declaredReturnType()).isEqualTo(InferredTypes.DECL_STR);
+    assertThat(method.parameters()).extracting(FunctionSymbol.Parameter::name).containsExactly("self", "other", "args", "p", "kwargs");
+    assertThat(((DeclaredType) method.parameters().get(1).declaredType()).getTypeClass().fullyQualifiedName()).isEqualTo("my_package.mod.A");
+    assertThat(method.parameters().get(2).declaredType()).isEqualTo(InferredTypes.TUPLE);
+    FunctionSymbol.Parameter p = method.parameters().get(3);
+    assertThat(p.declaredType()).isEqualTo(InferredTypes.DECL_INT);
+    assertThat(p.hasDefaultValue()).isTrue();
+    assertThat(p.isKeywordOnly()).isTrue();
+    assertThat(p.location().startLine()).isEqualTo(3);
+
+    ClassSymbolImpl b = (ClassSymbolImpl) symbols.get("B");
+    assertThat(b.hasMetaClass()).isTrue();
+    assertThat(b.isOrExtends("my_package.mod.A")).isTrue();
+
+    ClassSymbol c = (ClassSymbol) symbols.get("C");
+    assertThat(c.hasUnresolvedTypeHierarchy()).isTrue();
+  }
+
+  @Test
+  public void functions_and_variables() throws IOException {
+    Map<String, Symbol> symbols = serializeAndDeserialize(
+      "from datetime import date",
+      "class A:",
+      "  @overload",
+      "  def fn(a, /, b): ...",
+      "  @overload",
+      "  @some.decorator",
+      "  async def fn(p: date) -> str: ...",
+      "var: int = 42"
+    );
+    AmbiguousSymbol fn = (AmbiguousSymbol) ((ClassSymbol) symbols.get("A")).resolveMember("fn").get();
+    assertThat(fn.fullyQualifiedName()).isEqualTo("my_package.mod.A.fn");
+    Map<Boolean, FunctionSymbol> alternatives = fn.alternatives().stream()
+      .map(FunctionSymbol.class::cast)
+      .collect(Collectors.toMap(FunctionSymbol::isAsynchronous, Function.identity()));
+    FunctionSymbol syncFunction = alternatives.get(false);
+    assertThat(syncFunction.parameters().get(0).isPositionalOnly()).isTrue();
+    assertThat(syncFunction.parameters().get(1).isPositionalOnly()).isFalse();
+    FunctionSymbol asyncFunction = alternatives.get(true);
+    assertThat(asyncFunction.decorators()).containsExactly("overload", "some.decorator");
+    assertThat(((FunctionSymbolImpl) asyncFunction).declaredReturnType()).isEqualTo(InferredTypes.DECL_STR);
+    assertThat(((FunctionSymbolImpl) asyncFunction).owner()).isNull();
+    // typeshed symbols are not copied
+    Symbol date = ((DeclaredType) asyncFunction.parameters().get(0).declaredType()).getTypeClass();
+    assertThat(date).isSameAs(TypeShed.symbolWithFQN("datetime", "datetime.date"));
+
+    Symbol var = symbols.get("var");
+    assertThat(var.kind()).isEqualTo(Symbol.Kind.OTHER);
+    assertThat(var.fullyQualifiedName()).isEqualTo("my_package.mod.var");
+  }
+
+  @Test
+  public void equal_symbols_have_same_bytes() {
+    String[] code = {
+      "from typing import Union",
+      "class A(Exception):",
+      "  a1 = 1; a2 = 2; a3 = 3; a4 = 4; a5 = 5; a6 = 6; a7 = 7; a8 = 8",
+      "  def m1(self, p: Union[int, str, bytes, float, A]) -> Union[str, int, A, None]: ...",
+      "  def m2(self): ...",
+      "  def m3(self): ...",
+      "  class Nested: pass",
+      "if cond:",
+      "  def f(): ...",
+      "  class B: pass",
+      "else:",
+      "  def f(x): ...",
+      "  class B(A): pass",
+      "v1 = 1; v2 = 2; v3 = 3; v4 = 4; v5 = 5; v6 = 6; v7 = 7; v8 = 8",
+    };
+    PythonFile pythonFile = pythonFile("mod.py");
+    byte[] bytes = SymbolsSerializer.serialize(globalSymbols(pythonFile, code));
+    for (int i = 0; i < 10; i++) {
+      // new symbol instances, whose sets are iterated in another order
+      assertThat(SymbolsSerializer.serialize(globalSymbols(pythonFile, code))).isEqualTo(bytes);
+    }
+  }
+
+  @Test
+  public void size() {
+    byte[] bytes = SymbolsSerializer.serialize(globalSymbols("class A(Exception):", "  def method(self, p: int) -> str: ..."));
+    assertThat(bytes.length).isLessThan(500);
+  }
+
+  @Test(expected = IOException.class)
+  public void invalid_bytes() throws IOException {
+    SymbolsSerializer.deserialize(new byte[] {0, 0, 0, 1, 42});
+  }
+
+  @Test(expected = IOException.class)
+  public void truncated_bytes() throws IOException {
+    byte[] bytes = SymbolsSerializer.serialize(globalSymbols("class A: pass"));
+    byte[] truncated = new byte[bytes.length - 1];
+    System.arraycopy(bytes, 0, truncated, 0, truncated.length);
+    SymbolsSerializer.deserialize(truncated);
+  }
+
+  private static Map<String, Symbol> serializeAndDeserialize(String... code) throws IOException {
+    Set<Symbol> globalSymbols = globalSymbols(code);
+    Set<Symbol> deserialized = SymbolsSerializer.deserialize(SymbolsSerializer.serialize(globalSymbols));
+    assertThat(deserialized).extracting(Symbol::name).containsExactlyInAnyOrder(globalSymbols.stream().map(Symbol::name).toArray(String[]::new));
+    return deserialized.stream().collect(Collectors.toMap(Symbol::name, Function.identity()));
+  }
+
+  private static Set<Symbol> globalSymbols(String... code) {
+    return globalSymbols(pythonFile("mod.py"), code);
+  }
+
+  private static Set<Symbol> globalSymbols(PythonFile pythonFile, String... code) {
+    FileInput fileInput = parseWithoutSymbols(code);
+    return ProjectLevelSymbolTable.globalSymbols(fileInput, "my_package", pythonFile);
+  }
+}
@@ -23,7 +23,9 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
+import java.util.Set;
 import org.junit.Test;
+import org.sonar.plugins.python.api.types.InferredType;
 import org.sonar.python.cfg.fixpoint.ProgramState;
 import org.sonar.python.semantic.SymbolImpl;
 
@@ -89,4 +91,46 @@ public class TypeInferenceProgramStateTest {
     assertThat(typeInferenceProgramState.toString()).contains("b = RuntimeType(bool), RuntimeType(str)");
     assertThat(typeInferenceProgramState.toString()).contains("a = RuntimeType(int)");
   }
+
+  @Test
+  public void copy_is_not_affected_by_later_updates() {
+    TypeInferenceProgramState state = new TypeInferenceProgramState();
+    state.setTypes(a, Collections.singleton(InferredTypes.INT));
+    TypeInferenceProgramState copy = (TypeInferenceProgramState) state.copy();
+    assertThat(copy).isEqualTo(state);
+
+    copy.setTypes(a, Collections.singleton(InferredTypes.STR));
+    state.setTypes(b, Collections.singleton(InferredTypes.BOOL));
+    assertThat(state.getTypes(a)).containsExactly(InferredTypes.INT);
+    assertThat(copy.getTypes(a)).containsExactly(InferredTypes.STR);
+    assertThat(copy.getTypes(b)).isEmpty();
+  }
+
+  @Test
+  public void join() {
+    TypeInferenceProgramState state = new TypeInferenceProgramState();
+    Set<InferredType> intTypes = Collections.singleton(InferredTypes.INT);
+    state.setTypes(a, intTypes);
+    TypeInferenceProgramState other = new TypeInferenceProgramState();
+    Set<InferredType> intOrStrTypes = new HashSet<>(Arrays.asList(InferredTypes.INT, InferredTypes.STR));
+    other.setTypes(a, intOrStrTypes);
+    Set<InferredType> boolTypes = Collections.singleton(InferredTypes.BOOL);
+    other.setTypes(b, boolTypes);
+
+    TypeInferenceProgramState result = (TypeInferenceProgramState) state.join(other);
+    assertThat(result.getTypes(a)).isSameAs(intOrStrTypes);
+    assertThat(result.getTypes(b)).isSameAs(boolTypes);
+    assertThat(state.getTypes(b)).isEmpty();
+    assertThat(result.join(state)).isEqualTo(result);
+    assertThat(((TypeInferenceProgramState) result.join(state)).getTypes(a)).isSameAs(intOrStrTypes);
+    assertThat(state.join(state.copy())).isEqualTo(state);
+
+    TypeInferenceProgramState strState = new TypeInferenceProgramState();
+    strState.setTypes(a, Collections.singleton(InferredTypes.STR));
+    strState.setTypes(b, boolTypes);
+    TypeInferenceProgramState union = (TypeInferenceProgramState) strState.join(state);
+    assertThat(union.getTypes(a)).containsExactlyInAnyOrder(InferredTypes.INT, InferredTypes.STR);
+    assertThat(union.getTypes(b)).isSameAs(boolTypes);
+    assertThat(strState.getTypes(a)).containsExactly(InferredTypes.STR);
+  }
 }
@@ -0,0 +1,95 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python.types;
+
+import org.junit.Test;
+import org.sonar.plugins.python.api.types.InferredType;
+import org.sonar.python.semantic.ClassSymbolImpl;
+import org.sonar.python.semantic.SymbolImpl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.python.types.InferredTypes.or;
+import static org.sonar.python.types.InferredTypes.runtimeType;
+
+public class TypeInternerTest {
+
+  private final ClassSymbolImpl classA = new ClassSymbolImpl("A", "mod.A");
+  private final ClassSymbolImpl classB = new ClassSymbolImpl("B", "mod.B");
+  private final ClassSymbolImpl classC = new ClassSymbolImpl("C", "mod.C");
+
+  @Test
+  public void runtime_types_are_interned_per_class_symbol() {
+    InferredType a = runtimeType(classA);
+    assertThat(runtimeType(classA)).isSameAs(a);
+    InferredType otherA = runtimeType(new ClassSymbolImpl("A", "mod.A"));
+    assertThat(otherA).isNotSameAs(a).isEqualTo(a);
+
+    TypeInterner.reset();
+    assertThat(runtimeType(classA)).isNotSameAs(a).isEqualTo(a);
+  }
+
+  @Test
+  public void declared_types_are_interned_per_symbol() {
+    SymbolImpl symbol = new SymbolImpl("x", "mod.x");
+    assertThat(DeclaredType.fromInferredType(runtimeType(classA))).isSameAs(DeclaredType.fromInferredType(runtimeType(classA)));
+    assertThat(TypeInterner.declaredType(symbol)).isSameAs(TypeInterner.declaredType(symbol));
+  }
+
+  @Test
+  public void unions_of_same_members_are_shared() {
+    InferredType a = runtimeType(classA);
+    InferredType b = runtimeType(classB);
+    InferredType c = runtimeType(classC);
+    InferredType union = or(a, b);
+    assertThat(or(b, a)).isSameAs(union);
+    assertThat(or(union, a)).isSameAs(union);
+    assertThat(or(b, union)).isSameAs(union);
+    assertThat(or(or(a, b), c)).isSameAs(or(a, or(b, c)));
+    assertThat(or(union, or(a, c))).isSameAs(or(or(a, b), c));
+
+    // equal members, but of another class symbol
+    InferredType otherA = runtimeType(new ClassSymbolImpl("A", "mod.A"));
+    assertThat(or(otherA, b)).isEqualTo(union).isNotSameAs(union);
+  }
+
+  @Test
+  public void statistics() {
+    long lookups = TypeInterner.lookups();
+    long hits = TypeInterner.hits();
+    long internedTypes = TypeInterner.internedTypes();
+    runtimeType(classA);
+    runtimeType(classA);
+    assertThat(TypeInterner.lookups() - lookups).isEqualTo(2);
+    assertThat(TypeInterner.hits() - hits).isEqualTo(1);
+    assertThat(TypeInterner.internedTypes() - internedTypes).isEqualTo(1);
+  }
+
+  @Test
+  public void size() {
+    TypeInterner.reset();
+    assertThat(TypeInterner.size()).isZero();
+    runtimeType(classA);
+    runtimeType(classA);
+    or(runtimeType(classA), runtimeType(classB));
+    assertThat(TypeInterner.size()).isEqualTo(3);
+    TypeInterner.reset();
+    assertThat(TypeInterner.size()).isZero();
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python.types;
+
+import java.util.Map;
+import java.util.Set;
+import org.junit.Test;
+import org.sonar.plugins.python.api.symbols.ClassSymbol;
+import org.sonar.plugins.python.api.symbols.Symbol;
+import org.sonar.plugins.python.api.symbols.Symbol.Kind;
+import org.sonar.python.semantic.FunctionSymbolImpl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TypeShedIndexTest {
+
+  @Test
+  public void index_is_generated() {
+    assertThat(TypeShedIndex.load())
+      .as("typeshed.index.gz is generated by TypeShedIndexWriter during the build")
+      .isNotNull();
+  }
+
+  @Test
+  public void builtins() {
+    TypeShedIndex index = TypeShedIndex.load();
+    Map<String, Symbol> builtins = index.builtinSymbols();
+    index.readTypes();
+    ClassSymbol intClass = (ClassSymbol) builtins.get("int");
+    ClassSymbol boolClass = (ClassSymbol) builtins.get("bool");
+    assertThat(boolClass.superClasses()).containsExactly(intClass);
+    Symbol bitLength = intClass.resolveMember("bit_length").get();
+    assertThat(bitLength.kind()).isEqualTo(Kind.FUNCTION);
+    assertThat(((FunctionSymbolImpl) bitLength).declaredReturnType().canOnlyBe("int")).isTrue();
+    assertThat(index.moduleSymbols("")).isEmpty();
+  }
+
+  @Test
+  public void module_symbols() {
+    TypeShedIndex index = TypeShedIndex.load();
+    index.builtinSymbols();
+    Set<Symbol> symbols = index.moduleSymbols("argparse");
+    ClassSymbol argumentParser = (ClassSymbol) symbols.stream().filter(s -> s.name().equals("ArgumentParser")).findFirst().get();
+    assertThat(argumentParser.fullyQualifiedName()).isEqualTo("argparse.ArgumentParser");
+    assertThat(argumentParser.superClasses()).extracting(Symbol::fullyQualifiedName)
+      .containsExactly("argparse._AttributeHolder", "argparse._ActionsContainer");
+    assertThat(argumentParser.resolveMember("parse_args")).isPresent();
+  }
+
+  @Test
+  public void unknown_module() {
+    TypeShedIndex index = TypeShedIndex.load();
+    index.builtinSymbols();
+    assertThat(index.moduleSymbols("unknown_module")).isEmpty();
+  }
+}
@@ -0,0 +1,226 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.python.types;
+
+import com.sonar.sslr.api.AstNode;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.annotation.Nullable;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.plugins.python.api.LocationInFile;
+import org.sonar.plugins.python.api.symbols.AmbiguousSymbol;
+import org.sonar.plugins.python.api.symbols.FunctionSymbol;
+import org.sonar.plugins.python.api.symbols.Symbol;
+import org.sonar.plugins.python.api.types.InferredType;
+import org.sonar.python.semantic.ClassSymbolImpl;
+import org.sonar.python.semantic.FunctionSymbolImpl;
+import org.sonar.python.semantic.SymbolImpl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SuppressWarnings("unchecked")
+public class TypeShedIndexWriterTest {
+
+  private static final Path STUBS = Paths.get("src/main/resources/org/sonar/python/types");
+
+  // comparing all the modules would add half a minute to the tests
+  private static final int SAMPLING_INTERVAL = 10;
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void symbols_loaded_from_index_equal_parsed_symbols() throws Exception {
+    Map<String, Object> results = runWithoutIndex();
+    assertThat((List<String>) results.get("parsedBuiltins")).contains("int", "str", "list", "len");
+    assertThat((List<String>) results.get("indexedBuiltins")).containsOnlyElementsOf((List<String>) results.get("parsedBuiltins")).hasSameSizeAs((List<String>) results.get("parsedBuiltins"));
+    assertThat((List<String>) results.get("argparse")).contains("ArgumentParser");
+    assertThat((List<String>) results.get("builtinsWithDifferences")).isEmpty();
+    assertThat((List<String>) results.get("modulesWithDifferences")).isEmpty();
+  }
+
+  @Test
+  public void index_is_written_again_when_classes_change() throws IOException {
+    Path classes = temporaryFolder.newFolder().toPath();
+    Path indexFile = classes.resolve(TypeShedIndex.RESOURCE_NAME);
+    Path classFile = Files.write(classes.resolve("TypeShed.class"), new byte[] {1});
+    assertThat(TypeShedIndexWriter.isUpToDate(indexFile, classes)).isFalse();
+
+    Files.write(indexFile, new byte[] {2});
+    indexFile.toFile().setLastModified(classFile.toFile().lastModified() + 1000);
+    assertThat(TypeShedIndexWriter.isUpToDate(indexFile, classes)).isTrue();
+
+    classFile.toFile().setLastModified(indexFile.toFile().lastModified() + 1000);
+    assertThat(TypeShedIndexWriter.isUpToDate(indexFile, classes)).isFalse();
+  }
+
+  /**
+   * The index is written from the symbols {@link TypeShed} computes when it parses the stubs, i.e. when the index is
+   * disabled: this is done in a class loader of its own, so that the other tests keep loading symbols from the index.
+   */
+  private static Map<String, Object> runWithoutIndex() throws Exception {
+    URL[] classpath = Stream.of(TypeShed.class, TypeShedIndexWriterTest.class, AstNode.class, Loggers.class)
+      .map(c -> c.getProtectionDomain().getCodeSource().getLocation())
+      .toArray(URL[]::new);
+    try (URLClassLoader classLoader = new URLClassLoader(classpath, null)) {
+      Method compare = classLoader.loadClass(TypeShedIndexWriterTest.class.getName()).getMethod("compareIndexWithParsedSymbols");
+      return (Map<String, Object>) compare.invoke(null);
+    }
+  }
+
+  public static Map<String, Object> compareIndexWithParsedSymbols() throws IOException {
+    TypeShedIndex index = new TypeShedIndex(TypeShedIndexWriter.write(STUBS));
+    Map<String, Object> results = new HashMap<>();
+
+    Map<String, Symbol> parsedBuiltins = TypeShed.builtinSymbols();
+    Map<String, Symbol> indexedBuiltins = index.builtinSymbols();
+    index.readTypes();
+    results.put("parsedBuiltins", new ArrayList<>(parsedBuiltins.keySet()));
+    results.put("indexedBuiltins", new ArrayList<>(indexedBuiltins.keySet()));
+    results.put("builtinsWithDifferences", parsedBuiltins.keySet().stream()
+      .filter(key -> !describe(indexedBuiltins.get(key)).equals(describe(parsedBuiltins.get(key))))
+      .map(String::valueOf)
+      .collect(Collectors.toList()));
+
+    List<String> moduleNames = new ArrayList<>(TypeShedIndexWriter.moduleNames(STUBS));
+    List<String> sample = new ArrayList<>(Arrays.asList("argparse", "collections", "os", "os.path", "typing", "unittest", "flask", "unknown_module"));
+    for (int i = 0; i < moduleNames.size(); i += SAMPLING_INTERVAL) {
+      sample.add(moduleNames.get(i));
+    }
+    results.put("argparse", TypeShed.symbolsForModule("argparse").stream().map(Symbol::name).collect(Collectors.toList()));
+    results.put("modulesWithDifferences", sample.stream()
+      .filter(moduleName -> !describe(index.moduleSymbols(moduleName)).equals(describe(TypeShed.symbolsForModule(moduleName))))
+      .collect(Collectors.toList()));
+    return results;
+  }
+
+  private static List<String> describe(Collection<Symbol> symbols) {
+    return new SymbolDescriber().describeAll(symbols);
+  }
+
+  private static String describe(Symbol symbol) {
+    return new SymbolDescriber().describe(symbol);
+  }
+
+  /**
+   * Describes symbols and the symbols they contain, independently of the order of sets. Symbols referred to by super
+   * classes and types are only described by their fully qualified name.
+   */
+  private static class SymbolDescriber {
+    private final Map<Symbol, Boolean> symbolsInProgress = new IdentityHashMap<>();
+
+    private List<String> describeAll(Collection<? extends Symbol> symbols) {
+      return symbols.stream().map(this::describe).sorted().collect(Collectors.toList());
+    }
+
+    private String describe(Symbol symbol) {
+      if (symbolsInProgress.containsKey(symbol)) {
+        return "cycle " + symbol.fullyQualifiedName();
+      }
+      symbolsInProgress.put(symbol, true);
+      StringBuilder description = new StringBuilder()
+        .append(symbol.getClass().getSimpleName()).append(' ')
+        .append(symbol.kind()).append(' ')
+        .append(symbol.name()).append(' ')
+        .append(symbol.fullyQualifiedName());
+      if (symbol instanceof ClassSymbolImpl) {
+        ClassSymbolImpl classSymbol = (ClassSymbolImpl) symbol;
+        description
+          .append(" location=").append(location(classSymbol.definitionLocation()))
+          .append(" decorators=").append(classSymbol.hasDecorators())
+          .append(" metaclass=").append(classSymbol.hasMetaClass()).append(classSymbol.metaclassFQN())
+          .append(" unresolvedHierarchy=").append(classSymbol.hasUnresolvedTypeHierarchy())
+          .append(" superClasses=").append(classSymbol.superClasses().stream().map(Symbol::fullyQualifiedName).collect(Collectors.toList()))
+          .append(" members=").append(describeAll(classSymbol.declaredMembers()));
+      } else if (symbol instanceof FunctionSymbol) {
+        FunctionSymbol functionSymbol = (FunctionSymbol) symbol;
+        description
+          .append(" location=").append(location(functionSymbol.definitionLocation()))
+          .append(" instanceMethod=").append(functionSymbol.isInstanceMethod())
+          .append(" async=").append(functionSymbol.isAsynchronous())
+          .append(" stub=").append(functionSymbol.isStub())
+          .append(" decorators=").append(functionSymbol.decorators())
+          .append(" variadic=").append(functionSymbol.hasVariadicParameter())
+          .append(" annotatedReturnType=").append(functionSymbol.annotatedReturnTypeName())
+          .append(" declaredReturnType=").append(type(((FunctionSymbolImpl) functionSymbol).declaredReturnType()));
+        for (FunctionSymbol.Parameter parameter : functionSymbol.parameters()) {
+          description.append(" parameter=").append(parameter.name())
+            .append(':').append(type(parameter.declaredType()))
+            .append(':').append(parameter.hasDefaultValue())
+            .append(':').append(parameter.isVariadic())
+            .append(':').append(parameter.isKeywordOnly())
+            .append(':').append(parameter.isPositionalOnly())
+            .append(':').append(location(parameter.location()));
+        }
+      } else if (symbol instanceof AmbiguousSymbol) {
+        description.append(" alternatives=").append(describeAll(((AmbiguousSymbol) symbol).alternatives()));
+      } else {
+        SymbolImpl symbolImpl = (SymbolImpl) symbol;
+        description
+          .append(" annotatedType=").append(symbolImpl.annotatedTypeName())
+          .append(" children=").append(describeAll(symbolImpl.getChildrenSymbolByName().values()));
+      }
+      symbolsInProgress.remove(symbol);
+      return description.toString();
+    }
+
+    private static String type(@Nullable InferredType type) {
+      if (type == null) {
+        return "none";
+      }
+      if (type instanceof RuntimeType) {
+        return "runtime(" + ((RuntimeType) type).getTypeClass().fullyQualifiedName() + ")";
+      }
+      if (type instanceof DeclaredType) {
+        DeclaredType declaredType = (DeclaredType) type;
+        return "declared(" + declaredType.getTypeClass().fullyQualifiedName()
+          + declaredType.typeArgs().stream().map(SymbolDescriber::type).collect(Collectors.toList()) + ")";
+      }
+      if (type instanceof UnionType) {
+        return "union" + ((UnionType) type).types().stream().map(SymbolDescriber::type).sorted().collect(Collectors.toList());
+      }
+      return "any";
+    }
+
+    private static String location(@Nullable LocationInFile location) {
+      if (location == null) {
+        return "none";
+      }
+      return location.fileId() + ":" + location.startLine() + ":" + location.startLineOffset() + ":" + location.endLine() + ":" + location.endLineOffset();
+    }
+  }
+}
@@ -19,9 +19,14 @@
  */
 package org.sonar.python.types;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import org.junit.Test;
@@ -231,4 +236,22 @@ public class TypeShedTest {
       .containsAll(mathSymbols)
       .containsAll(djangoHttpSymbols);
   }
+
+  @Test
+  public void module_symbols_loaded_once_when_accessed_concurrently() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Set<Symbol>>> futures = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        futures.add(executor.submit(() -> TypeShed.symbolsForModule("smtplib")));
+      }
+      Set<Symbol> symbols = TypeShed.symbolsForModule("smtplib");
+      assertThat(symbols).isNotEmpty();
+      for (Future<Set<Symbol>> future : futures) {
+        assertThat(future.get()).isSameAs(symbols);
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
 }
@@ -0,0 +1,263 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.python;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.sensor.SensorContext;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.plugins.python.api.PythonCheck;
+import org.sonar.python.CheckExecutionListener;
+import org.sonar.python.types.TypeInference;
+
+/**
+ * Opt-in measurement of the time spent in each phase of the analysis and of the time and memory allocated by each check,
+ * to find out which rule or which file is responsible when the analysis slows down. The report is written to the working
+ * directory and summarized in the logs.
+ */
+class AnalysisProfiler {
+
+  private static final Logger LOG = Loggers.get(AnalysisProfiler.class);
+  static final String PROPERTY_NAME = "sonar.python.analysis.profiling";
+  static final String REPORT_FILE_NAME = "python-analysis-profile.txt";
+  private static final int LOGGED_ENTRIES = 10;
+  private static final int REPORTED_FILES = 50;
+
+  enum Phase {
+    // the SSLR parser lexes the whole file before parsing it, both are measured together
+    PARSE,
+    // encoding of the syntax trees kept for rules execution, whose decoding replaces their parsing
+    KEEP_TREE,
+    TREE,
+    SYMBOL_TABLE,
+    TYPE_INFERENCE,
+    CHECKS,
+    MEASURES,
+    CPD,
+    HIGHLIGHTING
+  }
+
+  private final boolean enabled;
+  @Nullable
+  private final com.sun.management.ThreadMXBean allocationBean;
+  private final Map<Phase, LongAdder> nanosByPhase = new EnumMap<>(Phase.class);
+  private final Map<String, CheckMeasures> measuresByCheck = new HashMap<>();
+  private final Map<String, LongAdder> nanosByFile = new ConcurrentHashMap<>();
+
+  private AnalysisProfiler(boolean enabled) {
+    this.enabled = enabled;
+    ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    if (enabled && threadBean instanceof com.sun.management.ThreadMXBean && ((com.sun.management.ThreadMXBean) threadBean).isThreadAllocatedMemorySupported()) {
+      allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+      allocationBean.setThreadAllocatedMemoryEnabled(true);
+    } else {
+      allocationBean = null;
+    }
+    for (Phase phase : Phase.values()) {
+      nanosByPhase.put(phase, new LongAdder());
+    }
+  }
+
+  static AnalysisProfiler create(SensorContext context) {
+    return new AnalysisProfiler(context.config().getBoolean(PROPERTY_NAME).orElse(false));
+  }
+
+  boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Measures of a single file, which is analyzed by a single thread.
+   */
+  FileProfile startFile(InputFile inputFile) {
+    return new FileProfile(inputFile);
+  }
+
+  /**
+   * Logs the slowest checks, phases and files, and writes all of them to the report when a working directory is available.
+   */
+  void report(@Nullable File workDir) {
+    if (!enabled) {
+      return;
+    }
+    List<Map.Entry<String, CheckMeasures>> checks;
+    synchronized (measuresByCheck) {
+      checks = new ArrayList<>(measuresByCheck.entrySet());
+    }
+    checks.sort(Comparator.comparingLong((Map.Entry<String, CheckMeasures> e) -> e.getValue().nanos).reversed());
+    List<Map.Entry<String, LongAdder>> files = new ArrayList<>(nanosByFile.entrySet());
+    files.sort(Comparator.comparingLong((Map.Entry<String, LongAdder> e) -> e.getValue().sum()).reversed());
+
+    LOG.info("Analysis phases: " + phasesSummary());
+    checks.stream().limit(LOGGED_ENTRIES).forEach(e -> LOG.info("Check " + e.getKey() + ": " + e.getValue()));
+    files.stream().limit(LOGGED_ENTRIES).forEach(e -> LOG.info("File " + e.getKey() + ": " + millis(e.getValue().sum()) + " ms"));
+
+    if (workDir == null) {
+      return;
+    }
+    StringWriter report = new StringWriter();
+    PrintWriter writer = new PrintWriter(report);
+    writer.println("Phases (ms)");
+    nanosByPhase.forEach((phase, nanos) -> writer.println(String.format(Locale.ENGLISH, "  %-16s %10d", phase.name().toLowerCase(Locale.ENGLISH), millis(nanos.sum()))));
+    writer.println();
+    writer.println("Checks (ms, allocated MB, executions)");
+    checks.forEach(e -> writer.println(String.format(Locale.ENGLISH, "  %-60s %10d %10d %12d",
+      e.getKey(), millis(e.getValue().nanos), e.getValue().allocatedBytes / (1024 * 1024), e.getValue().executions)));
+    writer.println();
+    writer.println("Slowest files (ms)");
+    files.stream().limit(REPORTED_FILES).forEach(e -> writer.println(String.format(Locale.ENGLISH, "  %-100s %10d", e.getKey(), millis(e.getValue().sum()))));
+    writer.flush();
+    File reportFile = new File(workDir, REPORT_FILE_NAME);
+    try {
+      Files.write(reportFile.toPath(), report.toString().getBytes(StandardCharsets.UTF_8));
+      LOG.info("Analysis profile written to " + reportFile);
+    } catch (IOException e) {
+      LOG.warn("Unable to write analysis profile to " + reportFile + ": " + e.getMessage());
+    }
+  }
+
+  private String phasesSummary() {
+    StringBuilder summary = new StringBuilder();
+    nanosByPhase.forEach((phase, nanos) -> {
+      if (summary.length() > 0) {
+        summary.append(", ");
+      }
+      summary.append(phase.name().toLowerCase(Locale.ENGLISH)).append(' ').append(millis(nanos.sum())).append(" ms");
+    });
+    return summary.toString();
+  }
+
+  private static long millis(long nanos) {
+    return nanos / 1_000_000;
+  }
+
+  private long allocatedBytes() {
+    return allocationBean == null ? 0 : allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  private static class CheckMeasures {
+    private long nanos;
+    private long allocatedBytes;
+    private long executions;
+
+    private void add(CheckMeasures other) {
+      nanos += other.nanos;
+      allocatedBytes += other.allocatedBytes;
+      executions += other.executions;
+    }
+
+    @Override
+    public String toString() {
+      return millis(nanos) + " ms, " + allocatedBytes / (1024 * 1024) + " MB allocated, " + executions + " executions";
+    }
+  }
+
+  class FileProfile implements CheckExecutionListener {
+    private final InputFile inputFile;
+    private final long fileStart;
+    private long phaseStart;
+    private long inferenceNanosAtPhaseStart;
+    private final Map<PythonCheck, CheckMeasures> measuresByCheckInstance = new IdentityHashMap<>();
+    private long checkStart;
+    private long checkAllocatedBytesAtStart;
+
+    private FileProfile(InputFile inputFile) {
+      this.inputFile = inputFile;
+      this.fileStart = enabled ? System.nanoTime() : 0;
+    }
+
+    void startPhase() {
+      if (enabled) {
+        phaseStart = System.nanoTime();
+        inferenceNanosAtPhaseStart = TypeInference.currentThreadInferenceNanos();
+      }
+    }
+
+    void endPhase(Phase phase) {
+      if (enabled) {
+        nanosByPhase.get(phase).add(System.nanoTime() - phaseStart);
+      }
+    }
+
+    /**
+     * Types are inferred while building the symbol table: the inference time is reported apart.
+     */
+    void endSymbolTablePhase() {
+      if (enabled) {
+        long inferenceNanos = TypeInference.currentThreadInferenceNanos() - inferenceNanosAtPhaseStart;
+        nanosByPhase.get(Phase.TYPE_INFERENCE).add(inferenceNanos);
+        nanosByPhase.get(Phase.SYMBOL_TABLE).add(System.nanoTime() - phaseStart - inferenceNanos);
+      }
+    }
+
+    /**
+     * Listener to pass to the checks executions, null when the profiler is disabled.
+     */
+    @Nullable
+    CheckExecutionListener checkExecutionListener() {
+      return enabled ? this : null;
+    }
+
+    @Override
+    public void beforeExecution(PythonCheck check) {
+      checkAllocatedBytesAtStart = allocatedBytes();
+      checkStart = System.nanoTime();
+    }
+
+    @Override
+    public void afterExecution(PythonCheck check) {
+      long nanos = System.nanoTime() - checkStart;
+      CheckMeasures measures = measuresByCheckInstance.computeIfAbsent(check, c -> new CheckMeasures());
+      measures.nanos += nanos;
+      measures.allocatedBytes += allocatedBytes() - checkAllocatedBytesAtStart;
+      measures.executions++;
+    }
+
+    void end(Function<PythonCheck, String> checkName) {
+      if (!enabled) {
+        return;
+      }
+      nanosByFile.computeIfAbsent(inputFile.toString(), f -> new LongAdder()).add(System.nanoTime() - fileStart);
+      synchronized (measuresByCheck) {
+        measuresByCheckInstance.forEach((check, measures) -> measuresByCheck.computeIfAbsent(checkName.apply(check), c -> new CheckMeasures()).add(measures));
+      }
+    }
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.python;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.security.CodeSource;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import javax.annotation.Nullable;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+/**
+ * Version of the plugins whose classes produce the analysis results, read from the manifests of their jars, so that
+ * results cached by another version of the analyzer or of custom rules are not reused. The build date is part of it,
+ * so that two builds of a snapshot version are different. Classes which are not loaded from a jar (e.g. in tests)
+ * have no version.
+ */
+class AnalyzerVersion {
+
+  private static final Logger LOG = Loggers.get(AnalyzerVersion.class);
+  private static final String[] VERSION_ATTRIBUTES = {"Plugin-Key", "Plugin-Version", "Plugin-BuildDate", "Implementation-Build"};
+
+  private AnalyzerVersion() {
+  }
+
+  static String of(Collection<Class<?>> classes) {
+    Set<URL> jars = new HashSet<>();
+    for (Class<?> clazz : classes) {
+      CodeSource codeSource = clazz.getProtectionDomain().getCodeSource();
+      if (codeSource != null && codeSource.getLocation() != null) {
+        jars.add(codeSource.getLocation());
+      }
+    }
+    return ofJars(jars);
+  }
+
+  static String ofJars(Collection<URL> jars) {
+    SortedSet<String> versions = new TreeSet<>();
+    for (URL jar : jars) {
+      String version = jarVersion(jar);
+      if (!version.isEmpty()) {
+        versions.add(version);
+      }
+    }
+    return String.join("\n", versions);
+  }
+
+  /**
+   * Returns an empty string when the location is not a jar, or when its manifest does not tell its version.
+   */
+  static String jarVersion(URL location) {
+    File file;
+    try {
+      file = new File(location.toURI());
+    } catch (URISyntaxException | IllegalArgumentException e) {
+      return "";
+    }
+    if (!file.isFile()) {
+      return "";
+    }
+    try (JarFile jarFile = new JarFile(file)) {
+      return version(jarFile.getManifest());
+    } catch (IOException e) {
+      LOG.debug("Unable to read the manifest of " + file + ": " + e.getMessage());
+      return "";
+    }
+  }
+
+  private static String version(@Nullable Manifest manifest) {
+    if (manifest == null) {
+      return "";
+    }
+    Attributes attributes = manifest.getMainAttributes();
+    StringBuilder version = new StringBuilder();
+    boolean hasVersion = false;
+    for (String attribute : VERSION_ATTRIBUTES) {
+      String value = attributes.getValue(attribute);
+      hasVersion |= value != null;
+      version.append(value == null ? "" : value).append(' ');
+    }
+    return hasVersion ? version.toString().trim() : "";
+  }
+}
@@ -0,0 +1,426 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.python;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import javax.annotation.Nullable;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.TextRange;
+import org.sonar.api.batch.sensor.cpd.NewCpdTokens;
+import org.sonar.api.batch.sensor.highlighting.NewHighlighting;
+import org.sonar.api.batch.sensor.highlighting.TypeOfText;
+import org.sonar.api.batch.sensor.symbol.NewSymbol;
+import org.sonar.api.batch.sensor.symbol.NewSymbolTable;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.plugins.python.api.IssueLocation;
+import org.sonar.plugins.python.api.LocationInFile;
+
+/**
+ * Everything the rules execution saves for a file, recorded while it is saved so that a later analysis can save it
+ * again without executing the rules, when neither the file nor the modules it depends on changed.
+ * Text ranges are kept as arrays of 4 ints: start line, start line offset, end line and end line offset.
+ */
+class FileResults {
+
+  final Map<String, Integer> measures = new LinkedHashMap<>();
+  // lines data of FileLinesContext (e.g. lines of code), all of them having the value 1
+  final Map<String, Set<Integer>> linesData = new LinkedHashMap<>();
+  final Set<Integer> noSonarLines = new TreeSet<>();
+  final List<Highlighting> highlightings = new ArrayList<>();
+  // first range of each symbol is its declaration, the following ones are its references
+  final List<List<int[]>> symbols = new ArrayList<>();
+  final List<CpdToken> cpdTokens = new ArrayList<>();
+  final List<Issue> issues = new ArrayList<>();
+
+  void addMeasure(String metricKey, int value) {
+    measures.put(metricKey, value);
+  }
+
+  void addLineData(String key, int line) {
+    linesData.computeIfAbsent(key, k -> new TreeSet<>()).add(line);
+  }
+
+  void addNoSonarLines(Set<Integer> lines) {
+    noSonarLines.addAll(lines);
+  }
+
+  void addIssue(RuleKey ruleKey, @Nullable Integer cost, IssueLocation primaryLocation, List<IssueLocation> secondaryLocations) {
+    issues.add(new Issue(ruleKey, cost, primaryLocation, secondaryLocations));
+  }
+
+  /**
+   * The returned builders record what is added to them before passing it to the given ones. Only ranges based on
+   * line offsets are supported.
+   */
+  NewHighlighting recordHighlighting(NewHighlighting newHighlighting) {
+    return new HighlightingRecorder(newHighlighting);
+  }
+
+  NewSymbolTable recordSymbolTable(NewSymbolTable newSymbolTable) {
+    return new SymbolTableRecorder(newSymbolTable);
+  }
+
+  NewCpdTokens recordCpdTokens(NewCpdTokens newCpdTokens) {
+    return new CpdTokensRecorder(newCpdTokens);
+  }
+
+  void write(DataOutput out) throws IOException {
+    out.writeInt(measures.size());
+    for (Map.Entry<String, Integer> measure : measures.entrySet()) {
+      writeString(out, measure.getKey());
+      out.writeInt(measure.getValue());
+    }
+    out.writeInt(linesData.size());
+    for (Map.Entry<String, Set<Integer>> lineData : linesData.entrySet()) {
+      writeString(out, lineData.getKey());
+      writeInts(out, lineData.getValue());
+    }
+    writeInts(out, noSonarLines);
+    out.writeInt(highlightings.size());
+    for (Highlighting highlighting : highlightings) {
+      writeRange(out, highlighting.range);
+      writeString(out, highlighting.typeOfText.name());
+    }
+    out.writeInt(symbols.size());
+    for (List<int[]> symbol : symbols) {
+      out.writeInt(symbol.size());
+      for (int[] range : symbol) {
+        writeRange(out, range);
+      }
+    }
+    out.writeInt(cpdTokens.size());
+    for (CpdToken cpdToken : cpdTokens) {
+      writeRange(out, cpdToken.range);
+      writeString(out, cpdToken.image);
+    }
+    out.writeInt(issues.size());
+    for (Issue issue : issues) {
+      writeString(out, issue.ruleKey.toString());
+      out.writeInt(issue.cost == null ? -1 : issue.cost);
+      writeLocation(out, issue.primaryLocation);
+      out.writeInt(issue.secondaryLocations.size());
+      for (IssueLocation secondaryLocation : issue.secondaryLocations) {
+        writeLocation(out, secondaryLocation);
+      }
+    }
+  }
+
+  static FileResults read(DataInput in) throws IOException {
+    FileResults results = new FileResults();
+    int size = in.readInt();
+    for (int i = 0; i < size; i++) {
+      results.measures.put(readString(in), in.readInt());
+    }
+    size = in.readInt();
+    for (int i = 0; i < size; i++) {
+      results.linesData.put(readString(in), readInts(in));
+    }
+    results.noSonarLines.addAll(readInts(in));
+    size = in.readInt();
+    for (int i = 0; i < size; i++) {
+      results.highlightings.add(new Highlighting(readRange(in), TypeOfText.valueOf(readString(in))));
+    }
+    size = in.readInt();
+    for (int i = 0; i < size; i++) {
+      int rangesSize = in.readInt();
+      List<int[]> symbol = new ArrayList<>(rangesSize);
+      for (int j = 0; j < rangesSize; j++) {
+        symbol.add(readRange(in));
+      }
+      results.symbols.add(symbol);
+    }
+    size = in.readInt();
+    for (int i = 0; i < size; i++) {
+      results.cpdTokens.add(new CpdToken(readRange(in), readString(in)));
+    }
+    size = in.readInt();
+    for (int i = 0; i < size; i++) {
+      RuleKey ruleKey = RuleKey.parse(readString(in));
+      int cost = in.readInt();
+      IssueLocation primaryLocation = readLocation(in);
+      int secondaryLocationsSize = in.readInt();
+      List<IssueLocation> secondaryLocations = new ArrayList<>(secondaryLocationsSize);
+      for (int j = 0; j < secondaryLocationsSize; j++) {
+        secondaryLocations.add(readLocation(in));
+      }
+      results.addIssue(ruleKey, cost == -1 ? null : cost, primaryLocation, secondaryLocations);
+    }
+    return results;
+  }
+
+  private static void writeInts(DataOutput out, Set<Integer> values) throws IOException {
+    out.writeInt(values.size());
+    for (int value : values) {
+      out.writeInt(value);
+    }
+  }
+
+  private static Set<Integer> readInts(DataInput in) throws IOException {
+    int size = in.readInt();
+    Set<Integer> values = new TreeSet<>();
+    for (int i = 0; i < size; i++) {
+      values.add(in.readInt());
+    }
+    return values;
+  }
+
+  private static void writeRange(DataOutput out, int[] range) throws IOException {
+    for (int value : range) {
+      out.writeInt(value);
+    }
+  }
+
+  private static int[] readRange(DataInput in) throws IOException {
+    return new int[] {in.readInt(), in.readInt(), in.readInt(), in.readInt()};
+  }
+
+  private static void writeLocation(DataOutput out, IssueLocation location) throws IOException {
+    writeNullableString(out, location.message());
+    writeNullableString(out, location.fileId());
+    writeRange(out, new int[] {location.startLine(), location.startLineOffset(), location.endLine(), location.endLineOffset()});
+  }
+
+  private static IssueLocation readLocation(DataInput in) throws IOException {
+    String message = readNullableString(in);
+    String fileId = readNullableString(in);
+    int[] range = readRange(in);
+    if (range[0] == IssueLocation.UNDEFINED_LINE) {
+      return IssueLocation.atFileLevel(message);
+    }
+    if (range[1] == IssueLocation.UNDEFINED_OFFSET) {
+      return IssueLocation.atLineLevel(message, range[0]);
+    }
+    return IssueLocation.preciseLocation(new LocationInFile(fileId, range[0], range[1], range[2], range[3]), message);
+  }
+
+  private static void writeNullableString(DataOutput out, @Nullable String value) throws IOException {
+    out.writeBoolean(value != null);
+    if (value != null) {
+      writeString(out, value);
+    }
+  }
+
+  @Nullable
+  private static String readNullableString(DataInput in) throws IOException {
+    return in.readBoolean() ? readString(in) : null;
+  }
+
+  /**
+   * Unlike {@link DataOutput#writeUTF(String)}, strings are not limited to 65535 bytes (e.g. CPD tokens of large string literals).
+   */
+  private static void writeString(DataOutput out, String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(DataInput in) throws IOException {
+    int length = in.readInt();
+    if (length < 0) {
+      throw new IOException("Invalid string length: " + length);
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static int[] range(TextRange textRange) {
+    return new int[] {textRange.start().line(), textRange.start().lineOffset(), textRange.end().line(), textRange.end().lineOffset()};
+  }
+
+  static class Highlighting {
+    final int[] range;
+    final TypeOfText typeOfText;
+
+    private Highlighting(int[] range, TypeOfText typeOfText) {
+      this.range = range;
+      this.typeOfText = typeOfText;
+    }
+  }
+
+  static class CpdToken {
+    final int[] range;
+    final String image;
+
+    private CpdToken(int[] range, String image) {
+      this.range = range;
+      this.image = image;
+    }
+  }
+
+  static class Issue {
+    final RuleKey ruleKey;
+    @Nullable
+    final Integer cost;
+    final IssueLocation primaryLocation;
+    final List<IssueLocation> secondaryLocations;
+
+    private Issue(RuleKey ruleKey, @Nullable Integer cost, IssueLocation primaryLocation, List<IssueLocation> secondaryLocations) {
+      this.ruleKey = ruleKey;
+      this.cost = cost;
+      this.primaryLocation = primaryLocation;
+      this.secondaryLocations = secondaryLocations;
+    }
+  }
+
+  private class HighlightingRecorder implements NewHighlighting {
+    private final NewHighlighting delegate;
+
+    private HighlightingRecorder(NewHighlighting delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public NewHighlighting onFile(InputFile inputFile) {
+      delegate.onFile(inputFile);
+      return this;
+    }
+
+    @Override
+    public NewHighlighting highlight(int startOffset, int endOffset, TypeOfText typeOfText) {
+      throw new UnsupportedOperationException("Offsets are not recorded, use line offsets");
+    }
+
+    @Override
+    public NewHighlighting highlight(TextRange range, TypeOfText typeOfText) {
+      highlightings.add(new Highlighting(range(range), typeOfText));
+      delegate.highlight(range, typeOfText);
+      return this;
+    }
+
+    @Override
+    public NewHighlighting highlight(int startLine, int startLineOffset, int endLine, int endLineOffset, TypeOfText typeOfText) {
+      highlightings.add(new Highlighting(new int[] {startLine, startLineOffset, endLine, endLineOffset}, typeOfText));
+      delegate.highlight(startLine, startLineOffset, endLine, endLineOffset, typeOfText);
+      return this;
+    }
+
+    @Override
+    public void save() {
+      delegate.save();
+    }
+  }
+
+  private class SymbolTableRecorder implements NewSymbolTable {
+    private final NewSymbolTable delegate;
+
+    private SymbolTableRecorder(NewSymbolTable delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public NewSymbolTable onFile(InputFile inputFile) {
+      delegate.onFile(inputFile);
+      return this;
+    }
+
+    @Override
+    public NewSymbol newSymbol(int startOffset, int endOffset) {
+      throw new UnsupportedOperationException("Offsets are not recorded, use line offsets");
+    }
+
+    @Override
+    public NewSymbol newSymbol(TextRange range) {
+      return new SymbolRecorder(delegate.newSymbol(range), range(range));
+    }
+
+    @Override
+    public NewSymbol newSymbol(int startLine, int startLineOffset, int endLine, int endLineOffset) {
+      return new SymbolRecorder(delegate.newSymbol(startLine, startLineOffset, endLine, endLineOffset), new int[] {startLine, startLineOffset, endLine, endLineOffset});
+    }
+
+    @Override
+    public void save() {
+      delegate.save();
+    }
+
+    private class SymbolRecorder implements NewSymbol {
+      private final NewSymbol delegate;
+      private final List<int[]> ranges = new ArrayList<>();
+
+      private SymbolRecorder(NewSymbol delegate, int[] declaration) {
+        this.delegate = delegate;
+        ranges.add(declaration);
+        symbols.add(ranges);
+      }
+
+      @Override
+      public NewSymbol newReference(int startOffset, int endOffset) {
+        throw new UnsupportedOperationException("Offsets are not recorded, use line offsets");
+      }
+
+      @Override
+      public NewSymbol newReference(TextRange range) {
+        ranges.add(range(range));
+        delegate.newReference(range);
+        return this;
+      }
+
+      @Override
+      public NewSymbol newReference(int startLine, int startLineOffset, int endLine, int endLineOffset) {
+        ranges.add(new int[] {startLine, startLineOffset, endLine, endLineOffset});
+        delegate.newReference(startLine, startLineOffset, endLine, endLineOffset);
+        return this;
+      }
+    }
+  }
+
+  private class CpdTokensRecorder implements NewCpdTokens {
+    private final NewCpdTokens delegate;
+
+    private CpdTokensRecorder(NewCpdTokens delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public NewCpdTokens onFile(InputFile inputFile) {
+      delegate.onFile(inputFile);
+      return this;
+    }
+
+    @Override
+    public NewCpdTokens addToken(TextRange range, String image) {
+      cpdTokens.add(new CpdToken(range(range), image));
+      delegate.addToken(range, image);
+      return this;
+    }
+
+    @Override
+    public NewCpdTokens addToken(int startLine, int startLineOffset, int endLine, int endLineOffset, String image) {
+      cpdTokens.add(new CpdToken(new int[] {startLine, startLineOffset, endLine, endLineOffset}, image));
+      delegate.addToken(startLine, startLineOffset, endLine, endLineOffset, image);
+      return this;
+    }
+
+    @Override
+    public void save() {
+      delegate.save();
+    }
+  }
+}
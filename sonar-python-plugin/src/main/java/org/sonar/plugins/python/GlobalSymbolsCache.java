@@ -0,0 +1,243 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.python;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.plugins.python.api.symbols.Symbol;
+import org.sonar.python.types.SymbolsSerializer;
+
+/**
+ * Global symbols of the analyzed files, stored in the working directory so that the next analysis only has to compute
+ * them for the files which changed. Entries are keyed by file and checked against a hash of the file content.
+ * Global symbols of a file do not depend on other project files, which is what makes them reusable as is.
+ */
+class GlobalSymbolsCache {
+
+  private static final Logger LOG = Loggers.get(GlobalSymbolsCache.class);
+  static final String FILE_NAME = "python-global-symbols.bin";
+  private static final int FORMAT_VERSION = 2;
+
+  @Nullable
+  private final File file;
+  private final String analyzerVersion;
+  private final Map<String, Entry> previousEntries;
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+  private final AtomicInteger hits = new AtomicInteger();
+  private final AtomicInteger misses = new AtomicInteger();
+
+  private GlobalSymbolsCache(@Nullable File file, String analyzerVersion, Map<String, Entry> previousEntries) {
+    this.file = file;
+    this.analyzerVersion = analyzerVersion;
+    this.previousEntries = previousEntries;
+  }
+
+  /**
+   * When no working directory is available (SonarLint), the returned cache is always empty and never saved.
+   * Symbols saved by another version of the analyzer (see {@link AnalyzerVersion}) are ignored.
+   */
+  static GlobalSymbolsCache load(@Nullable File workDir, String analyzerVersion) {
+    if (workDir == null) {
+      return new GlobalSymbolsCache(null, analyzerVersion, Collections.emptyMap());
+    }
+    File file = new File(workDir, FILE_NAME);
+    Map<String, Entry> previousEntries = new HashMap<>();
+    if (file.exists()) {
+      try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+        if (in.readInt() == FORMAT_VERSION && in.readInt() == SymbolsSerializer.FORMAT_VERSION && analyzerVersion.equals(in.readUTF())) {
+          int size = in.readInt();
+          for (int i = 0; i < size; i++) {
+            String key = in.readUTF();
+            String hash = in.readUTF();
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            int importedModulesSize = in.readInt();
+            Set<String> importedModules = new HashSet<>();
+            for (int j = 0; j < importedModulesSize; j++) {
+              importedModules.add(in.readUTF());
+            }
+            previousEntries.put(key, new Entry(hash, bytes, null, importedModules));
+          }
+        }
+      } catch (IOException e) {
+        LOG.debug("Unable to read global symbols cache: " + e.getMessage());
+        previousEntries.clear();
+      }
+    }
+    return new GlobalSymbolsCache(file, analyzerVersion, previousEntries);
+  }
+
+  /**
+   * Returns null when the symbols of the file were not computed by the previous analysis, or when the file changed since then.
+   */
+  @CheckForNull
+  Set<Symbol> get(InputFile inputFile, String packageName, String content) {
+    if (file == null) {
+      return null;
+    }
+    String key = inputFile.uri().toString();
+    Entry entry = previousEntries.get(key);
+    if (entry != null && entry.hash.equals(hash(packageName, content))) {
+      try {
+        Set<Symbol> symbols = SymbolsSerializer.deserialize(entry.bytes);
+        entries.put(key, entry);
+        hits.incrementAndGet();
+        return symbols;
+      } catch (IOException | RuntimeException e) {
+        LOG.debug("Unable to read cached global symbols of " + inputFile + ": " + e.getMessage());
+      }
+    }
+    misses.incrementAndGet();
+    return null;
+  }
+
+  void put(InputFile inputFile, String packageName, String content, Set<Symbol> symbols, Set<String> importedModules) {
+    if (file != null) {
+      entries.put(inputFile.uri().toString(), new Entry(hash(packageName, content), null, symbols, importedModules));
+    }
+  }
+
+  /**
+   * Hash of the package name and content of a file whose global symbols were computed or read by the current analysis.
+   */
+  @CheckForNull
+  String contentHash(InputFile inputFile) {
+    Entry entry = entries.get(inputFile.uri().toString());
+    return entry == null ? null : entry.hash;
+  }
+
+  /**
+   * Hash of the global symbols of a file, available once the cache is saved.
+   */
+  @CheckForNull
+  String symbolsHash(InputFile inputFile) {
+    Entry entry = entries.get(inputFile.uri().toString());
+    return entry == null ? null : entry.symbolsHash;
+  }
+
+  /**
+   * See {@link org.sonar.python.tree.FileInputImpl#importedModulesFQN()}.
+   */
+  Set<String> importedModules(InputFile inputFile) {
+    Entry entry = entries.get(inputFile.uri().toString());
+    return entry == null ? Collections.emptySet() : entry.importedModules;
+  }
+
+  /**
+   * Only the files of the current analysis are kept.
+   */
+  void save() {
+    if (file == null) {
+      return;
+    }
+    LOG.debug("Global symbols cache: " + hits.get() + " hits, " + misses.get() + " misses");
+    for (Entry entry : entries.values()) {
+      if (entry.bytes == null) {
+        entry.bytes = SymbolsSerializer.serialize(entry.symbols);
+        entry.symbols = null;
+      }
+      entry.symbolsHash = hash(entry.bytes);
+    }
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file.toPath())))) {
+      out.writeInt(FORMAT_VERSION);
+      out.writeInt(SymbolsSerializer.FORMAT_VERSION);
+      out.writeUTF(analyzerVersion);
+      out.writeInt(entries.size());
+      for (Map.Entry<String, Entry> mapEntry : entries.entrySet()) {
+        Entry entry = mapEntry.getValue();
+        out.writeUTF(mapEntry.getKey());
+        out.writeUTF(entry.hash);
+        out.writeInt(entry.bytes.length);
+        out.write(entry.bytes);
+        out.writeInt(entry.importedModules.size());
+        for (String importedModule : entry.importedModules) {
+          out.writeUTF(importedModule);
+        }
+      }
+    } catch (IOException e) {
+      LOG.warn("Unable to write global symbols cache: " + e.getMessage());
+    }
+  }
+
+  /**
+   * SHA-256 of the given values, each of them being terminated by a 0 byte.
+   */
+  static String hash(String... values) {
+    byte[][] bytes = new byte[values.length][];
+    for (int i = 0; i < values.length; i++) {
+      bytes[i] = values[i].getBytes(StandardCharsets.UTF_8);
+    }
+    return hash(bytes);
+  }
+
+  private static String hash(byte[]... values) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      for (byte[] value : values) {
+        digest.update(value);
+        digest.update((byte) 0);
+      }
+      return new BigInteger(1, digest.digest()).toString(16);
+    } catch (NoSuchAlgorithmException e) {
+      // SHA-256 is available on every Java platform
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static class Entry {
+    private final String hash;
+    private final Set<String> importedModules;
+    // symbols are only serialized when the cache is saved
+    @Nullable
+    private byte[] bytes;
+    @Nullable
+    private Set<Symbol> symbols;
+    @Nullable
+    private String symbolsHash;
+
+    private Entry(String hash, @Nullable byte[] bytes, @Nullable Set<Symbol> symbols, Set<String> importedModules) {
+      this.hash = hash;
+      this.bytes = bytes;
+      this.symbols = symbols;
+      this.importedModules = importedModules;
+    }
+  }
+}
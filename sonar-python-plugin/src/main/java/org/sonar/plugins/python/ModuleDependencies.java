@@ -0,0 +1,69 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.python;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import org.sonar.api.batch.fs.InputFile;
+
+/**
+ * Import graph of the project modules. The symbols a file sees during rules execution come from the modules it imports,
+ * but also from the modules those import in turn (e.g. the superclasses of an imported class), hence the transitive closure.
+ */
+class ModuleDependencies {
+
+  private final Map<String, List<InputFile>> filesByModuleName = new HashMap<>();
+  private final Map<String, Set<String>> importedModulesByModuleName = new HashMap<>();
+
+  void addModule(String moduleName, InputFile inputFile, Set<String> importedModules) {
+    filesByModuleName.computeIfAbsent(moduleName, k -> new ArrayList<>()).add(inputFile);
+    importedModulesByModuleName.computeIfAbsent(moduleName, k -> new TreeSet<>()).addAll(importedModules);
+  }
+
+  /**
+   * Names of the modules the given imports transitively depend on, whether they are project modules or not.
+   */
+  SortedSet<String> dependencies(Set<String> importedModules) {
+    SortedSet<String> dependencies = new TreeSet<>();
+    Deque<String> workList = new ArrayDeque<>(importedModules);
+    while (!workList.isEmpty()) {
+      String moduleName = workList.pop();
+      if (dependencies.add(moduleName)) {
+        workList.addAll(importedModulesByModuleName.getOrDefault(moduleName, Collections.emptySet()));
+      }
+    }
+    return dependencies;
+  }
+
+  /**
+   * Project files defining the given module, in the order they were added.
+   */
+  List<InputFile> files(String moduleName) {
+    return filesByModuleName.getOrDefault(moduleName, Collections.emptyList());
+  }
+}
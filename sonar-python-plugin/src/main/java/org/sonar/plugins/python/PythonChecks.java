@@ -20,7 +20,9 @@
 package org.sonar.plugins.python;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
 import javax.annotation.Nullable;
@@ -33,12 +35,14 @@ import org.sonar.plugins.python.api.PythonCustomRuleRepository;
 public class PythonChecks {
   private final CheckFactory checkFactory;
   private List<Checks<PythonCheck>> checksByRepository = new ArrayList<>();
+  private final Map<String, Iterable<Class>> checkClassesByRepository = new LinkedHashMap<>();
 
   PythonChecks(CheckFactory checkFactory) {
     this.checkFactory = checkFactory;
   }
   public PythonChecks addChecks(String repositoryKey, Iterable<Class> checkClass) {
     checksByRepository.add(checkFactory.<PythonCheck>create(repositoryKey).addAnnotatedChecks(checkClass));
+    checkClassesByRepository.put(repositoryKey, checkClass);
 
     return this;
   }
@@ -57,6 +61,16 @@ public class PythonChecks {
     return checksByRepository.stream().flatMap(c -> c.all().stream()).collect(Collectors.toList());
   }
 
+  /**
+   * Creates new instances of the same checks: check instances hold per-file state and
+   * can't be shared by files analyzed concurrently.
+   */
+  synchronized PythonChecks copy() {
+    PythonChecks copy = new PythonChecks(checkFactory);
+    checkClassesByRepository.forEach(copy::addChecks);
+    return copy;
+  }
+
   @Nullable
   public RuleKey ruleKey(PythonCheck check) {
     return checksByRepository.stream().map(c -> c.ruleKey(check)).filter(Objects::nonNull).findFirst().orElse(null);
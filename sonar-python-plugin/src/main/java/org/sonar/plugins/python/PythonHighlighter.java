@@ -94,9 +94,12 @@ public class PythonHighlighter extends PythonSubscriptionCheck {
   private Set<Token> docStringTokens;
 
   public PythonHighlighter(SensorContext context, InputFile inputFile) {
+    this(context.newHighlighting().onFile(inputFile));
+  }
+
+  public PythonHighlighter(NewHighlighting newHighlighting) {
     docStringTokens = new HashSet<>();
-    newHighlighting = context.newHighlighting();
-    newHighlighting.onFile(inputFile);
+    this.newHighlighting = newHighlighting;
   }
 
   @Override
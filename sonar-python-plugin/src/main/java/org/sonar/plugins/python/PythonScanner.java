@@ -25,18 +25,28 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Deque;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import org.sonar.api.SonarProduct;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.TextRange;
+import org.sonar.api.batch.rule.ActiveRule;
 import org.sonar.api.batch.sensor.SensorContext;
+import org.sonar.api.batch.sensor.cpd.NewCpdTokens;
+import org.sonar.api.batch.sensor.highlighting.NewHighlighting;
 import org.sonar.api.batch.sensor.issue.NewIssue;
 import org.sonar.api.batch.sensor.issue.NewIssueLocation;
+import org.sonar.api.batch.sensor.symbol.NewSymbol;
+import org.sonar.api.batch.sensor.symbol.NewSymbolTable;
 import org.sonar.api.issue.NoSonarFilter;
 import org.sonar.api.measures.CoreMetrics;
 import org.sonar.api.measures.FileLinesContext;
@@ -51,47 +61,126 @@ import org.sonar.plugins.python.api.PythonCheck.PreciseIssue;
 import org.sonar.plugins.python.api.PythonFile;
 import org.sonar.plugins.python.api.PythonSubscriptionCheck;
 import org.sonar.plugins.python.api.PythonVisitorContext;
+import org.sonar.plugins.python.api.cfg.ControlFlowGraph;
+import org.sonar.plugins.python.api.symbols.Symbol;
 import org.sonar.plugins.python.api.tree.FileInput;
 import org.sonar.plugins.python.cpd.PythonCpdAnalyzer;
+import org.sonar.plugins.python.warnings.AnalysisWarningsWrapper;
+import org.sonar.python.CheckExecutionListener;
+import org.sonar.python.FileAnalysisBudget;
 import org.sonar.python.SubscriptionVisitor;
+import org.sonar.python.cfg.fixpoint.WorkListSolver;
 import org.sonar.python.metrics.FileLinesVisitor;
 import org.sonar.python.metrics.FileMetrics;
+import org.sonar.python.parser.CompactSyntaxTree;
 import org.sonar.python.parser.PythonParser;
 import org.sonar.python.semantic.ProjectLevelSymbolTable;
+import org.sonar.python.tree.FileInputImpl;
 import org.sonar.python.tree.PythonTreeMaker;
+import org.sonar.python.types.TypeInterner;
+import org.sonar.python.types.TypeShed;
 
+import static org.sonar.python.semantic.SymbolUtils.fullyQualifiedModuleName;
 import static org.sonar.python.semantic.SymbolUtils.pythonPackageName;
 
 public class PythonScanner extends Scanner {
 
   private static final Logger LOG = Loggers.get(PythonScanner.class);
-
-  private final PythonParser parser;
-  private final Map<InputFile, String> packageNames = new HashMap<>();
-  private final PythonChecks checks;
+  static final String PARSE_CACHE_SIZE_PROPERTY_NAME = "sonar.python.analysis.parseCacheSize";
+  static final String THREADS_PROPERTY_NAME = "sonar.python.analysis.threads";
+  static final String FILE_TIME_BUDGET_PROPERTY_NAME = "sonar.python.analysis.fileTimeBudget";
+
+  private final ThreadLocal<PythonParser> parser = ThreadLocal.withInitial(PythonParser::create);
+  private final Map<InputFile, String> packageNames = new ConcurrentHashMap<>();
+  private final int numberOfThreads;
+  private final ThreadLocal<PythonChecks> checks;
+  // guards everything which is saved through the sensor context, which is not meant to be used concurrently
+  private final Object saveLock = new Object();
   private final FileLinesContextFactory fileLinesContextFactory;
   private final NoSonarFilter noSonarFilter;
   private final PythonCpdAnalyzer cpdAnalyzer;
   private final ProjectLevelSymbolTable projectLevelSymbolTable = new ProjectLevelSymbolTable();
+  // syntax trees produced by the global symbols computation, reused (and released) by the rules execution
+  private final Map<InputFile, CompactSyntaxTree> parsedFiles = new ConcurrentHashMap<>();
+  // in bytes of compact syntax trees
+  private final long parseCacheSize;
+  private long parseCacheUsage = 0;
+  private boolean parseCacheFull = false;
+  private final GlobalSymbolsCache globalSymbolsCache;
+  private final ModuleDependencies moduleDependencies = new ModuleDependencies();
+  private final RulesExecutionCache rulesExecutionCache;
+  private final String rulesConfigurationHash;
+  private final AnalysisProfiler profiler;
+  private final long fileTimeBudgetMillis;
+  private final SlowFiles slowFiles;
+  // the type interner of a thread only holds the types of the file being analyzed
+  private final AtomicInteger maxTypeInternerSize = new AtomicInteger();
+  @Nullable
+  private final AnalysisWarningsWrapper analysisWarnings;
 
 
   public PythonScanner(
     SensorContext context, PythonChecks checks,
-    FileLinesContextFactory fileLinesContextFactory, NoSonarFilter noSonarFilter, List<InputFile> files
+    FileLinesContextFactory fileLinesContextFactory, NoSonarFilter noSonarFilter, List<InputFile> files, @Nullable AnalysisWarningsWrapper analysisWarnings
   ) {
     super(context);
-    this.checks = checks;
+    this.numberOfThreads = context.config().getInt(THREADS_PROPERTY_NAME).orElse(1);
+    // check instances are stateful: each thread gets its own ones
+    this.checks = ThreadLocal.withInitial(numberOfThreads > 1 ? checks::copy : () -> checks);
     this.fileLinesContextFactory = fileLinesContextFactory;
     this.noSonarFilter = noSonarFilter;
     this.cpdAnalyzer = new PythonCpdAnalyzer(context);
-    this.parser = PythonParser.create();
+    // compact trees take about 4 bytes per character of code, 5 times less than the project level symbol table:
+    // a tenth of the heap keeps all of them unless the analysis already uses most of the heap
+    this.parseCacheSize = context.config().getLong(PARSE_CACHE_SIZE_PROPERTY_NAME).orElse(Runtime.getRuntime().maxMemory() / 10);
+    this.profiler = AnalysisProfiler.create(context);
+    // in seconds, no budget by default
+    this.fileTimeBudgetMillis = context.config().getLong(FILE_TIME_BUDGET_PROPERTY_NAME).orElse(0L) * 1000;
+    this.slowFiles = SlowFiles.load(getWorkingDirectory(context));
+    this.analysisWarnings = analysisWarnings;
+
+    // typeshed builtins are computed once, before being shared by the files analyzed concurrently
+    TypeShed.builtinSymbols();
 
     // computes "globalSymbolsByModuleName"
     long startTime = System.currentTimeMillis();
-    GlobalSymbolsScanner globalSymbolsStep = new GlobalSymbolsScanner(context);
+    // the python frontend is packaged in the plugin jar
+    globalSymbolsCache = GlobalSymbolsCache.load(getWorkingDirectory(context), AnalyzerVersion.of(Collections.singletonList(PythonScanner.class)));
+    GlobalSymbolsScanner globalSymbolsStep = new GlobalSymbolsScanner(context, globalSymbolsCache);
     globalSymbolsStep.execute(files, context);
+    globalSymbolsStep.addModules(files);
+    globalSymbolsCache.save();
     long stopTime = System.currentTimeMillis() - startTime;
     LOG.debug("Time to build the project level symbol table: " + stopTime + "ms");
+    LOG.debug("Syntax trees kept for rules execution: " + parsedFiles.size() + "/" + files.size());
+
+    // custom rules come with their own jars
+    Set<Class<?>> analyzerClasses = new HashSet<>();
+    analyzerClasses.add(PythonScanner.class);
+    checks.all().forEach(check -> analyzerClasses.add(check.getClass()));
+    this.rulesExecutionCache = RulesExecutionCache.load(getWorkingDirectory(context), AnalyzerVersion.of(analyzerClasses));
+    this.rulesConfigurationHash = rulesConfigurationHash(context, checks);
+  }
+
+  @Override
+  void execute(List<InputFile> files, SensorContext context) {
+    long builtGraphs = ControlFlowGraph.builtGraphs();
+    long reusedGraphs = ControlFlowGraph.reusedGraphs();
+    long solvedProblems = WorkListSolver.solvedProblems();
+    long visitedBlocks = WorkListSolver.visitedBlocks();
+    long typeLookups = TypeInterner.lookups();
+    long typeHits = TypeInterner.hits();
+    long internedTypes = TypeInterner.internedTypes();
+    super.execute(files, context);
+    rulesExecutionCache.close();
+    slowFiles.save();
+    profiler.report(getWorkingDirectory(context));
+    LOG.debug("Control flow graphs: " + (ControlFlowGraph.builtGraphs() - builtGraphs) + " built, " + (ControlFlowGraph.reusedGraphs() - reusedGraphs) + " reused");
+    LOG.debug("Data flow analyses: " + (WorkListSolver.solvedProblems() - solvedProblems) + " solved in " + (WorkListSolver.visitedBlocks() - visitedBlocks)
+      + " block visits, at most " + WorkListSolver.maxVisitedBlocks() + " for a single function");
+    // types are mostly inferred before rules execution, when building the symbol tables
+    LOG.debug("Type interner: " + (TypeInterner.hits() - typeHits) + " hits out of " + (TypeInterner.lookups() - typeLookups) + " lookups, "
+      + (TypeInterner.internedTypes() - internedTypes) + " types interned, at most " + maxTypeInternerSize.get() + " types in the table of a single file");
   }
 
   @Override
@@ -99,42 +188,199 @@ public class PythonScanner extends Scanner {
     return "rules execution";
   }
 
+  @Override
+  int numberOfThreads() {
+    return numberOfThreads;
+  }
+
   @Override
   protected void scanFile(InputFile inputFile) {
+    String fingerprint = rulesExecutionFingerprint(inputFile);
+    FileResults cachedResults = fingerprint == null ? null : rulesExecutionCache.get(inputFile, fingerprint);
+    if (cachedResults != null) {
+      parsedFiles.remove(inputFile);
+      synchronized (saveLock) {
+        saveCachedResults(inputFile, cachedResults);
+      }
+      return;
+    }
+    FileResults fileResults = new FileResults();
     PythonFile pythonFile = SonarQubePythonFile.create(inputFile);
+    AnalysisProfiler.FileProfile profile = profiler.startFile(inputFile);
+    String contentHash = null;
     PythonVisitorContext visitorContext;
+    FileMetrics fileMetrics = null;
+    PythonChecks checksOfThread = checks.get();
+    boolean budgetExceeded;
     try {
-      AstNode astNode = parser.parse(pythonFile.content());
-      FileInput parse = new PythonTreeMaker().fileInput(astNode);
-      visitorContext = new PythonVisitorContext(parse, pythonFile, getWorkingDirectory(context), packageNames.get(inputFile), projectLevelSymbolTable);
-      saveMeasures(inputFile, visitorContext);
-    } catch (RecognitionException e) {
-      visitorContext = new PythonVisitorContext(pythonFile, e);
-      LOG.error("Unable to parse file: " + inputFile.toString());
-      LOG.error(e.getMessage());
-      context.newAnalysisError()
-        .onFile(inputFile)
-        .at(inputFile.newPointer(e.getLine(), 0))
-        .message(e.getMessage())
-        .save();
+      try {
+        CompactSyntaxTree syntaxTree = parsedFiles.remove(inputFile);
+        profile.startPhase();
+        AstNode astNode = syntaxTree != null ? syntaxTree.toAstNode() : parser.get().parse(pythonFile.content());
+        profile.endPhase(AnalysisProfiler.Phase.PARSE);
+        profile.startPhase();
+        FileInput parse = new PythonTreeMaker().consumeFileInput(astNode);
+        profile.endPhase(AnalysisProfiler.Phase.TREE);
+        // the budget starts with the symbol table, as parsing is done in degraded mode as well
+        contentHash = startFileAnalysisBudget(pythonFile);
+        profile.startPhase();
+        visitorContext = new PythonVisitorContext(parse, pythonFile, getWorkingDirectory(context), packageNames.get(inputFile), projectLevelSymbolTable);
+        profile.endSymbolTablePhase();
+        fileMetrics = new FileMetrics(visitorContext);
+      } catch (RecognitionException e) {
+        visitorContext = new PythonVisitorContext(pythonFile, e);
+        LOG.error("Unable to parse file: " + inputFile.toString());
+        LOG.error(e.getMessage());
+        synchronized (saveLock) {
+          context.newAnalysisError()
+            .onFile(inputFile)
+            .at(inputFile.newPointer(e.getLine(), 0))
+            .message(e.getMessage())
+            .save();
+        }
+      }
+      CheckExecutionListener checkExecutionListener = profile.checkExecutionListener();
+      profile.startPhase();
+      List<PythonSubscriptionCheck> checksBasedOnTree = new ArrayList<>();
+      for (PythonCheck check : checksOfThread.all()) {
+        if (check instanceof PythonSubscriptionCheck) {
+          checksBasedOnTree.add((PythonSubscriptionCheck) check);
+        } else if (checkExecutionListener != null) {
+          checkExecutionListener.beforeExecution(check);
+          check.scanFile(visitorContext);
+          checkExecutionListener.afterExecution(check);
+        } else {
+          check.scanFile(visitorContext);
+        }
+      }
+      SubscriptionVisitor.analyze(checksBasedOnTree, visitorContext, checkExecutionListener);
+      profile.endPhase(AnalysisProfiler.Phase.CHECKS);
+      maxTypeInternerSize.accumulateAndGet(TypeInterner.size(), Math::max);
+    } finally {
+      budgetExceeded = FileAnalysisBudget.stop();
     }
-    List<PythonSubscriptionCheck> checksBasedOnTree = new ArrayList<>();
-    for (PythonCheck check : checks.all()) {
-      if (check instanceof PythonSubscriptionCheck) {
-        checksBasedOnTree.add((PythonSubscriptionCheck) check);
-      } else {
-        check.scanFile(visitorContext);
+    if (budgetExceeded && contentHash != null) {
+      reportSlowFile(inputFile, contentHash);
+    }
+
+    // everything is saved once the budget is stopped, so that waiting for the other threads does not count in it
+    synchronized (saveLock) {
+      if (fileMetrics != null) {
+        saveMeasures(inputFile, visitorContext, fileMetrics, fileResults, profile);
+      }
+      saveIssues(inputFile, checksOfThread, visitorContext.getIssues(), fileResults);
+      if (visitorContext.rootTree() != null) {
+        profile.startPhase();
+        new SymbolVisitor(fileResults.recordSymbolTable(context.newSymbolTable().onFile(inputFile))).visitFileInput(visitorContext.rootTree());
+        new PythonHighlighter(fileResults.recordHighlighting(context.newHighlighting().onFile(inputFile))).scanFile(visitorContext);
+        profile.endPhase(AnalysisProfiler.Phase.HIGHLIGHTING);
       }
     }
-    SubscriptionVisitor.analyze(checksBasedOnTree, visitorContext);
-    saveIssues(inputFile, visitorContext.getIssues());
+    // results of degraded analyses are not reused, so that the file is fully analyzed again once it is not slow anymore
+    if (fingerprint != null && visitorContext.rootTree() != null && !budgetExceeded) {
+      rulesExecutionCache.put(inputFile, fingerprint, fileResults);
+    }
+    profile.end(check -> {
+      RuleKey ruleKey = checksOfThread.ruleKey(check);
+      return ruleKey != null ? ruleKey.toString() : check.getClass().getName();
+    });
+  }
+
+  /**
+   * Starts the time budget of the file when one is configured, directly exceeded when the file was already too slow in a
+   * previous analysis, and returns the hash identifying its content in {@link SlowFiles}.
+   */
+  @CheckForNull
+  private String startFileAnalysisBudget(PythonFile pythonFile) {
+    if (fileTimeBudgetMillis <= 0) {
+      return null;
+    }
+    String contentHash = GlobalSymbolsCache.hash(pythonFile.content());
+    if (slowFiles.contains(contentHash)) {
+      FileAnalysisBudget.startExceeded();
+    } else {
+      FileAnalysisBudget.start(fileTimeBudgetMillis);
+    }
+    return contentHash;
+  }
 
-    if (visitorContext.rootTree() != null) {
-      new SymbolVisitor(context.newSymbolTable().onFile(inputFile)).visitFileInput(visitorContext.rootTree());
-      new PythonHighlighter(context, inputFile).scanFile(visitorContext);
+  private void reportSlowFile(InputFile inputFile, String contentHash) {
+    String warning;
+    if (slowFiles.contains(contentHash)) {
+      warning = "File " + inputFile + " is analyzed in degraded mode, as its analysis exceeded the time budget in a previous analysis.";
+    } else {
+      slowFiles.add(contentHash);
+      warning = "Analysis of file " + inputFile + " exceeded its time budget of " + (fileTimeBudgetMillis / 1000) + "s: "
+        + "type inference and control flow based rules were skipped for the rest of the file.";
+    }
+    LOG.warn(warning);
+    if (analysisWarnings != null) {
+      synchronized (saveLock) {
+        analysisWarnings.addWarning(warning);
+      }
     }
   }
 
+  /**
+   * Fingerprint of everything the rules execution of a file depends on: its content, the configuration of the rules and
+   * the global symbols of the modules it depends on. Null when the results of the file cannot be reused.
+   */
+  @CheckForNull
+  private String rulesExecutionFingerprint(InputFile inputFile) {
+    String contentHash = globalSymbolsCache.contentHash(inputFile);
+    if (contentHash == null) {
+      return null;
+    }
+    StringBuilder dependencies = new StringBuilder();
+    for (String moduleName : moduleDependencies.dependencies(globalSymbolsCache.importedModules(inputFile))) {
+      dependencies.append(moduleName);
+      for (InputFile moduleFile : moduleDependencies.files(moduleName)) {
+        String symbolsHash = globalSymbolsCache.symbolsHash(moduleFile);
+        if (symbolsHash == null) {
+          return null;
+        }
+        dependencies.append(' ').append(symbolsHash);
+      }
+      dependencies.append('\n');
+    }
+    return GlobalSymbolsCache.hash(contentHash, rulesConfigurationHash, dependencies.toString());
+  }
+
+  private static String rulesConfigurationHash(SensorContext context, PythonChecks checks) {
+    List<String> rules = new ArrayList<>();
+    for (PythonCheck check : checks.all()) {
+      RuleKey ruleKey = checks.ruleKey(check);
+      ActiveRule activeRule = ruleKey == null ? null : context.activeRules().find(ruleKey);
+      rules.add(ruleKey + " " + (activeRule == null ? "" : new TreeMap<>(activeRule.params())));
+    }
+    Collections.sort(rules);
+    return GlobalSymbolsCache.hash(String.join("\n", rules));
+  }
+
+  private void saveCachedResults(InputFile inputFile, FileResults results) {
+    NewCpdTokens cpdTokens = context.newCpdTokens().onFile(inputFile);
+    results.cpdTokens.forEach(token -> cpdTokens.addToken(token.range[0], token.range[1], token.range[2], token.range[3], token.image));
+    cpdTokens.save();
+    noSonarFilter.noSonarInFile(inputFile, results.noSonarLines);
+    results.measures.forEach((metricKey, value) -> saveMetricOnFile(inputFile, CoreMetrics.getMetric(metricKey), value));
+    FileLinesContext fileLinesContext = fileLinesContextFactory.createFor(inputFile);
+    results.linesData.forEach((key, lines) -> lines.forEach(line -> fileLinesContext.setIntValue(key, line, 1)));
+    fileLinesContext.save();
+
+    results.issues.forEach(issue -> saveIssue(inputFile, issue.ruleKey, issue.cost, issue.primaryLocation, issue.secondaryLocations));
+
+    NewSymbolTable symbolTable = context.newSymbolTable().onFile(inputFile);
+    for (List<int[]> ranges : results.symbols) {
+      int[] declaration = ranges.get(0);
+      NewSymbol symbol = symbolTable.newSymbol(declaration[0], declaration[1], declaration[2], declaration[3]);
+      ranges.stream().skip(1).forEach(reference -> symbol.newReference(reference[0], reference[1], reference[2], reference[3]));
+    }
+    symbolTable.save();
+    NewHighlighting highlighting = context.newHighlighting().onFile(inputFile);
+    results.highlightings.forEach(h -> highlighting.highlight(h.range[0], h.range[1], h.range[2], h.range[3], h.typeOfText));
+    highlighting.save();
+  }
+
   // visible for testing
   static File getWorkingDirectory(SensorContext context) {
     return context.runtime().getProduct().equals(SonarProduct.SONARLINT) ? null : context.fileSystem().workDir();
@@ -145,42 +391,46 @@ public class PythonScanner extends Scanner {
     LOG.warn("Unable to analyze file: " + file.toString(), e);
   }
 
-  private void saveIssues(InputFile inputFile, List<PreciseIssue> issues) {
+  private void saveIssues(InputFile inputFile, PythonChecks checks, List<PreciseIssue> issues, FileResults fileResults) {
     for (PreciseIssue preciseIssue : issues) {
       RuleKey ruleKey = checks.ruleKey(preciseIssue.check());
-      NewIssue newIssue = context
-        .newIssue()
-        .forRule(ruleKey);
+      fileResults.addIssue(ruleKey, preciseIssue.cost(), preciseIssue.primaryLocation(), preciseIssue.secondaryLocations());
+      saveIssue(inputFile, ruleKey, preciseIssue.cost(), preciseIssue.primaryLocation(), preciseIssue.secondaryLocations());
+    }
+  }
 
-      Integer cost = preciseIssue.cost();
-      if (cost != null) {
-        newIssue.gap(cost.doubleValue());
-      }
+  private void saveIssue(InputFile inputFile, RuleKey ruleKey, @Nullable Integer cost, IssueLocation issueLocation, List<IssueLocation> secondaryLocations) {
+    NewIssue newIssue = context
+      .newIssue()
+      .forRule(ruleKey);
 
-      NewIssueLocation primaryLocation = newLocation(inputFile, newIssue, preciseIssue.primaryLocation());
-      newIssue.at(primaryLocation);
+    if (cost != null) {
+      newIssue.gap(cost.doubleValue());
+    }
 
-      Deque<NewIssueLocation> secondaryLocationsFlow = new ArrayDeque<>();
+    NewIssueLocation primaryLocation = newLocation(inputFile, newIssue, issueLocation);
+    newIssue.at(primaryLocation);
 
-      for (IssueLocation secondaryLocation : preciseIssue.secondaryLocations()) {
-        String fileId = secondaryLocation.fileId();
-        if (fileId != null) {
-          InputFile issueLocationFile = component(fileId, context);
-          if (issueLocationFile != null) {
-            secondaryLocationsFlow.addFirst(newLocation(issueLocationFile, newIssue, secondaryLocation));
-          }
-        } else {
-          newIssue.addLocation(newLocation(inputFile, newIssue, secondaryLocation));
+    Deque<NewIssueLocation> secondaryLocationsFlow = new ArrayDeque<>();
+
+    for (IssueLocation secondaryLocation : secondaryLocations) {
+      String fileId = secondaryLocation.fileId();
+      if (fileId != null) {
+        InputFile issueLocationFile = component(fileId, context);
+        if (issueLocationFile != null) {
+          secondaryLocationsFlow.addFirst(newLocation(issueLocationFile, newIssue, secondaryLocation));
         }
+      } else {
+        newIssue.addLocation(newLocation(inputFile, newIssue, secondaryLocation));
       }
+    }
 
-      // secondary locations on multiple files are only supported using flows
-      if (!secondaryLocationsFlow.isEmpty()) {
-        secondaryLocationsFlow.addFirst(primaryLocation);
-        newIssue.addFlow(secondaryLocationsFlow);
-      }
-      newIssue.save();
+    // secondary locations on multiple files are only supported using flows
+    if (!secondaryLocationsFlow.isEmpty()) {
+      secondaryLocationsFlow.addFirst(primaryLocation);
+      newIssue.addFlow(secondaryLocationsFlow);
     }
+    newIssue.save();
   }
 
   @CheckForNull
@@ -212,30 +462,42 @@ public class PythonScanner extends Scanner {
     return newLocation;
   }
 
-  private void saveMeasures(InputFile inputFile, PythonVisitorContext visitorContext) {
-    FileMetrics fileMetrics = new FileMetrics(visitorContext);
-    FileLinesVisitor fileLinesVisitor = fileMetrics.fileLinesVisitor();
+  private void saveMeasures(InputFile inputFile, PythonVisitorContext visitorContext, FileMetrics fileMetrics, FileResults fileResults,
+    AnalysisProfiler.FileProfile profile) {
+    profile.startPhase();
+    cpdAnalyzer.pushCpdTokens(fileResults.recordCpdTokens(context.newCpdTokens().onFile(inputFile)), visitorContext.rootTree());
+    profile.endPhase(AnalysisProfiler.Phase.CPD);
 
-    cpdAnalyzer.pushCpdTokens(inputFile, visitorContext);
+    profile.startPhase();
+    FileLinesVisitor fileLinesVisitor = fileMetrics.fileLinesVisitor();
+    fileResults.addNoSonarLines(fileLinesVisitor.getLinesWithNoSonar());
     noSonarFilter.noSonarInFile(inputFile, fileLinesVisitor.getLinesWithNoSonar());
 
     Set<Integer> linesOfCode = fileLinesVisitor.getLinesOfCode();
-    saveMetricOnFile(inputFile, CoreMetrics.NCLOC, linesOfCode.size());
-    saveMetricOnFile(inputFile, CoreMetrics.STATEMENTS, fileMetrics.numberOfStatements());
-    saveMetricOnFile(inputFile, CoreMetrics.FUNCTIONS, fileMetrics.numberOfFunctions());
-    saveMetricOnFile(inputFile, CoreMetrics.CLASSES, fileMetrics.numberOfClasses());
-    saveMetricOnFile(inputFile, CoreMetrics.COMPLEXITY, fileMetrics.complexity());
-    saveMetricOnFile(inputFile, CoreMetrics.COGNITIVE_COMPLEXITY, fileMetrics.cognitiveComplexity());
-    saveMetricOnFile(inputFile, CoreMetrics.COMMENT_LINES, fileLinesVisitor.getCommentLineCount());
+    saveMetricOnFile(inputFile, CoreMetrics.NCLOC, linesOfCode.size(), fileResults);
+    saveMetricOnFile(inputFile, CoreMetrics.STATEMENTS, fileMetrics.numberOfStatements(), fileResults);
+    saveMetricOnFile(inputFile, CoreMetrics.FUNCTIONS, fileMetrics.numberOfFunctions(), fileResults);
+    saveMetricOnFile(inputFile, CoreMetrics.CLASSES, fileMetrics.numberOfClasses(), fileResults);
+    saveMetricOnFile(inputFile, CoreMetrics.COMPLEXITY, fileMetrics.complexity(), fileResults);
+    saveMetricOnFile(inputFile, CoreMetrics.COGNITIVE_COMPLEXITY, fileMetrics.cognitiveComplexity(), fileResults);
+    saveMetricOnFile(inputFile, CoreMetrics.COMMENT_LINES, fileLinesVisitor.getCommentLineCount(), fileResults);
 
     FileLinesContext fileLinesContext = fileLinesContextFactory.createFor(inputFile);
     for (int line : linesOfCode) {
+      fileResults.addLineData(CoreMetrics.NCLOC_DATA_KEY, line);
       fileLinesContext.setIntValue(CoreMetrics.NCLOC_DATA_KEY, line, 1);
     }
     for (int line : fileLinesVisitor.getExecutableLines()) {
+      fileResults.addLineData(CoreMetrics.EXECUTABLE_LINES_DATA_KEY, line);
       fileLinesContext.setIntValue(CoreMetrics.EXECUTABLE_LINES_DATA_KEY, line, 1);
     }
     fileLinesContext.save();
+    profile.endPhase(AnalysisProfiler.Phase.MEASURES);
+  }
+
+  private void saveMetricOnFile(InputFile inputFile, Metric<Integer> metric, Integer value, FileResults fileResults) {
+    fileResults.addMeasure(metric.key(), value);
+    saveMetricOnFile(inputFile, metric, value);
   }
 
   private void saveMetricOnFile(InputFile inputFile, Metric<Integer> metric, Integer value) {
@@ -248,8 +510,12 @@ public class PythonScanner extends Scanner {
 
   private class GlobalSymbolsScanner extends Scanner {
 
-    private GlobalSymbolsScanner(SensorContext context) {
+    private final Map<InputFile, Set<Symbol>> globalSymbolsByFile = new ConcurrentHashMap<>();
+    private final GlobalSymbolsCache globalSymbolsCache;
+
+    private GlobalSymbolsScanner(SensorContext context, GlobalSymbolsCache globalSymbolsCache) {
       super(context);
+      this.globalSymbolsCache = globalSymbolsCache;
     }
 
     @Override
@@ -257,14 +523,74 @@ public class PythonScanner extends Scanner {
       return "global symbols computation";
     }
 
+    @Override
+    int numberOfThreads() {
+      return numberOfThreads;
+    }
+
     @Override
     protected void scanFile(InputFile inputFile) throws IOException {
-      AstNode astNode = parser.parse(inputFile.contents());
-      FileInput astRoot = new PythonTreeMaker().fileInput(astNode);
+      String content = inputFile.contents();
       String packageName = pythonPackageName(inputFile.file(), context.fileSystem().baseDir());
       packageNames.put(inputFile, packageName);
+      Set<Symbol> cachedSymbols = globalSymbolsCache.get(inputFile, packageName, content);
+      if (cachedSymbols != null) {
+        globalSymbolsByFile.put(inputFile, cachedSymbols);
+        return;
+      }
+      AnalysisProfiler.FileProfile profile = profiler.startFile(inputFile);
+      profile.startPhase();
+      AstNode astNode = parser.get().parse(content);
+      profile.endPhase(AnalysisProfiler.Phase.PARSE);
+      profile.startPhase();
+      keepSyntaxTree(inputFile, astNode);
+      profile.endPhase(AnalysisProfiler.Phase.KEEP_TREE);
+      profile.startPhase();
+      FileInput astRoot = new PythonTreeMaker().consumeFileInput(astNode);
+      profile.endPhase(AnalysisProfiler.Phase.TREE);
       PythonFile pythonFile = SonarQubePythonFile.create(inputFile);
-      projectLevelSymbolTable.addModule(astRoot, packageName, pythonFile);
+      profile.startPhase();
+      Set<Symbol> globalSymbols = ProjectLevelSymbolTable.globalSymbols(astRoot, packageName, pythonFile);
+      profile.endSymbolTablePhase();
+      globalSymbolsByFile.put(inputFile, globalSymbols);
+      globalSymbolsCache.put(inputFile, packageName, content, globalSymbols, ((FileInputImpl) astRoot).importedModulesFQN());
+      profile.end(check -> check.getClass().getName());
+    }
+
+    /**
+     * Trees are kept in their compact form, about 10 times smaller than SSLR trees, and rebuilt several times faster than
+     * files are parsed. They are kept in the order in which files are scanned, until the first one which does not fit in the cache.
+     */
+    private void keepSyntaxTree(InputFile inputFile, AstNode astNode) {
+      synchronized (parsedFiles) {
+        if (parseCacheFull) {
+          return;
+        }
+      }
+      CompactSyntaxTree syntaxTree = CompactSyntaxTree.of(astNode);
+      synchronized (parsedFiles) {
+        if (!parseCacheFull && parseCacheUsage + syntaxTree.memorySize() <= parseCacheSize) {
+          parseCacheUsage += syntaxTree.memorySize();
+          parsedFiles.put(inputFile, syntaxTree);
+        } else {
+          parseCacheFull = true;
+        }
+      }
+    }
+
+    /**
+     * Modules are added in the order of the analyzed files, whatever the order in which they were scanned,
+     * so that the project level symbol table is the same with or without concurrency.
+     */
+    void addModules(List<InputFile> files) {
+      for (InputFile file : files) {
+        Set<Symbol> globalSymbols = globalSymbolsByFile.get(file);
+        if (globalSymbols != null) {
+          String moduleName = fullyQualifiedModuleName(packageNames.get(file), file.filename());
+          projectLevelSymbolTable.addModule(moduleName, globalSymbols);
+          moduleDependencies.addModule(moduleName, file, globalSymbolsCache.importedModules(file));
+        }
+      }
     }
 
     @Override
@@ -41,6 +41,7 @@ import org.sonar.plugins.python.api.PythonCustomRuleRepository;
 import org.sonar.plugins.python.api.PythonFile;
 import org.sonar.plugins.python.api.PythonVisitorContext;
 import org.sonar.plugins.python.api.tree.FileInput;
+import org.sonar.plugins.python.warnings.AnalysisWarningsWrapper;
 import org.sonar.python.checks.CheckList;
 import org.sonar.python.parser.PythonParser;
 import org.sonar.python.semantic.ProjectLevelSymbolTable;
@@ -51,21 +52,37 @@ public final class PythonSensor implements Sensor {
   private final PythonChecks checks;
   private final FileLinesContextFactory fileLinesContextFactory;
   private final NoSonarFilter noSonarFilter;
+  @Nullable
+  private final AnalysisWarningsWrapper analysisWarnings;
 
   /**
-   * Constructor to be used by pico if no PythonCustomRuleRepository are to be found and injected.
+   * Constructor to be used by pico if no PythonCustomRuleRepository are to be found and injected, in SonarLint.
    */
   public PythonSensor(FileLinesContextFactory fileLinesContextFactory, CheckFactory checkFactory, NoSonarFilter noSonarFilter) {
-    this(fileLinesContextFactory, checkFactory, noSonarFilter, null);
+    this(fileLinesContextFactory, checkFactory, noSonarFilter, null, null);
   }
 
+  /**
+   * Constructor to be used by pico in SonarLint, where no AnalysisWarningsWrapper is available.
+   */
   public PythonSensor(FileLinesContextFactory fileLinesContextFactory, CheckFactory checkFactory, NoSonarFilter noSonarFilter,
                       @Nullable PythonCustomRuleRepository[] customRuleRepositories) {
+    this(fileLinesContextFactory, checkFactory, noSonarFilter, customRuleRepositories, null);
+  }
+
+  public PythonSensor(FileLinesContextFactory fileLinesContextFactory, CheckFactory checkFactory, NoSonarFilter noSonarFilter,
+                      AnalysisWarningsWrapper analysisWarnings) {
+    this(fileLinesContextFactory, checkFactory, noSonarFilter, null, analysisWarnings);
+  }
+
+  public PythonSensor(FileLinesContextFactory fileLinesContextFactory, CheckFactory checkFactory, NoSonarFilter noSonarFilter,
+                      @Nullable PythonCustomRuleRepository[] customRuleRepositories, @Nullable AnalysisWarningsWrapper analysisWarnings) {
     this.checks = new PythonChecks(checkFactory)
       .addChecks(CheckList.REPOSITORY_KEY, CheckList.getChecks())
       .addCustomChecks(customRuleRepositories);
     this.fileLinesContextFactory = fileLinesContextFactory;
     this.noSonarFilter = noSonarFilter;
+    this.analysisWarnings = analysisWarnings;
   }
 
   @Override
@@ -80,7 +97,7 @@ public final class PythonSensor implements Sensor {
   public void execute(SensorContext context) {
     List<InputFile> mainFiles = getInputFiles(Type.MAIN, context);
     List<InputFile> testFiles = getInputFiles(Type.TEST, context);
-    PythonScanner scanner = new PythonScanner(context, checks, fileLinesContextFactory, noSonarFilter, mainFiles);
+    PythonScanner scanner = new PythonScanner(context, checks, fileLinesContextFactory, noSonarFilter, mainFiles, analysisWarnings);
     scanner.execute(mainFiles, context);
     if (!testFiles.isEmpty()) {
       new TestHighlightingScanner(context).execute(testFiles, context);
@@ -114,7 +131,7 @@ public final class PythonSensor implements Sensor {
       try {
         PythonFile pythonFile = SonarQubePythonFile.create(inputFile);
         AstNode astNode = parser.parse(pythonFile.content());
-        FileInput parse = new PythonTreeMaker().fileInput(astNode);
+        FileInput parse = new PythonTreeMaker().consumeFileInput(astNode);
         // omitting package and symbols info as it's not required for highlighting
         PythonVisitorContext visitorContext = new PythonVisitorContext(parse, pythonFile, context.fileSystem().workDir(), "", ProjectLevelSymbolTable.empty());
         new PythonHighlighter(context, inputFile).scanFile(visitorContext);
@@ -0,0 +1,151 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.python;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+/**
+ * Results of the rules execution of each file, stored in the working directory with the fingerprint of everything
+ * they depend on (see {@link PythonScanner}), so that the next analysis can save them again instead of executing the rules.
+ * There is one cache file per analyzed file, which are therefore read and written concurrently without synchronization.
+ */
+class RulesExecutionCache {
+
+  private static final Logger LOG = Loggers.get(RulesExecutionCache.class);
+  static final String DIRECTORY_NAME = "python-rules-execution";
+  private static final int FORMAT_VERSION = 2;
+
+  @Nullable
+  private final File directory;
+  private final String analyzerVersion;
+  private final Set<String> usedFileNames = ConcurrentHashMap.newKeySet();
+  private final AtomicInteger hits = new AtomicInteger();
+  private final AtomicInteger misses = new AtomicInteger();
+
+  private RulesExecutionCache(@Nullable File directory, String analyzerVersion) {
+    this.directory = directory;
+    this.analyzerVersion = analyzerVersion;
+  }
+
+  /**
+   * When no working directory is available (SonarLint), the returned cache is always empty.
+   * Results stored by another version of the analyzer or of the custom rules (see {@link AnalyzerVersion}) are ignored.
+   */
+  static RulesExecutionCache load(@Nullable File workDir, String analyzerVersion) {
+    if (workDir == null) {
+      return new RulesExecutionCache(null, analyzerVersion);
+    }
+    File directory = new File(workDir, DIRECTORY_NAME);
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      LOG.warn("Unable to create rules execution cache directory: " + directory);
+      return new RulesExecutionCache(null, analyzerVersion);
+    }
+    return new RulesExecutionCache(directory, analyzerVersion);
+  }
+
+  /**
+   * Returns null when the previous analysis did not store results for this file with the same fingerprint.
+   */
+  @CheckForNull
+  FileResults get(InputFile inputFile, String fingerprint) {
+    if (directory == null) {
+      return null;
+    }
+    String fileName = fileName(inputFile);
+    usedFileNames.add(fileName);
+    File file = new File(directory, fileName);
+    if (file.exists()) {
+      try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+        if (in.readInt() == FORMAT_VERSION && analyzerVersion.equals(in.readUTF()) && fingerprint.equals(in.readUTF())) {
+          FileResults results = FileResults.read(in);
+          hits.incrementAndGet();
+          return results;
+        }
+      } catch (IOException | RuntimeException e) {
+        LOG.debug("Unable to read cached rules execution results of " + inputFile + ": " + e.getMessage());
+      }
+    }
+    misses.incrementAndGet();
+    return null;
+  }
+
+  void put(InputFile inputFile, String fingerprint, FileResults results) {
+    if (directory == null) {
+      return;
+    }
+    String fileName = fileName(inputFile);
+    usedFileNames.add(fileName);
+    File file = new File(directory, fileName);
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file.toPath())))) {
+      out.writeInt(FORMAT_VERSION);
+      out.writeUTF(analyzerVersion);
+      out.writeUTF(fingerprint);
+      results.write(out);
+    } catch (IOException e) {
+      LOG.warn("Unable to write rules execution results of " + inputFile + ": " + e.getMessage());
+      // a truncated file would be read again by every analysis
+      try {
+        Files.deleteIfExists(file.toPath());
+      } catch (IOException deletionException) {
+        LOG.debug("Unable to delete " + file + ": " + deletionException.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Removes the results of the files which are not part of the current analysis anymore.
+   */
+  void close() {
+    if (directory == null) {
+      return;
+    }
+    LOG.debug("Rules execution cache: " + hits.get() + " hits, " + misses.get() + " misses");
+    File[] files = directory.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        if (!usedFileNames.contains(file.getName())) {
+          try {
+            Files.deleteIfExists(file.toPath());
+          } catch (IOException e) {
+            LOG.debug("Unable to delete " + file + ": " + e.getMessage());
+          }
+        }
+      }
+    }
+  }
+
+  private static String fileName(InputFile inputFile) {
+    return GlobalSymbolsCache.hash(inputFile.uri().toString()) + ".bin";
+  }
+}
@@ -20,7 +20,12 @@
 package org.sonar.plugins.python;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import org.sonar.api.batch.fs.InputFile;
@@ -43,24 +48,79 @@ abstract class Scanner {
     LOG.info("Starting " + this.name());
     List<String> filenames = files.stream().map(InputFile::toString).collect(Collectors.toList());
     progressReport.start(filenames);
+    int numberOfThreads = numberOfThreads();
+    boolean completed = numberOfThreads > 1
+      ? executeInParallel(files, context, progressReport, numberOfThreads)
+      : executeSequentially(files, context, progressReport);
+    if (completed) {
+      progressReport.stop();
+    } else {
+      progressReport.cancel();
+    }
+  }
+
+  private boolean executeSequentially(List<InputFile> files, SensorContext context, ProgressReport progressReport) {
     for (InputFile file : files) {
       if (context.isCancelled()) {
-        progressReport.cancel();
-        return;
+        return false;
+      }
+      scanFile(file, context, progressReport);
+    }
+    return true;
+  }
+
+  private boolean executeInParallel(List<InputFile> files, SensorContext context, ProgressReport progressReport, int numberOfThreads) {
+    LOG.debug("Using " + numberOfThreads + " threads for " + this.name());
+    ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads, runnable -> {
+      Thread thread = new Thread(runnable, "sonar-python-" + this.name());
+      thread.setDaemon(true);
+      return thread;
+    });
+    try {
+      List<Future<?>> results = new ArrayList<>();
+      for (InputFile file : files) {
+        results.add(executor.submit(() -> {
+          if (!context.isCancelled()) {
+            scanFile(file, context, progressReport);
+          }
+        }));
       }
-      try {
-        this.scanFile(file);
-      } catch (Exception e) {
-        this.processException(e, file);
-        if (context.config().getBoolean(FAIL_FAST_PROPERTY_NAME).orElse(false)) {
-          throw new IllegalStateException("Exception when analyzing " + file, e);
-        }
-      } finally {
+      for (Future<?> result : results) {
+        result.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      throw cause instanceof RuntimeException ? (RuntimeException) cause : new IllegalStateException(cause);
+    } finally {
+      executor.shutdownNow();
+    }
+    return !context.isCancelled();
+  }
+
+  private void scanFile(InputFile file, SensorContext context, ProgressReport progressReport) {
+    try {
+      this.scanFile(file);
+    } catch (Exception e) {
+      this.processException(e, file);
+      if (context.config().getBoolean(FAIL_FAST_PROPERTY_NAME).orElse(false)) {
+        throw new IllegalStateException("Exception when analyzing " + file, e);
+      }
+    } finally {
+      synchronized (progressReport) {
         progressReport.nextFile();
       }
     }
+  }
 
-    progressReport.stop();
+  /**
+   * Number of files scanned at the same time. When greater than 1, {@link #scanFile(InputFile)} is called concurrently
+   * from several threads and implementations are responsible for their own synchronization.
+   */
+  int numberOfThreads() {
+    return 1;
   }
 
   abstract String name();
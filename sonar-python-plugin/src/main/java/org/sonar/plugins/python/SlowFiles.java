@@ -0,0 +1,98 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.python;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nullable;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+/**
+ * Content hashes of the files whose analysis exceeded its time budget, stored in the working directory so that the next
+ * analyses go straight to degraded mode for them. Only the files seen again by the current analysis are kept.
+ */
+class SlowFiles {
+
+  private static final Logger LOG = Loggers.get(SlowFiles.class);
+  static final String FILE_NAME = "python-slow-files.txt";
+
+  @Nullable
+  private final File file;
+  private final Set<String> previousHashes;
+  private final Set<String> currentHashes = ConcurrentHashMap.newKeySet();
+
+  private SlowFiles(@Nullable File file, Set<String> previousHashes) {
+    this.file = file;
+    this.previousHashes = previousHashes;
+  }
+
+  static SlowFiles load(@Nullable File workDir) {
+    if (workDir == null) {
+      return new SlowFiles(null, Collections.emptySet());
+    }
+    File file = new File(workDir, FILE_NAME);
+    Set<String> hashes = new HashSet<>();
+    if (file.exists()) {
+      try {
+        hashes.addAll(Files.readAllLines(file.toPath(), StandardCharsets.UTF_8));
+      } catch (IOException e) {
+        LOG.debug("Unable to read slow files from " + file + ": " + e.getMessage());
+      }
+    }
+    return new SlowFiles(file, hashes);
+  }
+
+  /**
+   * Returns whether a file with this content exceeded its time budget in a previous analysis.
+   */
+  boolean contains(String contentHash) {
+    if (previousHashes.contains(contentHash)) {
+      currentHashes.add(contentHash);
+      return true;
+    }
+    return false;
+  }
+
+  void add(String contentHash) {
+    currentHashes.add(contentHash);
+  }
+
+  void save() {
+    if (file == null || (currentHashes.isEmpty() && !file.exists())) {
+      return;
+    }
+    List<String> hashes = new ArrayList<>(currentHashes);
+    Collections.sort(hashes);
+    try {
+      Files.write(file.toPath(), hashes, StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      LOG.warn("Unable to write slow files to " + file + ": " + e.getMessage());
+    }
+  }
+}
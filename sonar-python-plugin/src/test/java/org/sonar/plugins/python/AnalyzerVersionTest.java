@@ -0,0 +1,90 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.python;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AnalyzerVersionTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void jar_version() throws IOException {
+    File jar = jar("python", "3.2", "2021-03-01T10:00:00+0000");
+    assertThat(AnalyzerVersion.jarVersion(jar.toURI().toURL())).isEqualTo("python 3.2 2021-03-01T10:00:00+0000");
+  }
+
+  @Test
+  public void no_version() throws IOException {
+    assertThat(AnalyzerVersion.jarVersion(temporaryFolder.newFolder().toURI().toURL())).isEmpty();
+    assertThat(AnalyzerVersion.jarVersion(new File(temporaryFolder.getRoot(), "missing.jar").toURI().toURL())).isEmpty();
+    assertThat(AnalyzerVersion.jarVersion(jar(null, null, null).toURI().toURL())).isEmpty();
+    File notAJar = temporaryFolder.newFile("invalid.jar");
+    Files.write(notAJar.toPath(), new byte[] {1, 2, 3});
+    assertThat(AnalyzerVersion.jarVersion(notAJar.toURI().toURL())).isEmpty();
+    assertThat(AnalyzerVersion.jarVersion(new URL("http://localhost/plugin.jar"))).isEmpty();
+  }
+
+  @Test
+  public void classes_not_loaded_from_jars() {
+    assertThat(AnalyzerVersion.of(Arrays.asList(AnalyzerVersionTest.class, String.class))).isEmpty();
+  }
+
+  @Test
+  public void versions_of_all_jars() throws IOException {
+    URL pluginJar = jar("python", "3.2", "date").toURI().toURL();
+    URL customRulesJar = jar("custom", "1.0", "date").toURI().toURL();
+    URL directory = temporaryFolder.newFolder().toURI().toURL();
+    assertThat(AnalyzerVersion.ofJars(Arrays.asList(pluginJar, customRulesJar, directory))).isEqualTo("custom 1.0 date\npython 3.2 date");
+    assertThat(AnalyzerVersion.ofJars(Arrays.asList(customRulesJar, pluginJar))).isEqualTo("custom 1.0 date\npython 3.2 date");
+    assertThat(AnalyzerVersion.ofJars(Collections.singletonList(pluginJar))).isEqualTo("python 3.2 date");
+  }
+
+  private File jar(String key, String version, String buildDate) throws IOException {
+    Manifest manifest = new Manifest();
+    Attributes attributes = manifest.getMainAttributes();
+    attributes.put(Attributes.Name.MANIFEST_VERSION, "1.0");
+    if (key != null) {
+      attributes.putValue("Plugin-Key", key);
+      attributes.putValue("Plugin-Version", version);
+      attributes.putValue("Plugin-BuildDate", buildDate);
+    }
+    File jar = temporaryFolder.newFile();
+    try (OutputStream out = new JarOutputStream(Files.newOutputStream(jar.toPath()), manifest)) {
+      // only the manifest is needed
+    }
+    return jar;
+  }
+}
@@ -0,0 +1,54 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.python;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+import org.sonar.python.semantic.SymbolImpl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GlobalSymbolsCacheTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final InputFile inputFile = TestInputFileBuilder.create("moduleKey", "mod.py")
+    .setCharset(StandardCharsets.UTF_8)
+    .setContents("x = 1")
+    .build();
+
+  @Test
+  public void symbols_of_another_analyzer_version_are_ignored() {
+    GlobalSymbolsCache cache = GlobalSymbolsCache.load(temporaryFolder.getRoot(), "1.0");
+    cache.put(inputFile, "", "x = 1", Collections.singleton(new SymbolImpl("x", "mod.x")), Collections.emptySet());
+    cache.save();
+
+    assertThat(GlobalSymbolsCache.load(temporaryFolder.getRoot(), "1.0").get(inputFile, "", "x = 1"))
+      .extracting(symbol -> symbol.fullyQualifiedName())
+      .containsExactly("mod.x");
+    assertThat(GlobalSymbolsCache.load(temporaryFolder.getRoot(), "1.1").get(inputFile, "", "x = 1")).isNull();
+  }
+}
@@ -25,10 +25,13 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Collectors;
 import javax.annotation.Nullable;
 import org.junit.Before;
 import org.junit.Test;
@@ -57,6 +60,7 @@ import org.sonar.api.issue.NoSonarFilter;
 import org.sonar.api.measures.CoreMetrics;
 import org.sonar.api.measures.FileLinesContext;
 import org.sonar.api.measures.FileLinesContextFactory;
+import org.sonar.api.measures.Metric;
 import org.sonar.api.rule.RuleKey;
 import org.sonar.api.utils.Version;
 import org.sonar.api.utils.log.LogTester;
@@ -66,12 +70,18 @@ import org.sonar.check.RuleProperty;
 import org.sonar.plugins.python.api.PythonCheck;
 import org.sonar.plugins.python.api.PythonCustomRuleRepository;
 import org.sonar.plugins.python.api.PythonVisitorContext;
+import org.sonar.plugins.python.warnings.AnalysisWarningsWrapper;
+import org.sonar.python.FileAnalysisBudget;
 import org.sonar.python.checks.CheckList;
+import org.sonar.python.parser.CompactSyntaxTree;
+import org.sonar.python.parser.PythonParser;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 public class PythonSensorTest {
@@ -96,6 +106,17 @@ public class PythonSensorTest {
       return Collections.singletonList(MyCustomRule.class);
     }
   }};
+  private static final PythonCustomRuleRepository[] SLOW_CUSTOM_RULES = {new PythonCustomRuleRepository() {
+    @Override
+    public String repositoryKey() {
+      return "customKey";
+    }
+
+    @Override
+    public List<Class> checkClasses() {
+      return Collections.singletonList(SlowCustomRule.class);
+    }
+  }};
   private static Path workDir;
 
   @Rule(
@@ -116,6 +137,23 @@ public class PythonSensorTest {
     }
   }
 
+  @Rule(key = "slow")
+  public static class SlowCustomRule implements PythonCheck {
+    @Override
+    public void scanFile(PythonVisitorContext visitorContext) {
+      // runs until the budget of the file is exceeded, at most 10s
+      long deadline = System.currentTimeMillis() + 10_000;
+      while (!FileAnalysisBudget.isExceeded() && System.currentTimeMillis() < deadline) {
+        try {
+          Thread.sleep(10);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+    }
+  }
+
   private final File baseDir = new File("src/test/resources/org/sonar/plugins/python/sensor").getAbsoluteFile();
 
   private SensorContextTester context;
@@ -262,6 +300,344 @@ public class PythonSensorTest {
     assertThat(PythonScanner.getWorkingDirectory(context)).isEqualTo(workDir.toFile());
   }
 
+  @Test
+  public void syntax_trees_reused_from_global_symbols_computation() throws IOException {
+    activeRules = new ActiveRulesBuilder()
+      .addRule(new NewActiveRule.Builder()
+        .setRuleKey(RuleKey.of(CheckList.REPOSITORY_KEY, "S930"))
+        .build())
+      .build();
+
+    InputFile mainFile = inputFile("main.py");
+    InputFile modFile = inputFile("mod.py");
+    // only one of the two files fits in the parse cache
+    long mainFileTreeSize = CompactSyntaxTree.of(PythonParser.create().parse(mainFile.contents())).memorySize();
+    context.setSettings(new MapSettings().setProperty(PythonScanner.PARSE_CACHE_SIZE_PROPERTY_NAME, mainFileTreeSize));
+    logTester.setLevel(LoggerLevel.DEBUG);
+    sensor().execute(context);
+
+    assertThat(context.allIssues()).hasSize(1);
+    assertThat(context.measure(mainFile.key(), CoreMetrics.NCLOC).value()).isEqualTo(2);
+    assertThat(context.measure(modFile.key(), CoreMetrics.NCLOC).value()).isEqualTo(2);
+    assertThat(logTester.logs(LoggerLevel.DEBUG)).contains("Syntax trees kept for rules execution: 1/2");
+  }
+
+  @Test
+  public void syntax_trees_not_reused_when_parse_cache_disabled() {
+    activeRules = new ActiveRulesBuilder()
+      .addRule(new NewActiveRule.Builder()
+        .setRuleKey(RuleKey.of(CheckList.REPOSITORY_KEY, "S930"))
+        .build())
+      .build();
+
+    inputFile("main.py");
+    inputFile("mod.py");
+    context.setSettings(new MapSettings().setProperty(PythonScanner.PARSE_CACHE_SIZE_PROPERTY_NAME, 0));
+    logTester.setLevel(LoggerLevel.DEBUG);
+    sensor().execute(context);
+
+    assertThat(context.allIssues()).hasSize(1);
+    assertThat(logTester.logs(LoggerLevel.DEBUG)).contains("Syntax trees kept for rules execution: 0/2");
+  }
+
+  @Test
+  public void type_interner_statistics_of_each_analysis() throws IOException {
+    activeRules = new ActiveRulesBuilder()
+      .addRule(new NewActiveRule.Builder()
+        .setRuleKey(RuleKey.of(CheckList.REPOSITORY_KEY, "S930"))
+        .build())
+      .build();
+
+    typedInputFile();
+    logTester.setLevel(LoggerLevel.DEBUG);
+    sensor().execute(context);
+    List<String> firstStatistics = typeInternerLogs();
+    assertThat(firstStatistics).hasSize(1);
+    assertThat(firstStatistics.get(0)).matches("Type interner: \\d+ hits out of [1-9]\\d* lookups, [1-9]\\d* types interned, at most [1-9]\\d* types in the table of a single file");
+
+    // same files analyzed again from scratch: the statistics do not accumulate those of the previous analysis
+    context = SensorContextTester.create(baseDir);
+    context.fileSystem().setWorkDir(Files.createTempDirectory("workDir"));
+    typedInputFile();
+    logTester.clear();
+    sensor().execute(context);
+    assertThat(typeInternerLogs()).isEqualTo(firstStatistics);
+  }
+
+  private void typedInputFile() {
+    context.fileSystem().add(TestInputFileBuilder.create("moduleKey", "typed.py")
+      .setModuleBaseDir(baseDir.toPath())
+      .setCharset(StandardCharsets.UTF_8)
+      .setType(Type.MAIN)
+      .setLanguage(Python.KEY)
+      .setContents("def f(p):\n    x = 42\n    if p:\n        x = 'a'\n    return x\n")
+      .build());
+  }
+
+  private List<String> typeInternerLogs() {
+    return logTester.logs(LoggerLevel.DEBUG).stream().filter(log -> log.startsWith("Type interner")).collect(Collectors.toList());
+  }
+
+  @Test
+  public void global_symbols_reused_from_previous_analysis() {
+    activeRules = new ActiveRulesBuilder()
+      .addRule(new NewActiveRule.Builder()
+        .setRuleKey(RuleKey.of(CheckList.REPOSITORY_KEY, "S930"))
+        .build())
+      .build();
+
+    inputFile("main.py");
+    inputFile("mod.py");
+    logTester.setLevel(LoggerLevel.DEBUG);
+    sensor().execute(context);
+    assertThat(context.allIssues()).hasSize(1);
+    assertThat(logTester.logs(LoggerLevel.DEBUG)).contains("Global symbols cache: 0 hits, 2 misses");
+    assertThat(workDir.resolve(GlobalSymbolsCache.FILE_NAME)).exists();
+
+    // the issue relies on the symbols of "mod.py", which are not computed again
+    context = SensorContextTester.create(baseDir);
+    context.fileSystem().setWorkDir(workDir);
+    inputFile("main.py");
+    inputFile("mod.py");
+    logTester.clear();
+    sensor().execute(context);
+    assertThat(context.allIssues()).hasSize(1);
+    assertThat(logTester.logs(LoggerLevel.DEBUG)).contains("Global symbols cache: 2 hits, 0 misses");
+
+    context = SensorContextTester.create(baseDir);
+    context.fileSystem().setWorkDir(workDir);
+    inputFile("main.py");
+    context.fileSystem().add(TestInputFileBuilder.create("moduleKey", "mod.py")
+      .setModuleBaseDir(baseDir.toPath())
+      .setCharset(StandardCharsets.UTF_8)
+      .setType(Type.MAIN)
+      .setLanguage(Python.KEY)
+      .setContents("def add(p1, p2, p3):\n    return p1 + p2 + p3")
+      .build());
+    logTester.clear();
+    sensor().execute(context);
+    assertThat(context.allIssues()).isEmpty();
+    assertThat(logTester.logs(LoggerLevel.DEBUG)).contains("Global symbols cache: 1 hits, 1 misses");
+  }
+
+  @Test
+  public void global_symbols_cache_ignored_when_invalid() throws IOException {
+    activeRules = new ActiveRulesBuilder()
+      .addRule(new NewActiveRule.Builder()
+        .setRuleKey(RuleKey.of(CheckList.REPOSITORY_KEY, "S930"))
+        .build())
+      .build();
+
+    Files.write(workDir.resolve(GlobalSymbolsCache.FILE_NAME), new byte[] {1, 2, 3});
+    inputFile("main.py");
+    inputFile("mod.py");
+    logTester.setLevel(LoggerLevel.DEBUG);
+    sensor().execute(context);
+    assertThat(context.allIssues()).hasSize(1);
+    assertThat(logTester.logs(LoggerLevel.DEBUG)).contains("Global symbols cache: 0 hits, 2 misses");
+  }
+
+  @Test
+  public void rules_execution_results_reused_from_previous_analysis() {
+    activeRules = new ActiveRulesBuilder()
+      .addRule(new NewActiveRule.Builder()
+        .setRuleKey(RuleKey.of(CheckList.REPOSITORY_KEY, ONE_STATEMENT_PER_LINE_RULE_KEY))
+        .build())
+      .addRule(new NewActiveRule.Builder()
+        .setRuleKey(RuleKey.of(CheckList.REPOSITORY_KEY, "S930"))
+        .build())
+      .build();
+
+    List<String> fileNames = Arrays.asList(FILE_1, FILE_2, "main.py", "mod.py");
+    fileNames.forEach(this::inputFile);
+    logTester.setLevel(LoggerLevel.DEBUG);
+    sensor().execute(context);
+    assertThat(logTester.logs(LoggerLevel.DEBUG)).contains("Rules execution cache: 0 hits, 4 misses");
+    List<String> firstIssues = detailedIssuesAsStrings(context.allIssues());
+    List<String> firstResults = fileNames.stream().flatMap(name -> savedResults("moduleKey:" + name).stream()).collect(Collectors.toList());
+    assertThat(workDir.resolve(RulesExecutionCache.DIRECTORY_NAME).toFile().list()).hasSize(4);
+
+    context = SensorContextTester.create(baseDir);
+    context.fileSystem().setWorkDir(workDir);
+    fileNames.forEach(this::inputFile);
+    logTester.clear();
+    sensor().execute(context);
+    assertThat(logTester.logs(LoggerLevel.DEBUG)).contains("Rules execution cache: 4 hits, 0 misses");
+    assertThat(firstIssues).hasSize(5);
+    assertThat(detailedIssuesAsStrings(context.allIssues())).containsExactlyInAnyOrder(firstIssues.toArray(new String[0]));
+    assertThat(fileNames.stream().flatMap(name -> savedResults("moduleKey:" + name).stream())).containsExactlyElementsOf(firstResults);
+
+    // rules configuration changed, and results of removed files are deleted
+    activeRules = new ActiveRulesBuilder()
+      .addRule(new NewActiveRule.Builder()
+        .setRuleKey(RuleKey.of(CheckList.REPOSITORY_KEY, "S930"))
+        .build())
+      .build();
+    context = SensorContextTester.create(baseDir);
+    context.fileSystem().setWorkDir(workDir);
+    inputFile("main.py");
+    inputFile("mod.py");
+    logTester.clear();
+    sensor().execute(context);
+    assertThat(logTester.logs(LoggerLevel.DEBUG)).contains("Rules execution cache: 0 hits, 2 misses");
+    assertThat(context.allIssues()).hasSize(1);
+    assertThat(workDir.resolve(RulesExecutionCache.DIRECTORY_NAME).toFile().list()).hasSize(2);
+  }
+
+  @Test
+  public void analysis_profiling() throws IOException {
+    activeRules = new ActiveRulesBuilder()
+      .addRule(new NewActiveRule.Builder()
+        .setRuleKey(RuleKey.of(CheckList.REPOSITORY_KEY, ONE_STATEMENT_PER_LINE_RULE_KEY))
+        .build())
+      .addRule(new NewActiveRule.Builder()
+        .setRuleKey(RuleKey.of(CheckList.REPOSITORY_KEY, "S930"))
+        .build())
+      .build();
+    inputFile(FILE_1);
+    sensor().execute(context);
+    assertThat(workDir.resolve(AnalysisProfiler.REPORT_FILE_NAME)).doesNotExist();
+
+    context = SensorContextTester.create(baseDir);
+    context.fileSystem().setWorkDir(Files.createTempDirectory("workDir"));
+    context.setSettings(new MapSettings().setProperty(AnalysisProfiler.PROPERTY_NAME, true));
+    inputFile(FILE_1);
+    sensor().execute(context);
+
+    Path report = context.fileSystem().workDir().toPath().resolve(AnalysisProfiler.REPORT_FILE_NAME);
+    assertThat(report).exists();
+    String reportContent = new String(Files.readAllBytes(report), StandardCharsets.UTF_8);
+    assertThat(reportContent)
+      .contains("Phases (ms)", "keep_tree", "type_inference", "highlighting")
+      .contains("Checks (ms, allocated MB, executions)", "python:" + ONE_STATEMENT_PER_LINE_RULE_KEY, "python:S930")
+      .contains("Slowest files (ms)", FILE_1);
+    assertThat(logTester.logs(LoggerLevel.INFO).stream().anyMatch(line -> line.startsWith("Analysis phases: parse "))).isTrue();
+    assertThat(logTester.logs(LoggerLevel.INFO).stream().anyMatch(line -> line.startsWith("Check python:" + ONE_STATEMENT_PER_LINE_RULE_KEY + ": "))).isTrue();
+  }
+
+  @Test
+  public void file_time_budget() throws IOException {
+    activeRules = new ActiveRulesBuilder()
+      .addRule(new NewActiveRule.Builder()
+        .setRuleKey(RuleKey.of(CheckList.REPOSITORY_KEY, ONE_STATEMENT_PER_LINE_RULE_KEY))
+        .build())
+      .build();
+    context.setSettings(new MapSettings().setProperty(PythonScanner.FILE_TIME_BUDGET_PROPERTY_NAME, 600));
+    AnalysisWarningsWrapper analysisWarnings = mock(AnalysisWarningsWrapper.class);
+    inputFile(FILE_1);
+    sensor(CUSTOM_RULES, analysisWarnings).execute(context);
+    verifyZeroInteractions(analysisWarnings);
+    assertThat(workDir.resolve(SlowFiles.FILE_NAME)).doesNotExist();
+    assertThat(workDir.resolve(RulesExecutionCache.DIRECTORY_NAME).toFile().list()).hasSize(1);
+  }
+
+  @Test
+  public void file_time_budget_exceeded() throws IOException {
+    activeRules = new ActiveRulesBuilder()
+      .addRule(new NewActiveRule.Builder()
+        .setRuleKey(RuleKey.of("customKey", "slow"))
+        .build())
+      .build();
+    context.setSettings(new MapSettings().setProperty(PythonScanner.FILE_TIME_BUDGET_PROPERTY_NAME, 1));
+    AnalysisWarningsWrapper analysisWarnings = mock(AnalysisWarningsWrapper.class);
+    InputFile inputFile = inputFile(FILE_1);
+    sensor(SLOW_CUSTOM_RULES, analysisWarnings).execute(context);
+
+    String warning = "Analysis of file file1.py exceeded its time budget of 1s: type inference and control flow based rules were skipped for the rest of the file.";
+    verify(analysisWarnings).addWarning(warning);
+    assertThat(logTester.logs(LoggerLevel.WARN)).contains(warning);
+    assertThat(context.measure(inputFile.key(), CoreMetrics.NCLOC)).isNotNull();
+    assertThat(Files.readAllLines(workDir.resolve(SlowFiles.FILE_NAME), StandardCharsets.UTF_8)).containsExactly(GlobalSymbolsCache.hash(inputFile.contents()));
+    // results of a degraded analysis are not cached
+    assertThat(workDir.resolve(RulesExecutionCache.DIRECTORY_NAME).toFile().list()).isEmpty();
+  }
+
+  @Test
+  public void slow_file_is_analyzed_in_degraded_mode() throws IOException {
+    activeRules = new ActiveRulesBuilder()
+      .addRule(new NewActiveRule.Builder()
+        .setRuleKey(RuleKey.of(CheckList.REPOSITORY_KEY, ONE_STATEMENT_PER_LINE_RULE_KEY))
+        .build())
+      .build();
+    context.setSettings(new MapSettings().setProperty(PythonScanner.FILE_TIME_BUDGET_PROPERTY_NAME, 600));
+    AnalysisWarningsWrapper analysisWarnings = mock(AnalysisWarningsWrapper.class);
+    InputFile inputFile = inputFile(FILE_1);
+    String slowFileHash = GlobalSymbolsCache.hash(inputFile.contents());
+    Files.write(workDir.resolve(SlowFiles.FILE_NAME), Arrays.asList("unknown", slowFileHash), StandardCharsets.UTF_8);
+    sensor(CUSTOM_RULES, analysisWarnings).execute(context);
+
+    String warning = "File file1.py is analyzed in degraded mode, as its analysis exceeded the time budget in a previous analysis.";
+    verify(analysisWarnings).addWarning(warning);
+    assertThat(logTester.logs(LoggerLevel.WARN)).contains(warning);
+    assertThat(context.allIssues()).hasSize(2);
+    assertThat(context.measure(inputFile.key(), CoreMetrics.NCLOC)).isNotNull();
+    assertThat(Files.readAllLines(workDir.resolve(SlowFiles.FILE_NAME), StandardCharsets.UTF_8)).containsExactly(slowFileHash);
+    assertThat(workDir.resolve(RulesExecutionCache.DIRECTORY_NAME).toFile().list()).isEmpty();
+  }
+
+  @Test
+  public void parallel_analysis() throws IOException {
+    activeRules = new ActiveRulesBuilder()
+      .addRule(new NewActiveRule.Builder()
+        .setRuleKey(RuleKey.of(CheckList.REPOSITORY_KEY, ONE_STATEMENT_PER_LINE_RULE_KEY))
+        .build())
+      .addRule(new NewActiveRule.Builder()
+        .setRuleKey(RuleKey.of(CheckList.REPOSITORY_KEY, "S930"))
+        .build())
+      .addRule(new NewActiveRule.Builder()
+        .setRuleKey(RuleKey.of(CheckList.REPOSITORY_KEY, "S2710"))
+        .build())
+      .build();
+
+    List<String> fileNames = Arrays.asList(FILE_1, FILE_2, "main.py", "mod.py", "modA.py", "modB.py", "symbolVisitor.py");
+    fileNames.forEach(this::inputFile);
+    sensor().execute(context);
+    List<String> sequentialIssues = issuesAsStrings(context.allIssues());
+
+    context = SensorContextTester.create(baseDir);
+    // results of the first analysis would otherwise be reused instead of executing the rules
+    context.fileSystem().setWorkDir(Files.createTempDirectory("workDir"));
+    context.setSettings(new MapSettings().setProperty(PythonScanner.THREADS_PROPERTY_NAME, 3));
+    InputFile file2 = inputFile(FILE_2);
+    fileNames.stream().filter(name -> !name.equals(FILE_2)).forEach(this::inputFile);
+    logTester.setLevel(LoggerLevel.DEBUG);
+    sensor().execute(context);
+
+    assertThat(sequentialIssues).hasSize(6);
+    assertThat(issuesAsStrings(context.allIssues())).containsExactlyInAnyOrder(sequentialIssues.toArray(new String[0]));
+    assertThat(context.measure(file2.key(), CoreMetrics.NCLOC).value()).isEqualTo(7);
+    assertThat(context.highlightingTypeAt(file2.key(), 3, 0)).isNotEmpty();
+    assertThat(logTester.logs(LoggerLevel.DEBUG)).contains("Using 3 threads for global symbols computation", "Using 3 threads for rules execution");
+  }
+
+  @Test
+  public void parallel_analysis_should_fail_if_configured_so() throws IOException {
+    DefaultInputFile inputFile = spy(createInputFile(FILE_1));
+    when(inputFile.contents()).thenThrow(FileNotFoundException.class);
+    context.fileSystem().add(inputFile);
+    inputFile(FILE_2);
+
+    activeRules = new ActiveRulesBuilder().build();
+    context.setSettings(new MapSettings()
+      .setProperty("sonar.internal.analysis.failFast", "true")
+      .setProperty(PythonScanner.THREADS_PROPERTY_NAME, 2));
+
+    assertThatThrownBy(() -> sensor().execute(context))
+      .isInstanceOf(IllegalStateException.class)
+      .hasCauseInstanceOf(FileNotFoundException.class);
+  }
+
+  @Test
+  public void cancelled_parallel_analysis() {
+    InputFile inputFile = inputFile(FILE_1);
+    activeRules = (new ActiveRulesBuilder()).build();
+    context.setSettings(new MapSettings().setProperty(PythonScanner.THREADS_PROPERTY_NAME, 2));
+    context.setCancelled(true);
+    sensor(null).execute(context);
+    assertThat(context.measure(inputFile.key(), CoreMetrics.NCLOC)).isNull();
+    assertThat(context.allAnalysisErrors()).isEmpty();
+  }
+
   @Test
   public void cross_files_secondary_locations() {
     activeRules = new ActiveRulesBuilder()
@@ -414,10 +790,17 @@ public class PythonSensorTest {
   }
 
   private PythonSensor sensor(@Nullable PythonCustomRuleRepository[] customRuleRepositories) {
+    return sensor(customRuleRepositories, null);
+  }
+
+  private PythonSensor sensor(@Nullable PythonCustomRuleRepository[] customRuleRepositories, @Nullable AnalysisWarningsWrapper analysisWarnings) {
     FileLinesContextFactory fileLinesContextFactory = mock(FileLinesContextFactory.class);
     FileLinesContext fileLinesContext = mock(FileLinesContext.class);
     when(fileLinesContextFactory.createFor(Mockito.any(InputFile.class))).thenReturn(fileLinesContext);
     CheckFactory checkFactory = new CheckFactory(activeRules);
+    if (analysisWarnings != null) {
+      return new PythonSensor(fileLinesContextFactory, checkFactory, new NoSonarFilter(), customRuleRepositories, analysisWarnings);
+    }
     if(customRuleRepositories == null) {
       return new PythonSensor(fileLinesContextFactory, checkFactory, new NoSonarFilter());
     }
@@ -445,6 +828,41 @@ public class PythonSensorTest {
     assertThat(textRanges).containsExactly(trs);
   }
 
+  private static List<String> issuesAsStrings(Collection<Issue> issues) {
+    return issues.stream()
+      .map(issue -> issue.ruleKey() + " " + issue.primaryLocation().inputComponent() + " " + issue.primaryLocation().textRange())
+      .collect(Collectors.toList());
+  }
+
+  private static List<String> detailedIssuesAsStrings(Collection<Issue> issues) {
+    return issues.stream()
+      .map(issue -> issue.ruleKey() + " " + issue.gap() + " " + locationAsString(issue.primaryLocation()) + " "
+        + issue.flows().stream().flatMap(flow -> flow.locations().stream()).map(PythonSensorTest::locationAsString).collect(Collectors.toList()))
+      .collect(Collectors.toList());
+  }
+
+  private static String locationAsString(IssueLocation location) {
+    return location.inputComponent() + " " + location.textRange() + " " + location.message();
+  }
+
+  /**
+   * Everything saved for the given file, at each position of its first lines.
+   */
+  private List<String> savedResults(String componentKey) {
+    List<String> results = new ArrayList<>();
+    for (Metric<Integer> metric : Arrays.asList(CoreMetrics.NCLOC, CoreMetrics.STATEMENTS, CoreMetrics.FUNCTIONS, CoreMetrics.CLASSES,
+      CoreMetrics.COMPLEXITY, CoreMetrics.COGNITIVE_COMPLEXITY, CoreMetrics.COMMENT_LINES)) {
+      results.add(metric.key() + "=" + context.measure(componentKey, metric).value());
+    }
+    context.cpdTokens(componentKey).forEach(line -> results.add(line.getStartLine() + ":" + line.getValue()));
+    for (int line = 1; line <= 30; line++) {
+      for (int offset = 0; offset <= 30; offset++) {
+        results.add(line + ":" + offset + " " + context.highlightingTypeAt(componentKey, line, offset) + " " + context.referencesForSymbolAt(componentKey, line, offset));
+      }
+    }
+    return results;
+  }
+
   private static TextRange reference(int lineStart, int columnStart, int lineEnd, int columnEnd) {
     return new DefaultTextRange(new DefaultTextPointer(lineStart, columnStart), new DefaultTextPointer(lineEnd, columnEnd));
   }
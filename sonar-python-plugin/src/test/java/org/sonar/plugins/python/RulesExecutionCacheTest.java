@@ -0,0 +1,92 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2021 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.plugins.python;
+
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+import org.sonar.api.batch.sensor.cpd.NewCpdTokens;
+import org.sonar.api.utils.log.LogTester;
+import org.sonar.api.utils.log.LoggerLevel;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class RulesExecutionCacheTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Rule
+  public LogTester logTester = new LogTester();
+
+  private final InputFile inputFile = TestInputFileBuilder.create("moduleKey", "mod.py")
+    .setCharset(StandardCharsets.UTF_8)
+    .setContents("x = 1")
+    .build();
+
+  @Test
+  public void strings_longer_than_65535_bytes() {
+    RulesExecutionCache cache = RulesExecutionCache.load(temporaryFolder.getRoot(), "1.0");
+    StringBuilder image = new StringBuilder();
+    for (int i = 0; i < 40_000; i++) {
+      image.append('é');
+    }
+    FileResults results = new FileResults();
+    results.recordCpdTokens(mock(NewCpdTokens.class)).addToken(1, 0, 1, image.length(), image.toString());
+    cache.put(inputFile, "fingerprint", results);
+    assertThat(logTester.logs(LoggerLevel.WARN)).isEmpty();
+
+    FileResults cachedResults = cache.get(inputFile, "fingerprint");
+    assertThat(cachedResults).isNotNull();
+    assertThat(cachedResults.cpdTokens).extracting(cpdToken -> cpdToken.image).containsExactly(image.toString());
+  }
+
+  @Test
+  public void partially_written_file_is_deleted() {
+    RulesExecutionCache cache = RulesExecutionCache.load(temporaryFolder.getRoot(), "1.0");
+    FileResults results = new FileResults() {
+      @Override
+      void write(DataOutput out) throws IOException {
+        out.writeInt(42);
+        throw new IOException("disk full");
+      }
+    };
+    cache.put(inputFile, "fingerprint", results);
+    assertThat(logTester.logs(LoggerLevel.WARN)).containsExactly("Unable to write rules execution results of mod.py: disk full");
+    assertThat(new File(temporaryFolder.getRoot(), RulesExecutionCache.DIRECTORY_NAME).list()).isEmpty();
+    assertThat(cache.get(inputFile, "fingerprint")).isNull();
+  }
+
+  @Test
+  public void results_of_another_analyzer_version_are_ignored() {
+    RulesExecutionCache.load(temporaryFolder.getRoot(), "1.0").put(inputFile, "fingerprint", new FileResults());
+
+    assertThat(RulesExecutionCache.load(temporaryFolder.getRoot(), "1.0").get(inputFile, "fingerprint")).isNotNull();
+    assertThat(RulesExecutionCache.load(temporaryFolder.getRoot(), "1.0\ncustom 1.0").get(inputFile, "fingerprint")).isNull();
+    assertThat(RulesExecutionCache.load(temporaryFolder.getRoot(), "1.1").get(inputFile, "fingerprint")).isNull();
+  }
+}